@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.ActivityBitmap] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.ActivityBitmap]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class ActivityBitmapTest {
+    /** Test for [com.vorlonsoft.android.rate.ActivityBitmap.getCount] function. */
+    @Test
+    internal fun getCount() {
+        val bitmap: ActivityBitmap = ActivityBitmap.EMPTY.set(10).set(11).set(300)
+        assertEquals(3, bitmap.getCount(300, YEAR_IN_DAYS))
+        assertEquals(2, bitmap.getCount(300, 290))
+        assertEquals(3, bitmap.getCount(300, 291))
+        assertEquals(1, bitmap.set(2000).getCount(2000, YEAR_IN_DAYS))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.ActivityBitmap.set] function across the ring wrap. */
+    @Test
+    internal fun set() {
+        val bitmap: ActivityBitmap = ActivityBitmap.EMPTY.set(10).set(11).set(300).set(390)
+        assertEquals(2, bitmap.getCount(390, YEAR_IN_DAYS))
+        assertEquals(2, bitmap.getCount(394, YEAR_IN_DAYS))
+        assertEquals(1, bitmap.getCount(390, 30))
+        assertSame(bitmap, bitmap.set(390))
+        // the day is older than the ring
+        assertSame(bitmap, bitmap.set(390 - DAYS - 1))
+        // the day 10 + DAYS takes the ring position of the day 10
+        val wrappedBitmap: ActivityBitmap = bitmap.set(10 + DAYS)
+        assertEquals(3, wrappedBitmap.getCount(10 + DAYS, YEAR_IN_DAYS))
+        assertEquals(2, wrappedBitmap.getCount(10 + DAYS, 5))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.ActivityBitmap.toByteArray] function. */
+    @Test
+    internal fun toByteArray() {
+        val bitmap: ActivityBitmap = ActivityBitmap.EMPTY.set(10).set(300).set(10 + DAYS)
+        val bytes: ByteArray = bitmap.toByteArray()
+        assertEquals(2, ActivityBitmap.fromByteArray(bytes).getCount(10 + DAYS, YEAR_IN_DAYS))
+        assertSame(ActivityBitmap.EMPTY, ActivityBitmap.fromByteArray(ByteArray(3)))
+    }
+
+    private companion object {
+        /** One year in days. */
+        private const val YEAR_IN_DAYS: Int = 365
+
+        /** The number of days in the ring. */
+        private const val DAYS: Int = 384
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.app.Activity
+import android.app.Instrumentation
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.AppRate] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.AppRate] class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class AppRateTest {
+    private val instrumentation: Instrumentation = InstrumentationRegistry.getInstrumentation()
+
+    private val context: Context = instrumentation.targetContext
+
+    private val store = InMemoryRateStore()
+
+    /** Creates the singleton with the empty store, so the next launch is the first one. */
+    @Before
+    internal fun setUp() {
+        AppRate.with(context, store)
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.AppRate.quickStartAsync] function. */
+    @Test
+    internal fun quickStartAsync() {
+        lateinit var activity: Activity
+        instrumentation.runOnMainSync { activity = Activity() }
+        val tasks = ArrayList<Runnable>()
+        val executor = Executor { tasks.add(it) }
+        for (launchTimes in 1..LAUNCHES_NUMBER) {
+            val latch = CountDownLatch(1)
+            var isDialogShown = true
+            AppRate.quickStartAsync(activity, executor, object : OnQuickStartListener {
+                override fun onQuickStart(isShown: Boolean) {
+                    isDialogShown = isShown
+                    latch.countDown()
+                }
+            })
+            // the calling thread only submits the task, the launch isn't counted yet
+            assertEquals(1, tasks.size)
+            assertEquals((launchTimes - 1).toShort(), PreferenceHelper.getLaunchTimes(context))
+            tasks.removeAt(0).run()
+            assertEquals(launchTimes.toShort(), PreferenceHelper.getLaunchTimes(context))
+            assertEquals(launchTimes, store.launchTimes)
+            // the listener is called in the main thread, default conditions aren't met
+            assertTrue(latch.await(TIMEOUT, TimeUnit.SECONDS))
+            assertFalse(isDialogShown)
+        }
+    }
+
+    private companion object {
+        /** The number of the app launches. */
+        private const val LAUNCHES_NUMBER: Int = 2
+
+        /** The listener call timeout in seconds. */
+        private const val TIMEOUT: Long = 5L
+    }
+}
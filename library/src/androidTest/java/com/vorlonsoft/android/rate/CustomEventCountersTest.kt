@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.CustomEventCounters] class.
+ *
+ * @constructor Empty constructor of unit test for
+ * [com.vorlonsoft.android.rate.CustomEventCounters] class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class CustomEventCountersTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private val store = InMemoryRateStore()
+
+    private lateinit var counters: CustomEventCounters
+
+    /** Sets the empty store and creates counters flushed by the threshold or explicitly only. */
+    @Before
+    internal fun setUp() {
+        PreferenceHelper.setRateStore(store)
+        counters = CustomEventCounters(context)
+        counters.setFlushInterval(0L)
+        counters.setFlushThreshold(FLUSH_THRESHOLD)
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.CustomEventCounters.flush] function. */
+    @Test
+    internal fun flush() {
+        val slot: Int = counters.getSlot(EVENT_NAME)
+        val countsVersion: Int = counters.getCountsVersion()
+        for (i in 0 until 3) {
+            counters.increment(slot)
+        }
+        // increments are held in memory, but they are seen by readers
+        assertTrue(counters.hasPendingIncrements())
+        assertEquals(3.toShort(), counters.getCount(slot))
+        assertEquals(3.toShort(), counters.getSnapshot().state.getCustomEventCount(EVENT_NAME))
+        assertNull(store.customEventCounts[EVENT_NAME])
+        assertEquals(countsVersion, counters.getCountsVersion())
+        counters.flush()
+        assertFalse(counters.hasPendingIncrements())
+        assertEquals(3.toShort(), counters.getCount(slot))
+        assertEquals(3.toShort(),
+                     PreferenceHelper.getState(context).getCustomEventCount(EVENT_NAME))
+        assertEquals(3, store.customEventCounts[EVENT_NAME])
+        assertEquals(countsVersion + 1, counters.getCountsVersion())
+        // there is nothing to write
+        counters.flush()
+        assertEquals(countsVersion + 1, counters.getCountsVersion())
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.CustomEventCounters.setFlushThreshold] function. */
+    @Test
+    internal fun setFlushThreshold() {
+        val slot: Int = counters.getSlot(EVENT_NAME)
+        counters.increment(slot)
+        assertTrue(counters.hasPendingIncrements())
+        // the pending increment reaches the new threshold
+        counters.setFlushThreshold(1.toShort())
+        assertFalse(counters.hasPendingIncrements())
+        assertEquals(1, store.customEventCounts[EVENT_NAME])
+        // 1 means write-through
+        counters.increment(slot)
+        assertFalse(counters.hasPendingIncrements())
+        assertEquals(2, store.customEventCounts[EVENT_NAME])
+        for (i in 2 until FLUSH_THRESHOLD) {
+            counters.increment(slot)
+        }
+        assertEquals(FLUSH_THRESHOLD.toInt(), store.customEventCounts[EVENT_NAME])
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.CustomEventCounters.set] function. */
+    @Test
+    internal fun set() {
+        val slot: Int = counters.getSlot(EVENT_NAME)
+        counters.increment(slot)
+        counters.increment(slot)
+        // unflushed increments of the event are discarded
+        counters.set(slot, 7.toShort())
+        assertFalse(counters.hasPendingIncrements())
+        assertEquals(7.toShort(), counters.getCount(slot))
+        assertEquals(7, store.customEventCounts[EVENT_NAME])
+        counters.flush()
+        assertEquals(7, store.customEventCounts[EVENT_NAME])
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.CustomEventCounters.discard] function. */
+    @Test
+    internal fun discard() {
+        val slot: Int = counters.getSlot(EVENT_NAME)
+        counters.increment(slot)
+        counters.discard()
+        assertFalse(counters.hasPendingIncrements())
+        assertEquals(0.toShort(), counters.getCount(slot))
+        counters.flush()
+        assertNull(store.customEventCounts[EVENT_NAME])
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.CustomEventCounters.setMinimumCount] function. */
+    @Test
+    internal fun setMinimumCount() {
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+        val countsVersion: Int = counters.getCountsVersion()
+        counters.setMinimumCount(EVENT_NAME, 2.toShort(), 0)
+        counters.setMinimumCount(OTHER_EVENT_NAME, 1.toShort(), 0)
+        assertFalse(counters.getSnapshot().isOverMinimumCounts)
+        assertEquals(countsVersion + 2, counters.getCountsVersion())
+        val slot: Int = counters.getSlot(EVENT_NAME)
+        val otherSlot: Int = counters.getSlot(OTHER_EVENT_NAME)
+        counters.increment(slot)
+        counters.increment(slot)
+        assertFalse(counters.getSnapshot().isOverMinimumCounts)
+        // unflushed increments meet the requirements
+        counters.increment(otherSlot)
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+        counters.flush()
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+        counters.setMinimumCount(EVENT_NAME, 3.toShort(), 0)
+        assertFalse(counters.getSnapshot().isOverMinimumCounts)
+        counters.set(slot, 3.toShort())
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.CustomEventCounters.getSnapshot] function, the
+     * requirements are counted again when the counts are discarded or reset.
+     */
+    @Test
+    internal fun getSnapshot() {
+        counters.setMinimumCount(EVENT_NAME, 1.toShort(), 0)
+        val slot: Int = counters.getSlot(EVENT_NAME)
+        counters.increment(slot)
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+        counters.discard()
+        assertFalse(counters.getSnapshot().isOverMinimumCounts)
+        counters.increment(slot)
+        counters.flush()
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+        // the state reset reloads the stored counts
+        PreferenceHelper.setRateStore(InMemoryRateStore())
+        assertFalse(counters.getSnapshot().isOverMinimumCounts)
+        assertEquals(0.toShort(), counters.getCount(slot))
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.CustomEventCounters.hasWindowedMinimumCounts]
+     * function.
+     */
+    @Test
+    internal fun hasWindowedMinimumCounts() {
+        assertFalse(counters.hasWindowedMinimumCounts())
+        counters.setMinimumCount(EVENT_NAME, 2.toShort(), WINDOW_DAYS)
+        assertTrue(counters.hasWindowedMinimumCounts())
+        val slot: Int = counters.getSlot(EVENT_NAME)
+        counters.increment(slot)
+        counters.increment(slot)
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+        // the window is written with the counts
+        counters.flush()
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+        assertNotNull(store.extras[EventWindow.getExtraKey(EVENT_NAME)])
+        counters.setMinimumCount(EVENT_NAME, 2.toShort(), 0)
+        assertFalse(counters.hasWindowedMinimumCounts())
+        assertTrue(counters.getSnapshot().isOverMinimumCounts)
+    }
+
+    private companion object {
+        /** Sample custom event name. */
+        private const val EVENT_NAME: String = "event"
+
+        /** Sample other custom event name. */
+        private const val OTHER_EVENT_NAME: String = "other_event"
+
+        /** Sample window length in days. */
+        private const val WINDOW_DAYS: Int = 7
+
+        /** The number of unflushed increments, that triggers the flush. */
+        private const val FLUSH_THRESHOLD: Short = 100
+    }
+}
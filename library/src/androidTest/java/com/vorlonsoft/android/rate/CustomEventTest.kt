@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.CustomEvent] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.CustomEvent] class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class CustomEventTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private val store = InMemoryRateStore()
+
+    private lateinit var counters: CustomEventCounters
+
+    /** Sets the store with the stored count of [EVENT_NAME] and creates counters. */
+    @Before
+    internal fun setUp() {
+        store.edit().setCustomEventCount(EVENT_NAME, 5).apply()
+        PreferenceHelper.setRateStore(store)
+        counters = CustomEventCounters(context)
+        counters.setFlushInterval(0L)
+        counters.setFlushThreshold(FLUSH_THRESHOLD)
+    }
+
+    private fun newEvent(eventName: String): CustomEvent =
+            CustomEvent(counters, counters.getSlot(eventName))
+
+    /** Test for [com.vorlonsoft.android.rate.CustomEvent.increment] function. */
+    @Test
+    internal fun increment() {
+        val event: CustomEvent = newEvent(EVENT_NAME)
+        // the stored count is loaded once, when the slot is allocated
+        assertEquals(EVENT_NAME, event.name)
+        assertEquals(5.toShort(), event.count)
+        // handles of the same custom event share the slot
+        val otherEvent: CustomEvent = newEvent(EVENT_NAME)
+        event.increment().increment()
+        otherEvent.increment()
+        assertEquals(8.toShort(), event.count)
+        assertEquals(8.toShort(), otherEvent.count)
+        counters.flush()
+        assertEquals(8, store.customEventCounts[EVENT_NAME])
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.CustomEvent.setCount] function. */
+    @Test
+    internal fun setCount() {
+        val event: CustomEvent = newEvent(EVENT_NAME)
+        event.increment()
+        assertEquals(2.toShort(), event.setCount(2.toShort()).count)
+        assertEquals(2, store.customEventCounts[EVENT_NAME])
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.CustomEventCounters.getSlot] function, the slots
+     * arrays grow beyond their initial capacity.
+     */
+    @Test
+    internal fun getSlot() {
+        val events: Array<CustomEvent> = Array(EVENTS_NUMBER) { newEvent(EVENT_NAME_PREFIX + it) }
+        for (i in 0 until EVENTS_NUMBER) {
+            for (j in 0..i) {
+                events[i].increment()
+            }
+        }
+        for (i in 0 until EVENTS_NUMBER) {
+            assertEquals(i, counters.getSlot(EVENT_NAME_PREFIX + i))
+            assertEquals(EVENT_NAME_PREFIX + i, events[i].name)
+            assertEquals((i + 1).toShort(), events[i].count)
+        }
+        counters.flush()
+        for (i in 0 until EVENTS_NUMBER) {
+            assertEquals(i + 1, store.customEventCounts[EVENT_NAME_PREFIX + i])
+        }
+    }
+
+    private companion object {
+        /** Sample custom event name. */
+        private const val EVENT_NAME: String = "event"
+
+        /** The prefix of the sample custom events names. */
+        private const val EVENT_NAME_PREFIX: String = "event_"
+
+        /** The number of the sample custom events, more than the initial slots capacity. */
+        private const val EVENTS_NUMBER: Int = 40
+
+        /** The number of unflushed increments, that triggers the flush. */
+        private const val FLUSH_THRESHOLD: Short = 1000
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.DialogLaunchHistory] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.DialogLaunchHistory]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class DialogLaunchHistoryTest {
+    /** Test for [com.vorlonsoft.android.rate.DialogLaunchHistory.getCount] function. */
+    @Test
+    internal fun getCount() {
+        run {
+            val history = DialogLaunchHistory()
+            history.increment(0)
+            history.increment(0)
+            history.increment(10)
+            assertEquals(3, history.getCount(10))
+            assertEquals(3, history.getCount(364))
+            assertEquals(1, history.getCount(365))
+            assertEquals(0, history.getCount(375))
+        }
+        run {
+            val history = DialogLaunchHistory()
+            history.increment(5)
+            history.increment(400)
+            assertEquals(1, history.getCount(400))
+            history.increment(401)
+            assertEquals(2, history.getCount(401))
+        }
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.DialogLaunchHistory.clear] function. */
+    @Test
+    internal fun clear() {
+        val history = DialogLaunchHistory()
+        history.increment(3)
+        history.increment(300)
+        history.clear()
+        assertEquals(0, history.getCount(300))
+        history.increment(1)
+        assertEquals(1, history.getCount(1))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.DialogLaunchHistory.getFirstDayBelow] function. */
+    @Test
+    internal fun getFirstDayBelow() {
+        val history = DialogLaunchHistory()
+        history.increment(390)
+        history.increment(400)
+        history.increment(400)
+        assertEquals(2, history.getCount(400, 7))
+        assertEquals(3, history.getCount(400, 30))
+        assertEquals(0, history.getCount(407, 7))
+        assertEquals(407, history.getFirstDayBelow(400, 1, 7))
+        assertEquals(420, history.getFirstDayBelow(400, 3, 30))
+        assertEquals(430, history.getFirstDayBelow(400, 2, 30))
+        assertEquals(400, history.getFirstDayBelow(400, 4, 30))
+        assertEquals(-1, history.getFirstDayBelow(400, 0, 7))
+        assertEquals(765, history.getFirstDayBelow(400, 1))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.DialogLaunchHistory.toByteArray] function. */
+    @Test
+    internal fun toByteArray() {
+        val history = DialogLaunchHistory()
+        history.increment(3)
+        history.increment(300)
+        val bytes: ByteArray = history.toByteArray()
+        assertArrayEquals(bytes, DialogLaunchHistory.fromByteArray(bytes).toByteArray())
+        assertEquals(2, DialogLaunchHistory.fromByteArray(bytes).getCount(300))
+        assertEquals(0, DialogLaunchHistory.fromByteArray(ByteArray(3)).getCount(300))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.DialogLaunchHistory.fromLegacyString] function. */
+    @Test
+    internal fun fromLegacyString() {
+        run {
+            val history: DialogLaunchHistory = DialogLaunchHistory.fromLegacyString(":0y0-0:", 0)
+            assertEquals(0, history.getCount(0))
+        }
+        run {
+            val history: DialogLaunchHistory =
+                 DialogLaunchHistory.fromLegacyString(":10y0-2:200y0-1:5y1-3:", YEAR_IN_DAYS + 5)
+            assertEquals(6, history.getCount(YEAR_IN_DAYS + 5))
+            assertEquals(3, history.getCount(YEAR_IN_DAYS + 200))
+        }
+    }
+
+    private companion object {
+        /** One year in days. */
+        private const val YEAR_IN_DAYS: Int = 365
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.EligibilityRecord] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.EligibilityRecord]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class EligibilityRecordTest {
+    /** Test for [com.vorlonsoft.android.rate.EligibilityRecord.toByteArray] function. */
+    @Test
+    internal fun toByteArray() {
+        for (record in arrayOf(EligibilityRecord(CONDITIONS_HASH, 3, ELIGIBLE_AT),
+                               EligibilityRecord(-CONDITIONS_HASH, Short.MAX_VALUE,
+                                                 EligibilityRecord.NEVER),
+                               EligibilityRecord(0L, (-1).toShort(), 0L))) {
+            val bytes: ByteArray = record.toByteArray()
+            assertEquals(FORMAT_LENGTH, bytes.size)
+            val restoredRecord: EligibilityRecord? = EligibilityRecord.fromByteArray(bytes)
+            assertNotNull(restoredRecord)
+            assertEquals(record.conditionsHash, restoredRecord!!.conditionsHash)
+            assertEquals(record.launchTimes, restoredRecord.launchTimes)
+            assertEquals(record.eligibleAt, restoredRecord.eligibleAt)
+        }
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.EligibilityRecord.fromByteArray] function. */
+    @Test
+    internal fun fromByteArray() {
+        val bytes: ByteArray = EligibilityRecord(CONDITIONS_HASH, 3, ELIGIBLE_AT).toByteArray()
+        assertNull(EligibilityRecord.fromByteArray(null))
+        assertNull(EligibilityRecord.fromByteArray(bytes.copyOf(FORMAT_LENGTH - 1)))
+        assertNull(EligibilityRecord.fromByteArray(bytes.copyOf(FORMAT_LENGTH + 1)))
+        bytes[0] = 2
+        assertNull(EligibilityRecord.fromByteArray(bytes))
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.PreferenceHelper.Transaction.commit] function, the
+     * record is removed when any condition input except the launch times changes.
+     */
+    @Test
+    internal fun commit() {
+        val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+        val store = InMemoryRateStore()
+        PreferenceHelper.setRateStore(store)
+        PreferenceHelper.edit(context).setExtra(EligibilityRecord.EXTRA_KEY,
+                EligibilityRecord(CONDITIONS_HASH, 3, ELIGIBLE_AT).toByteArray()).commit()
+        PreferenceHelper.edit(context).setLaunchTimes(4.toShort()).setVersionName(VERSION_NAME)
+                                      .commit()
+        assertNotNull(store.extras[EligibilityRecord.EXTRA_KEY])
+        assertNotNull(PreferenceHelper.getState(context).getExtra(EligibilityRecord.EXTRA_KEY))
+        PreferenceHelper.edit(context).setRemindInterval(REMIND_INTERVAL).commit()
+        assertNull(store.extras[EligibilityRecord.EXTRA_KEY])
+        assertNull(PreferenceHelper.getState(context).getExtra(EligibilityRecord.EXTRA_KEY))
+    }
+
+    private companion object {
+        /** The binary format length of the record. */
+        private const val FORMAT_LENGTH: Int = 19
+
+        /** Sample conditions hash. */
+        private const val CONDITIONS_HASH: Long = 0x123456789ABCDEFL
+
+        /** Sample time the conditions are met at or after. */
+        private const val ELIGIBLE_AT: Long = 1540000000000L
+
+        /** Sample remind interval. */
+        private const val REMIND_INTERVAL: Long = 7L
+
+        /** Sample version name. */
+        private const val VERSION_NAME: String = "1.0"
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.EngagementScore] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.EngagementScore]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class EngagementScoreTest {
+    /** Test for [com.vorlonsoft.android.rate.EngagementScore.getTimeBelow] function. */
+    @Test
+    internal fun getTimeBelow() {
+        run {
+            // 4 decays to 1 in two half-lives, the score is below 1 a millisecond later
+            val score: EngagementScore = EngagementScore.ZERO.add(1000L, HALF_LIFE, 4.0)
+            val time: Long = score.getTimeBelow(1.0, HALF_LIFE)
+            assertEquals(3001L, time)
+            assertTrue(score.getValue(time, HALF_LIFE) < 1.0)
+            assertTrue(score.getValue(time - 1L, HALF_LIFE) >= 1.0)
+        }
+        run {
+            val score: EngagementScore = EngagementScore.ZERO.add(0L, Time.WEEK, 1.0)
+                                                             .add(Time.DAY, Time.WEEK, 2.0)
+            val time: Long = score.getTimeBelow(2.5, Time.WEEK)
+            assertTrue(score.getValue(time, Time.WEEK) < 2.5)
+            assertTrue(score.getValue(time - 1L, Time.WEEK) >= 2.5)
+            assertEquals(time, EngagementScore.fromByteArray(score.toByteArray())
+                                              .getTimeBelow(2.5, Time.WEEK))
+        }
+        run {
+            // the score is already below the threshold
+            val score: EngagementScore = EngagementScore.ZERO.add(1000L, HALF_LIFE, 0.5)
+            assertEquals(1000L, score.getTimeBelow(1.0, HALF_LIFE))
+        }
+        run {
+            // the score doesn't decay or decays too long
+            val score: EngagementScore = EngagementScore.ZERO.add(1000L, HALF_LIFE, 1e300)
+            assertEquals(Long.MAX_VALUE, score.getTimeBelow(1.0, 0L))
+            assertEquals(Long.MAX_VALUE, score.getTimeBelow(1.0, Long.MAX_VALUE / 2L))
+        }
+    }
+
+    private companion object {
+        /** Sample half-life in milliseconds. */
+        private const val HALF_LIFE: Long = 1000L
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.EventWindow] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.EventWindow] class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class EventWindowTest {
+    /** Test for [com.vorlonsoft.android.rate.EventWindow.getCount] function. */
+    @Test
+    internal fun getCount() {
+        run {
+            // the ring wraps around at the day 7
+            val window: EventWindow = EventWindow.empty(7)
+            window.add(5, 1)
+            window.add(10, 2)
+            window.add(12, 3)
+            assertEquals(5, window.getCount(12))
+            assertEquals(5, window.getCount(16))
+            assertEquals(3, window.getCount(17))
+            assertEquals(0, window.getCount(19))
+        }
+        run {
+            val window: EventWindow = EventWindow.empty(7)
+            window.add(30, 1)
+            // the day, that has left the window, isn't counted
+            window.add(20, 1)
+            assertEquals(1, window.getCount(30))
+        }
+        run {
+            val window: EventWindow = EventWindow.empty(7)
+            window.add(3, 40000)
+            window.add(3, 1)
+            assertEquals(Short.MAX_VALUE.toInt(), window.getCount(3))
+        }
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.EventWindow.toByteArray] function. */
+    @Test
+    internal fun toByteArray() {
+        val window: EventWindow = EventWindow.empty(30)
+        window.add(100, 1)
+        window.add(110, 2)
+        window.add(125, 4)
+        assertEquals(7, EventWindow.fromByteArray(window.toByteArray(), 30).getCount(129))
+        val bytes: ByteArray = window.toByteArray(126, 5)
+        assertEquals(7, window.getCount(126))
+        assertEquals(12, EventWindow.fromByteArray(bytes, 30).getCount(126))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.EventWindow.fromByteArray] function. */
+    @Test
+    internal fun fromByteArray() {
+        val window: EventWindow = EventWindow.empty(30)
+        window.add(100, 1)
+        window.add(110, 2)
+        window.add(125, 4)
+        val bytes: ByteArray = window.toByteArray()
+        // the newest days, that fit, are kept
+        assertEquals(4, EventWindow.fromByteArray(bytes, 7).getCount(125))
+        assertEquals(7, EventWindow.fromByteArray(bytes, 60).getCount(125))
+        assertEquals(7, EventWindow.fromByteArray(bytes, 60).getCount(150))
+        assertEquals(0, EventWindow.fromByteArray(ByteArray(3), 7).getCount(0))
+        assertEquals(0, EventWindow.fromByteArray(null, 7).getCount(0))
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.InMemoryRateStore] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.InMemoryRateStore]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class InMemoryRateStoreTest {
+    /** Test for [com.vorlonsoft.android.rate.InMemoryRateStore.edit] function. */
+    @Test
+    internal fun edit() {
+        val store = InMemoryRateStore()
+        val editor: RateStore.Editor = store.edit()
+                .setDialogFirstLaunchTime(DIALOG_FIRST_LAUNCH_TIME).setInstallDate(INSTALL_DATE)
+                .setAgreeShowDialog(false).setLaunchTimes(3)
+                .setRemindInterval(REMIND_INTERVAL).setRemindLaunchesNumber(2)
+                .setVersionCode(VERSION_CODE).setVersionName(VERSION_NAME)
+                .setCustomEventCount(EVENT_NAME, 4).setDialogLaunchHistory(VALUE)
+                .setExtra(EXTRA_KEY, VALUE)
+        // changes are collected in the editor until apply()
+        assertEquals(0L, store.installDate)
+        editor.apply()
+        assertEquals(DIALOG_FIRST_LAUNCH_TIME, store.dialogFirstLaunchTime)
+        assertEquals(INSTALL_DATE, store.installDate)
+        assertFalse(store.isAgreeShowDialog)
+        assertEquals(3, store.launchTimes)
+        assertEquals(REMIND_INTERVAL, store.remindInterval)
+        assertEquals(2, store.remindLaunchesNumber)
+        assertEquals(VERSION_CODE, store.versionCode)
+        assertEquals(VERSION_NAME, store.versionName)
+        assertEquals(4, store.customEventCounts[EVENT_NAME])
+        assertArrayEquals(VALUE, store.dialogLaunchHistory)
+        assertArrayEquals(VALUE, store.extras[EXTRA_KEY])
+        // null values remove the history and the extra
+        store.edit().setDialogLaunchHistory(null).setExtra(EXTRA_KEY, null).apply()
+        assertNull(store.dialogLaunchHistory)
+        assertFalse(store.extras.containsKey(EXTRA_KEY))
+        assertEquals(INSTALL_DATE, store.installDate)
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.InMemoryRateStore.getExtras] function. */
+    @Test
+    internal fun getExtras() {
+        val store = InMemoryRateStore()
+        val value: ByteArray = VALUE.clone()
+        store.edit().setCustomEventCount(EVENT_NAME, 4).setDialogLaunchHistory(value)
+                    .setExtra(EXTRA_KEY, value).apply()
+        // the store keeps its own copies, neither the set nor the returned values are shared
+        value[0] = 0
+        store.customEventCounts[EVENT_NAME] = 5
+        store.dialogLaunchHistory!![0] = 0
+        store.extras.getValue(EXTRA_KEY)[0] = 0
+        assertEquals(4, store.customEventCounts[EVENT_NAME])
+        assertArrayEquals(VALUE, store.dialogLaunchHistory)
+        assertArrayEquals(VALUE, store.extras[EXTRA_KEY])
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.RateStore.Editor.clear] function. */
+    @Test
+    internal fun clear() {
+        val store = InMemoryRateStore()
+        store.edit().setInstallDate(INSTALL_DATE).setAgreeShowDialog(false)
+                    .setCustomEventCount(EVENT_NAME, 4).setExtra(EXTRA_KEY, VALUE).apply()
+        // the store is cleared first, whatever the calls order is
+        store.edit().setLaunchTimes(3).clear().apply()
+        assertEquals(0L, store.installDate)
+        assertTrue(store.isAgreeShowDialog)
+        assertEquals(3, store.launchTimes)
+        assertTrue(store.customEventCounts.isEmpty())
+        assertTrue(store.extras.isEmpty())
+        assertNull(store.dialogLaunchHistory)
+    }
+
+    private companion object {
+        /** Sample Rate Dialog first launch time. */
+        private const val DIALOG_FIRST_LAUNCH_TIME: Long = 3L
+
+        /** Sample install date. */
+        private const val INSTALL_DATE: Long = 5L
+
+        /** Sample remind interval. */
+        private const val REMIND_INTERVAL: Long = 7L
+
+        /** Sample version code. */
+        private const val VERSION_CODE: Long = 2L
+
+        /** Sample version name. */
+        private const val VERSION_NAME: String = "1.0"
+
+        /** Sample custom event name. */
+        private const val EVENT_NAME: String = "event"
+
+        /** Sample extra key. */
+        private const val EXTRA_KEY: String = "extra"
+
+        /** Sample serialized value. */
+        private val VALUE: ByteArray = byteArrayOf(1, 2, 3)
+    }
+}
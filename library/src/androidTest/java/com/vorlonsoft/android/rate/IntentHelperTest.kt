@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import android.content.Intent
+import androidx.test.platform.app.InstrumentationRegistry
+import com.vorlonsoft.android.rate.StoreType.Companion.AMAZON
+import com.vorlonsoft.android.rate.StoreType.Companion.BAZAAR
+import com.vorlonsoft.android.rate.StoreType.Companion.GOOGLEPLAY
+import com.vorlonsoft.android.rate.StoreType.Companion.YANDEX
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.IntentHelper] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.IntentHelper]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class IntentHelperTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    /** Test for [com.vorlonsoft.android.rate.IntentHelper.createIntentsForStores] function. */
+    @Test
+    internal fun createIntentsForStores() {
+        val installedPackages: Set<String> = StorePackagesCache.getInstance(context).load()
+        for (appStores in arrayOf(intArrayOf(AMAZON, YANDEX, BAZAAR, GOOGLEPLAY),
+                                  intArrayOf(GOOGLEPLAY, BAZAAR, YANDEX, AMAZON))) {
+            // the installed app stores intents go first, the web intents go next, both in the
+            // app stores order, Yandex.Store web intent needs the installed app store
+            val expectedIntents = ArrayList<String>()
+            for (appStore in appStores) {
+                if (installedPackages.contains(STORES_PACKAGES_NAMES.getValue(appStore))) {
+                    expectedIntents.add(STORES_PACKAGES_NAMES.getValue(appStore) + " " +
+                                        UriHelper.getStoreUri(appStore, SAMPLE_APP_PACKAGE))
+                }
+            }
+            for (appStore in appStores) {
+                if ((appStore != YANDEX) ||
+                    installedPackages.contains(STORES_PACKAGES_NAMES.getValue(appStore))) {
+                    expectedIntents.add("null " +
+                                        UriHelper.getStoreWebUri(appStore, SAMPLE_APP_PACKAGE))
+                }
+            }
+            val intents: Array<Intent> =
+                    IntentHelper.createIntentsForStores(context, appStores, SAMPLE_APP_PACKAGE)
+            assertEquals(expectedIntents, intents.map { it.`package` + " " + it.data })
+        }
+    }
+
+    private companion object {
+        /** Sample app package. */
+        private const val SAMPLE_APP_PACKAGE: String = "com.vorlonsoft.android.rate.sample"
+
+        /** The packages names of the tested app stores. */
+        private val STORES_PACKAGES_NAMES: Map<Int, String> = mapOf(
+                AMAZON to "com.amazon.venezia",
+                BAZAAR to "com.farsitel.bazaar",
+                GOOGLEPLAY to "com.android.vending",
+                YANDEX to "com.yandex.store")
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.FileOutputStream
+import java.util.concurrent.CountDownLatch
+import java.util.zip.CRC32
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.JournalRateStore] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.JournalRateStore]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class JournalRateStoreTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private val file: File = File(context.filesDir, FILE_NAME)
+
+    /** Deletes the journal and the preferences, that the new journal is imported from. */
+    @Before
+    internal fun setUp() {
+        file.delete()
+        SharedPreferencesRateStore(context).edit().clear().apply()
+    }
+
+    /** Test for the journal records framing: the length, the payload and the CRC32. */
+    @Test
+    internal fun recordsFraming() {
+        val store = JournalRateStore(context)
+        store.edit().setInstallDate(5L).setLaunchTimes(1).apply()
+        store.edit().setCustomEventCount(EVENT_NAME, 2).apply()
+        waitForBackgroundExecutor()
+        val journal: ByteArray = file.readBytes()
+        val crc32 = CRC32()
+        var offset = 0
+        var recordsNumber = 0
+        while (journal.size - offset >= RECORD_OVERHEAD) {
+            val length: Int = readInt(journal, offset)
+            crc32.reset()
+            crc32.update(journal, offset + 4, length)
+            assertEquals(crc32.value.toInt(), readInt(journal, offset + 4 + length))
+            offset += length + RECORD_OVERHEAD
+            recordsNumber++
+        }
+        assertEquals(journal.size, offset)
+        // the import of the preferences and two edits
+        assertEquals(3, recordsNumber)
+    }
+
+    /** Test for the journal folding on the first access. */
+    @Test
+    internal fun fold() {
+        run {
+            val store = JournalRateStore(context)
+            store.edit().setInstallDate(5L).setLaunchTimes(1).setCustomEventCount(EVENT_NAME, 1)
+                        .apply()
+            store.edit().setLaunchTimes(2).setCustomEventCount(EVENT_NAME, 3)
+                        .setAgreeShowDialog(false).apply()
+            store.edit().setVersionName(VERSION_NAME).setExtra(EXTRA_KEY, byteArrayOf(1, 2))
+                        .apply()
+            waitForBackgroundExecutor()
+        }
+        run {
+            val store = JournalRateStore(context)
+            assertEquals(5L, store.installDate)
+            assertEquals(2, store.launchTimes)
+            assertEquals(3, store.customEventCounts[EVENT_NAME])
+            assertFalse(store.isAgreeShowDialog)
+            assertEquals(VERSION_NAME, store.versionName)
+            assertArrayEquals(byteArrayOf(1, 2), store.extras[EXTRA_KEY])
+            store.edit().clear().setLaunchTimes(7).apply()
+            waitForBackgroundExecutor()
+        }
+        run {
+            val store = JournalRateStore(context)
+            assertEquals(0L, store.installDate)
+            assertEquals(7, store.launchTimes)
+            assertTrue(store.customEventCounts.isEmpty())
+            assertTrue(store.isAgreeShowDialog)
+        }
+    }
+
+    /** Test for the journal compaction, deltas must not be folded twice. */
+    @Test
+    internal fun compact() {
+        val store = JournalRateStore(context, COMPACTION_THRESHOLD)
+        for (i in 1..100) {
+            store.edit().setLaunchTimes(i).setCustomEventCount(EVENT_NAME, i).apply()
+        }
+        waitForBackgroundExecutor()
+        assertTrue(file.length() < 2 * COMPACTION_THRESHOLD)
+        val reloadedStore = JournalRateStore(context)
+        assertEquals(100, reloadedStore.launchTimes)
+        assertEquals(100, reloadedStore.customEventCounts[EVENT_NAME])
+    }
+
+    /** Test for the recovery of the journal with the torn tail record. */
+    @Test
+    internal fun truncatedTail() {
+        JournalRateStore(context).edit().setLaunchTimes(3).apply()
+        waitForBackgroundExecutor()
+        val length: Long = file.length()
+        FileOutputStream(file, true).use { it.write(byteArrayOf(0, 0, 0, 9, 1, 2)) }
+        val store = JournalRateStore(context)
+        assertEquals(3, store.launchTimes)
+        waitForBackgroundExecutor()
+        assertEquals(length, file.length())
+        store.edit().setLaunchTimes(4).apply()
+        waitForBackgroundExecutor()
+        assertEquals(4, JournalRateStore(context).launchTimes)
+    }
+
+    private companion object {
+        /** The journal file name. */
+        private const val FILE_NAME: String = "androidrate_journal.bin"
+
+        /** The length and the CRC32 of the record. */
+        private const val RECORD_OVERHEAD: Int = 8
+
+        /** The small compaction threshold in bytes. */
+        private const val COMPACTION_THRESHOLD: Int = 256
+
+        /** Sample custom event name. */
+        private const val EVENT_NAME: String = "event"
+
+        /** Sample extra key. */
+        private const val EXTRA_KEY: String = "extra"
+
+        /** Sample version name. */
+        private const val VERSION_NAME: String = "1.0"
+
+        /** Waits until the journal appends queued in the library background thread are done. */
+        private fun waitForBackgroundExecutor() {
+            val latch = CountDownLatch(1)
+            BackgroundExecutor.getInstance().execute { latch.countDown() }
+            latch.await()
+        }
+
+        private fun readInt(bytes: ByteArray, offset: Int): Int {
+            return ((bytes[offset].toInt() and 0xFF) shl 24) or
+                   ((bytes[offset + 1].toInt() and 0xFF) shl 16) or
+                   ((bytes[offset + 2].toInt() and 0xFF) shl 8) or
+                   (bytes[offset + 3].toInt() and 0xFF)
+        }
+    }
+}
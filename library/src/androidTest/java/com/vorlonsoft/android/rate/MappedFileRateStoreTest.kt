@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.MappedFileRateStore] class.
+ *
+ * @constructor Empty constructor of unit test for
+ * [com.vorlonsoft.android.rate.MappedFileRateStore] class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class MappedFileRateStoreTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private val file: File = File(context.filesDir, FILE_NAME)
+
+    /** Deletes the file and the preferences, that the new file is imported from. */
+    @Before
+    internal fun setUp() {
+        file.delete()
+        SharedPreferencesRateStore(context).edit().clear().apply()
+    }
+
+    /** Test for the slot choice: the valid slot with the highest sequence number is active. */
+    @Test
+    internal fun slotChoice() {
+        val store = MappedFileRateStore(context)
+        // the slots are written in turn: the first, the second, the first
+        store.edit().setLaunchTimes(1).apply()
+        store.edit().setLaunchTimes(2).apply()
+        store.edit().setLaunchTimes(3).setInstallDate(9L).apply()
+        assertEquals(2L * SLOT_SIZE, file.length())
+        val reloadedStore = MappedFileRateStore(context)
+        assertEquals(3, reloadedStore.launchTimes)
+        assertEquals(9L, reloadedStore.installDate)
+    }
+
+    /** Test for the fallback to the other slot if the checksum of the newest slot mismatches. */
+    @Test
+    internal fun checksumMismatch() {
+        run {
+            val store = MappedFileRateStore(context)
+            store.edit().setLaunchTimes(1).apply()
+            store.edit().setLaunchTimes(2).apply()
+            store.edit().setLaunchTimes(3).setInstallDate(9L).apply()
+        }
+        corruptLaunchTimes(0)
+        run {
+            val store = MappedFileRateStore(context)
+            assertEquals(2, store.launchTimes)
+            assertEquals(0L, store.installDate)
+        }
+        corruptLaunchTimes(SLOT_SIZE)
+        run {
+            val store = MappedFileRateStore(context)
+            assertEquals(0, store.launchTimes)
+            store.edit().setLaunchTimes(5).apply()
+        }
+        assertEquals(5, MappedFileRateStore(context).launchTimes)
+    }
+
+    /**
+     * Overwrites the launch times of the slot without updating its checksum.
+     *
+     * @param slot the offset of the slot
+     */
+    private fun corruptLaunchTimes(slot: Int) {
+        RandomAccessFile(file, "rw").use {
+            it.seek((slot + OFFSET_LAUNCH_TIMES).toLong())
+            it.writeInt(42)
+        }
+    }
+
+    private companion object {
+        /** The state file name. */
+        private const val FILE_NAME: String = "androidrate_state.bin"
+
+        /** The slot size in bytes. */
+        private const val SLOT_SIZE: Int = 1024
+
+        /** The offset of the launch times in the slot. */
+        private const val OFFSET_LAUNCH_TIMES: Int = 48
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.PreferenceHelper] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.PreferenceHelper]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class PreferenceHelperTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private val store = InMemoryRateStore()
+
+    /** Sets the empty store, so the state snapshot is reloaded from it. */
+    @Before
+    internal fun setUp() {
+        PreferenceHelper.setRateStore(store)
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.PreferenceHelper.getState] function. */
+    @Test
+    internal fun getState() {
+        val newStore = InMemoryRateStore()
+        newStore.edit().setInstallDate(INSTALL_DATE).setLaunchTimes(3)
+                       .setCustomEventCount(EVENT_NAME, 2).apply()
+        PreferenceHelper.setRateStore(newStore)
+        val state: RateState = PreferenceHelper.getState(context)
+        assertEquals(INSTALL_DATE, state.installDate)
+        assertEquals(3.toShort(), state.launchTimes)
+        assertEquals(2.toShort(), state.getCustomEventCount(EVENT_NAME))
+        // the snapshot is loaded once, further calls are plain field reads
+        assertSame(state, PreferenceHelper.getState(context))
+        newStore.edit().setLaunchTimes(4).apply()
+        assertEquals(3.toShort(), PreferenceHelper.getLaunchTimes(context))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.PreferenceHelper.setIsAgreeShowDialog] function. */
+    @Test
+    internal fun setIsAgreeShowDialog() {
+        val state: RateState = PreferenceHelper.getState(context)
+        val version: Int = PreferenceHelper.getConditionsInputsVersion()
+        // the value is equal to the current one, so nothing is written
+        PreferenceHelper.setIsAgreeShowDialog(context, true)
+        assertSame(state, PreferenceHelper.getState(context))
+        assertEquals(version, PreferenceHelper.getConditionsInputsVersion())
+        PreferenceHelper.setIsAgreeShowDialog(context, false)
+        assertNotSame(state, PreferenceHelper.getState(context))
+        assertFalse(PreferenceHelper.getIsAgreeShowDialog(context))
+        assertFalse(store.isAgreeShowDialog)
+        assertEquals(version + 1, PreferenceHelper.getConditionsInputsVersion())
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.PreferenceHelper.setRateStore] function. */
+    @Test
+    internal fun setRateStore() {
+        PreferenceHelper.setIsAgreeShowDialog(context, false)
+        val resetsNumber: Int = PreferenceHelper.getStateResetsNumber()
+        val version: Int = PreferenceHelper.getConditionsInputsVersion()
+        // the same store doesn't reload the state
+        PreferenceHelper.setRateStore(store)
+        assertEquals(resetsNumber, PreferenceHelper.getStateResetsNumber())
+        assertFalse(PreferenceHelper.getIsAgreeShowDialog(context))
+        PreferenceHelper.setRateStore(InMemoryRateStore())
+        assertTrue(PreferenceHelper.getIsAgreeShowDialog(context))
+        assertEquals(resetsNumber + 1, PreferenceHelper.getStateResetsNumber())
+        assertEquals(version + 1, PreferenceHelper.getConditionsInputsVersion())
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.PreferenceHelper.clearSharedPreferences] function. */
+    @Test
+    internal fun clearSharedPreferences() {
+        PreferenceHelper.edit(context).setInstallDate(INSTALL_DATE).setIsAgreeShowDialog(false)
+                                      .commit()
+        assertFalse(PreferenceHelper.isFirstLaunch(context))
+        val resetsNumber: Int = PreferenceHelper.getStateResetsNumber()
+        PreferenceHelper.clearSharedPreferences(context)
+        assertTrue(PreferenceHelper.isFirstLaunch(context))
+        assertTrue(PreferenceHelper.getIsAgreeShowDialog(context))
+        assertEquals(0L, store.installDate)
+        assertTrue(store.isAgreeShowDialog)
+        assertEquals(resetsNumber + 1, PreferenceHelper.getStateResetsNumber())
+    }
+
+    private companion object {
+        /** Sample install date. */
+        private const val INSTALL_DATE: Long = 5L
+
+        /** Sample custom event name. */
+        private const val EVENT_NAME: String = "event"
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import com.vorlonsoft.android.rate.RateDecision.Companion.ACTIVE_DAYS
+import com.vorlonsoft.android.rate.RateDecision.Companion.CUSTOM_EVENTS
+import com.vorlonsoft.android.rate.RateDecision.Companion.DIALOG_LAUNCH_TIMES
+import com.vorlonsoft.android.rate.RateDecision.Companion.ENGAGEMENT_SCORE
+import com.vorlonsoft.android.rate.RateDecision.Companion.INSTALL_DATE
+import com.vorlonsoft.android.rate.RateDecision.Companion.LAUNCH_TIMES
+import com.vorlonsoft.android.rate.RateDecision.Companion.NOT_AGREED
+import com.vorlonsoft.android.rate.RateDecision.Companion.PRECOMPUTED
+import com.vorlonsoft.android.rate.RateDecision.Companion.REMIND_DATE
+import com.vorlonsoft.android.rate.RateDecision.Companion.REMIND_LAUNCHES_NUMBER
+import com.vorlonsoft.android.rate.RateDecision.Companion.SELECTED_APP_LAUNCH
+import com.vorlonsoft.android.rate.RateDecision.Companion.SHOW
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.RateDecisionEngine] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.RateDecisionEngine]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class RateDecisionEngineTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private lateinit var customEventCounters: CustomEventCounters
+
+    private lateinit var engine: RateDecisionEngine
+
+    /** Sets the store with the app installed at [TIME] and launched once, creates the engine. */
+    @Before
+    internal fun setUp() {
+        PreferenceHelper.setRateStore(InMemoryRateStore())
+        PreferenceHelper.edit(context).setInstallDate(TIME).setLaunchTimes(1.toShort()).commit()
+        customEventCounters = CustomEventCounters(context)
+        customEventCounters.setFlushInterval(0L)
+        customEventCounters.setFlushThreshold(FLUSH_THRESHOLD)
+        engine = RateDecisionEngine(customEventCounters)
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.RateDecisionEngine.getDecision] function. */
+    @Test
+    internal fun getDecision() {
+        // the default conditions are 10 launches and 10 days after the install date
+        assertEquals(LAUNCH_TIMES, engine.getDecision(TIME))
+        engine.setAppLaunchTimes(1.toByte())
+        assertEquals(INSTALL_DATE, engine.getDecision(TIME))
+        assertEquals(INSTALL_DATE, engine.getDecision(TIME + INSTALL_DAYS - 1L))
+        assertEquals(SHOW, engine.getDecision(TIME + INSTALL_DAYS))
+        PreferenceHelper.setIsAgreeShowDialog(context, false)
+        assertEquals(NOT_AGREED, engine.getDecision(TIME + INSTALL_DAYS))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.RateDecisionEngine.getDecisionName] function. */
+    @Test
+    internal fun getDecisionName() {
+        assertEquals("SHOW", RateDecisionEngine.getDecisionName(SHOW))
+        assertEquals("NOT_AGREED", RateDecisionEngine.getDecisionName(NOT_AGREED))
+        assertEquals("PRECOMPUTED", RateDecisionEngine.getDecisionName(PRECOMPUTED))
+        assertEquals("ENGAGEMENT_SCORE", RateDecisionEngine.getDecisionName(ENGAGEMENT_SCORE))
+        assertEquals("100", RateDecisionEngine.getDecisionName(100))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.RateDecisionEngine.getConditionsOrder] function. */
+    @Test
+    internal fun getConditionsOrder() {
+        engine.setAppLaunchTimes(1.toByte())
+        val order: IntArray = engine.getConditionsOrder()
+        assertArrayEquals(intArrayOf(NOT_AGREED, LAUNCH_TIMES, SELECTED_APP_LAUNCH,
+                                     REMIND_LAUNCHES_NUMBER, CUSTOM_EVENTS, INSTALL_DATE,
+                                     REMIND_DATE, DIALOG_LAUNCH_TIMES, ACTIVE_DAYS,
+                                     ENGAGEMENT_SCORE), order)
+        for (i in 1 until REORDER_INTERVAL) {
+            // the same option value invalidates the memoized decision, so it is evaluated again
+            engine.setInstallDate(INSTALL_DAYS)
+            assertEquals(INSTALL_DATE, engine.getDecision(TIME))
+        }
+        assertArrayEquals(order, engine.getConditionsOrder())
+        engine.setInstallDate(INSTALL_DAYS)
+        assertEquals(INSTALL_DATE, engine.getDecision(TIME))
+        assertEquals(REORDER_INTERVAL, engine.getEvaluationsNumber(INSTALL_DATE))
+        assertEquals(REORDER_INTERVAL, engine.getRejectionsNumber(INSTALL_DATE))
+        assertEquals(0, engine.getRejectionsNumber(NOT_AGREED))
+        // the always rejecting condition goes first, never rejecting ones go last in the cost
+        // class order
+        assertArrayEquals(intArrayOf(INSTALL_DATE, REMIND_DATE, DIALOG_LAUNCH_TIMES, ACTIVE_DAYS,
+                                     ENGAGEMENT_SCORE, NOT_AGREED, LAUNCH_TIMES,
+                                     SELECTED_APP_LAUNCH, REMIND_LAUNCHES_NUMBER, CUSTOM_EVENTS),
+                          engine.getConditionsOrder())
+        engine.setInstallDate(INSTALL_DAYS)
+        assertEquals(INSTALL_DATE, engine.getDecision(TIME))
+        assertEquals(REORDER_INTERVAL + 1, engine.getEvaluationsNumber(INSTALL_DATE))
+        assertEquals(REORDER_INTERVAL, engine.getEvaluationsNumber(NOT_AGREED))
+        assertEquals(0, engine.getEvaluationsNumber(PRECOMPUTED))
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.RateDecisionEngine.getDecision] function, the
+     * memoized decision is used until a version it depends on is changed.
+     */
+    @Test
+    internal fun getMemoizedDecision() {
+        engine.setAppLaunchTimes(1.toByte())
+        assertEquals(INSTALL_DATE, engine.getDecision(TIME))
+        assertEquals(1, engine.getEvaluationsNumber(NOT_AGREED))
+        // the decision is valid until the install date condition flips
+        assertEquals(INSTALL_DATE, engine.getDecision(TIME + INSTALL_DAYS - 1L))
+        assertEquals(1, engine.getEvaluationsNumber(NOT_AGREED))
+        // the app version isn't a conditions input
+        PreferenceHelper.edit(context).setVersionName(VERSION_NAME).commit()
+        engine.getDecision(TIME)
+        assertEquals(1, engine.getEvaluationsNumber(NOT_AGREED))
+        // the conditions inputs version is changed
+        PreferenceHelper.edit(context).setLaunchTimes(2.toShort()).commit()
+        engine.getDecision(TIME)
+        assertEquals(2, engine.getEvaluationsNumber(NOT_AGREED))
+        // the options version is changed
+        engine.setRemindLaunchesNumber(0.toByte())
+        engine.getDecision(TIME)
+        assertEquals(3, engine.getEvaluationsNumber(NOT_AGREED))
+        // the decision isn't memoized while there are unflushed increments
+        customEventCounters.increment(customEventCounters.getSlot(EVENT_NAME))
+        engine.getDecision(TIME)
+        engine.getDecision(TIME)
+        assertEquals(5, engine.getEvaluationsNumber(NOT_AGREED))
+        // the counts version is changed by the flush
+        customEventCounters.flush()
+        engine.getDecision(TIME)
+        engine.getDecision(TIME)
+        assertEquals(6, engine.getEvaluationsNumber(NOT_AGREED))
+        assertEquals(SHOW, engine.getDecision(TIME + INSTALL_DAYS))
+        assertEquals(7, engine.getEvaluationsNumber(NOT_AGREED))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.RateDecisionEngine.getConditionsHash] function. */
+    @Test
+    internal fun getConditionsHash() {
+        val conditionsHash: Long = engine.getConditionsHash()
+        assertEquals(conditionsHash, engine.getConditionsHash())
+        engine.setAppLaunchTimes(5.toByte())
+        assertNotEquals(conditionsHash, engine.getConditionsHash())
+        // the hash depends on the options values only
+        engine.setAppLaunchTimes(10.toByte())
+        assertEquals(conditionsHash, engine.getConditionsHash())
+        engine.setMinimumEventCount(EVENT_NAME, 2.toShort(), 0)
+        assertNotEquals(conditionsHash, engine.getConditionsHash())
+    }
+
+    private companion object {
+        /** Sample install date. */
+        private const val TIME: Long = 1540000000000L
+
+        /** The default install date condition in milliseconds. */
+        private const val INSTALL_DAYS: Long = Time.DAY * 10L
+
+        /** The number of evaluations between the conditions reorders. */
+        private const val REORDER_INTERVAL: Int = 64
+
+        /** Sample version name. */
+        private const val VERSION_NAME: String = "1.0"
+
+        /** Sample custom event name. */
+        private const val EVENT_NAME: String = "event"
+
+        /** The number of unflushed increments, that triggers the flush. */
+        private const val FLUSH_THRESHOLD: Short = 100
+    }
+}
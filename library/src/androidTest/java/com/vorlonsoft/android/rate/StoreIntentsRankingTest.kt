@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.StoreIntentsRanking] class.
+ *
+ * @constructor Empty constructor of unit test for
+ * [com.vorlonsoft.android.rate.StoreIntentsRanking] class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class StoreIntentsRankingTest {
+    /** Test for [com.vorlonsoft.android.rate.StoreIntentsRanking.getOrder] function. */
+    @Test
+    internal fun getOrder() {
+        assertArrayEquals(intArrayOf(0, 1, 2), StoreIntentsRanking.empty(FINGERPRINT).getOrder(3))
+        val ranking: StoreIntentsRanking = StoreIntentsRanking.empty(FINGERPRINT)
+                                                              .setLaunched(3)
+                                                              .setNotFound(0)
+                                                              .setNotFound(5)
+        assertArrayEquals(intArrayOf(3, 1, 2, 4, 6, 0, 5), ranking.getOrder(7))
+        // the launched intent is out of the shorter chain
+        assertArrayEquals(intArrayOf(1, 0), ranking.getOrder(2))
+        assertArrayEquals(intArrayOf(1, 2, 4, 6, 0, 3, 5), ranking.setNotFound(3).getOrder(7))
+        assertArrayEquals(intArrayOf(0, 1, 2, 3, 4, 6, 5), ranking.setLaunched(0).getOrder(7))
+        assertSame(ranking, ranking.setLaunched(3))
+        assertSame(ranking, ranking.setNotFound(5))
+        assertSame(ranking, ranking.setLaunched(StoreIntentsRanking.MAX_INDICES_NUMBER))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.StoreIntentsRanking.toLong] function. */
+    @Test
+    internal fun toLong() {
+        assertEquals(0L, StoreIntentsRanking.empty(FINGERPRINT).toLong())
+        run {
+            val ranking: StoreIntentsRanking = StoreIntentsRanking.empty(FINGERPRINT)
+                                                                  .setLaunched(3)
+                                                                  .setNotFound(0)
+                                                                  .setNotFound(5)
+            assertEquals(0x0400000000000021L, ranking.toLong())
+        }
+        run {
+            val ranking: StoreIntentsRanking = StoreIntentsRanking.empty(FINGERPRINT)
+                                                                  .setLaunched(55)
+                                                                  .setNotFound(54)
+            assertEquals(0x3840000000000000L, ranking.toLong())
+        }
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.StoreIntentsRanking.fromLong] function. */
+    @Test
+    internal fun fromLong() {
+        val ranking: StoreIntentsRanking = StoreIntentsRanking.empty(FINGERPRINT)
+                                                              .setLaunched(3)
+                                                              .setNotFound(0)
+                                                              .setNotFound(5)
+        val unpackedRanking: StoreIntentsRanking =
+                                      StoreIntentsRanking.fromLong(FINGERPRINT, ranking.toLong())
+        assertEquals(FINGERPRINT, unpackedRanking.fingerprint)
+        assertEquals(ranking.toLong(), unpackedRanking.toLong())
+        assertArrayEquals(ranking.getOrder(7), unpackedRanking.getOrder(7))
+        assertArrayEquals(intArrayOf(0, 1, 2), StoreIntentsRanking.fromLong(FINGERPRINT, 0L)
+                                                                  .getOrder(3))
+    }
+
+    private companion object {
+        /** Sample chain fingerprint. */
+        private const val FINGERPRINT: Int = 9
+    }
+}
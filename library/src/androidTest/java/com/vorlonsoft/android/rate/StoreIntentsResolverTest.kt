@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import android.content.Intent
+import android.content.SharedPreferences
+import androidx.test.platform.app.InstrumentationRegistry
+import com.vorlonsoft.android.rate.StoreType.Companion.OTHER
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.StoreIntentsResolver] class.
+ *
+ * The resolution is valid while the store options version isn't changed, so all tests share the
+ * [storeOptions] object. No activity can handle the sample intents, so they are all returned.
+ *
+ * @constructor Empty constructor of unit test for
+ * [com.vorlonsoft.android.rate.StoreIntentsResolver] class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class StoreIntentsResolverTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private val resolver: StoreIntentsResolver = StoreIntentsResolver.getInstance(context)
+
+    private val preferences: SharedPreferences =
+            context.getSharedPreferences(PREF_FILE_NAME, Context.MODE_PRIVATE)
+
+    /** Removes the ranking stored by the previous test runs. */
+    @Before
+    internal fun setUp() {
+        preferences.edit().clear().commit()
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.StoreIntentsResolver.setLaunchResult] function. */
+    @Test
+    internal fun setLaunchResult() {
+        storeOptions.setStoreType(OTHER, getUris(LAUNCH_RESULT_URI_PREFIX), null)
+        assertArrayEquals(intArrayOf(0, 1, 2), resolver.getIntentsOrder(storeOptions))
+        val intents: Array<Intent?> = resolver.getIntents(storeOptions)
+        assertEquals(LAUNCH_RESULT_URI_PREFIX + 0, intents[0]?.dataString)
+        resolver.setLaunchResult(intents[0]!!, false)
+        assertArrayEquals(intArrayOf(1, 2, 0), resolver.getIntentsOrder(storeOptions))
+        resolver.setLaunchResult(intents[2]!!, true)
+        assertArrayEquals(intArrayOf(2, 1, 0), resolver.getIntentsOrder(storeOptions))
+        assertEquals(LAUNCH_RESULT_URI_PREFIX + 2, resolver.getIntents(storeOptions)[0]?.dataString)
+        // the ranking is stored for the next launches
+        assertArrayEquals(intArrayOf(2, 1, 0), getStoredRanking().getOrder(3))
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.StoreIntentsResolver.getIntentsOrder] function, the
+     * ranking is reset when the chain is changed.
+     */
+    @Test
+    internal fun getIntentsOrder() {
+        storeOptions.setStoreType(OTHER, getUris(FINGERPRINT_URI_PREFIX), null)
+        resolver.getIntentsOrder(storeOptions)
+        resolver.setLaunchResult(resolver.getIntents(storeOptions)[1]!!, true)
+        assertArrayEquals(intArrayOf(1, 0, 2), resolver.getIntentsOrder(storeOptions))
+        val fingerprint: Int = getStoredRanking().fingerprint
+        // another chain gets the empty ranking
+        storeOptions.setStoreType(OTHER, getUris(OTHER_FINGERPRINT_URI_PREFIX), null)
+        assertArrayEquals(intArrayOf(0, 1, 2), resolver.getIntentsOrder(storeOptions))
+        resolver.setLaunchResult(resolver.getIntents(storeOptions)[2]!!, true)
+        assertArrayEquals(intArrayOf(2, 0, 1), resolver.getIntentsOrder(storeOptions))
+        assertNotEquals(fingerprint, getStoredRanking().fingerprint)
+        // the ranking of the first chain is replaced
+        storeOptions.setStoreType(OTHER, getUris(FINGERPRINT_URI_PREFIX), null)
+        assertArrayEquals(intArrayOf(0, 1, 2), resolver.getIntentsOrder(storeOptions))
+    }
+
+    private fun getStoredRanking(): StoreIntentsRanking =
+            StoreIntentsRanking.fromLong(preferences.getInt(PREF_KEY_FINGERPRINT, 0),
+                                         preferences.getLong(PREF_KEY_RANKING, 0L))
+
+    private fun getUris(uriPrefix: String): Array<String> =
+            Array(INTENTS_NUMBER) { uriPrefix + it }
+
+    private companion object {
+        /** The store options shared by all tests. */
+        private val storeOptions = StoreOptions()
+
+        /** The ranking preferences file name. */
+        private const val PREF_FILE_NAME: String = "androidrate_store_intents_ranking"
+
+        /** The ranking fingerprint preferences key. */
+        private const val PREF_KEY_FINGERPRINT: String = "androidrate_fingerprint"
+
+        /** The ranking preferences key. */
+        private const val PREF_KEY_RANKING: String = "androidrate_ranking"
+
+        /** The number of the sample intents. */
+        private const val INTENTS_NUMBER: Int = 3
+
+        /** The prefix of the sample URIs, no activity can handle them. */
+        private const val LAUNCH_RESULT_URI_PREFIX: String = "androidrate-test://launch-result/"
+
+        /** The prefix of the sample URIs, no activity can handle them. */
+        private const val FINGERPRINT_URI_PREFIX: String = "androidrate-test://fingerprint/"
+
+        /** The prefix of the other sample URIs, no activity can handle them. */
+        private const val OTHER_FINGERPRINT_URI_PREFIX: String =
+                "androidrate-test://other-fingerprint/"
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING_ARRAY
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.StorePackagesCache] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.StorePackagesCache]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class StorePackagesCacheTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private val storePackagesCache: StorePackagesCache = StorePackagesCache.getInstance(context)
+
+    /** Test for [com.vorlonsoft.android.rate.StorePackagesCache.load] function. */
+    @Test
+    internal fun load() {
+        val packagesVersion: Int = storePackagesCache.getPackagesVersion()
+        val packages: Set<String> = storePackagesCache.load()
+        // the cache agrees with the one pass lookup of all known packages
+        assertEquals(Utils.isPackagesExists(context, IntentHelper.getKnownPackagesNames())
+                          .filterNotNull().toSet(), packages)
+        assertSame(packages, storePackagesCache.load())
+        assertEquals(packagesVersion, storePackagesCache.getPackagesVersion())
+        assertEquals(packages.hashCode(), storePackagesCache.getPackagesHashCode())
+        // the set is stored for the next launches
+        assertNotNull(context.getSharedPreferences(PREF_FILE_NAME, Context.MODE_PRIVATE)
+                             .getString(PREF_KEY_PACKAGES, null))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.StorePackagesCache.getInstalledPackages] function. */
+    @Test
+    internal fun getInstalledPackages() {
+        storePackagesCache.load()
+        // installed packages are returned in the order of the given packages
+        for (packagesNames in arrayOf(IntentHelper.getKnownPackagesNames(),
+                                      IntentHelper.getKnownPackagesNames().reversedArray())) {
+            assertArrayEquals(Utils.isPackagesExists(context, arrayOf(*packagesNames)),
+                              storePackagesCache.getInstalledPackages(packagesNames))
+        }
+        assertSame(EMPTY_STRING_ARRAY,
+                   storePackagesCache.getInstalledPackages(arrayOf(context.packageName)))
+    }
+
+    private companion object {
+        /** The cache preferences file name. */
+        private const val PREF_FILE_NAME: String = "androidrate_store_packages_cache"
+
+        /** The installed packages preferences key. */
+        private const val PREF_KEY_PACKAGES: String = "androidrate_packages"
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.StringShortTable] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.StringShortTable]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class StringShortTableTest {
+    /** Test for [com.vorlonsoft.android.rate.StringShortTable.put] function. */
+    @Test
+    internal fun put() {
+        val table = StringShortTable()
+        assertEquals(0, table.size())
+        assertEquals(INITIAL_CAPACITY, table.capacity())
+        for (i in 0 until KEYS_NUMBER) {
+            table.put(KEY_PREFIX + i, i.toShort())
+        }
+        // the table is resized to keep the load factor not greater than 1/2
+        assertEquals(KEYS_NUMBER, table.size())
+        assertEquals(2048, table.capacity())
+        // the value is overwritten, the size isn't changed
+        table.put(KEY_PREFIX + 7, (-7).toShort())
+        assertEquals(KEYS_NUMBER, table.size())
+        assertEquals((-7).toShort(), table.get(KEY_PREFIX + 7, 0))
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.StringShortTable.get] function. */
+    @Test
+    internal fun get() {
+        val table = StringShortTable()
+        assertEquals((-1).toShort(), table.get(KEY_PREFIX, -1))
+        for (i in 0 until KEYS_NUMBER) {
+            table.put(KEY_PREFIX + i, i.toShort())
+        }
+        for (i in 0 until KEYS_NUMBER) {
+            assertTrue(table.containsKey(KEY_PREFIX + i))
+            assertEquals(i.toShort(), table.get(KEY_PREFIX + i, -1))
+        }
+        assertFalse(table.containsKey(KEY_PREFIX + KEYS_NUMBER))
+        assertEquals((-1).toShort(), table.get(KEY_PREFIX + KEYS_NUMBER, -1))
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.StringShortTable.keyAt] and
+     * [com.vorlonsoft.android.rate.StringShortTable.valueAt] functions.
+     */
+    @Test
+    internal fun keyAt() {
+        val table = StringShortTable()
+        for (i in 0 until KEYS_NUMBER) {
+            table.put(KEY_PREFIX + i, i.toShort())
+        }
+        var keysNumber = 0
+        for (i in 0 until table.capacity()) {
+            val key: String = table.keyAt(i) ?: continue
+            keysNumber++
+            assertEquals(table.get(key, -1), table.valueAt(i))
+        }
+        assertEquals(KEYS_NUMBER, keysNumber)
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.StringShortTable] class guarded by the external lock,
+     * as [com.vorlonsoft.android.rate.CustomEventCounters] does.
+     */
+    @Test
+    internal fun concurrentPut() {
+        val table = StringShortTable()
+        val threads: Array<Thread> = Array(THREADS_NUMBER) { thread ->
+            Thread(Runnable {
+                for (i in thread until KEYS_NUMBER step THREADS_NUMBER) {
+                    synchronized(table) {
+                        table.put(KEY_PREFIX + i, i.toShort())
+                    }
+                }
+            })
+        }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+        assertEquals(KEYS_NUMBER, table.size())
+        for (i in 0 until KEYS_NUMBER) {
+            assertEquals(i.toShort(), table.get(KEY_PREFIX + i, -1))
+        }
+    }
+
+    private companion object {
+        /** The initial capacity of the table. */
+        private const val INITIAL_CAPACITY: Int = 8
+
+        /** The number of the sample keys. */
+        private const val KEYS_NUMBER: Int = 1000
+
+        /** The prefix of the sample keys. */
+        private const val KEY_PREFIX: String = "event"
+
+        /** The number of the concurrently updating threads. */
+        private const val THREADS_NUMBER: Int = 4
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.StripedCounter] class.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.StripedCounter]
+ * class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class StripedCounterTest {
+    /** Test for [com.vorlonsoft.android.rate.StripedCounter.increment] function. */
+    @Test
+    internal fun increment() {
+        val counter = StripedCounter()
+        // the calling thread always uses the same cell
+        assertEquals(1L, counter.increment())
+        assertEquals(2L, counter.increment())
+        assertEquals(3L, counter.increment())
+        assertEquals(3L, counter.sum())
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.StripedCounter.add] function. */
+    @Test
+    internal fun add() {
+        val counter = StripedCounter()
+        counter.add(5L)
+        counter.add(-2L)
+        assertEquals(3L, counter.sum())
+        counter.add(-3L)
+        assertEquals(0L, counter.sum())
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.StripedCounter.sum] function under contention. */
+    @Test
+    internal fun sum() {
+        val counter = StripedCounter()
+        val threads: Array<Thread> = Array(THREADS_NUMBER) {
+            Thread(Runnable {
+                for (i in 0 until INCREMENTS_NUMBER) {
+                    counter.increment()
+                    if ((i % 10) == 0) {
+                        counter.add(-1L)
+                    }
+                }
+            })
+        }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+        assertEquals(THREADS_NUMBER * (INCREMENTS_NUMBER - INCREMENTS_NUMBER / 10L), counter.sum())
+    }
+
+    private companion object {
+        /** The number of the concurrently updating threads. */
+        private const val THREADS_NUMBER: Int = 8
+
+        /** The number of increments made by each thread. */
+        private const val INCREMENTS_NUMBER: Int = 100000
+    }
+}
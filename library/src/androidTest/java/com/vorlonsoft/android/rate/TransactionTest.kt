@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.PreferenceHelper.Transaction] class.
+ *
+ * @constructor Empty constructor of unit test for
+ * [com.vorlonsoft.android.rate.PreferenceHelper.Transaction] class.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class TransactionTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    private val store = InMemoryRateStore()
+
+    /** Sets the empty store, so the state snapshot is reloaded from it. */
+    @Before
+    internal fun setUp() {
+        PreferenceHelper.setRateStore(store)
+    }
+
+    /** Test for [com.vorlonsoft.android.rate.PreferenceHelper.Transaction.commit] function. */
+    @Test
+    internal fun commit() {
+        val state: RateState = PreferenceHelper.getState(context)
+        val version: Int = PreferenceHelper.getConditionsInputsVersion()
+        PreferenceHelper.edit(context).setInstallDate(INSTALL_DATE).setLaunchTimes(3.toShort())
+                                      .setCustomEventCount(EVENT_NAME, 2.toShort()).commit()
+        // all changes are published as one snapshot and one version change
+        val newState: RateState = PreferenceHelper.getState(context)
+        assertNotSame(state, newState)
+        assertEquals(INSTALL_DATE, newState.installDate)
+        assertEquals(3.toShort(), newState.launchTimes)
+        assertEquals(2.toShort(), newState.getCustomEventCount(EVENT_NAME))
+        assertEquals(version + 1, PreferenceHelper.getConditionsInputsVersion())
+        assertEquals(INSTALL_DATE, store.installDate)
+        assertEquals(3, store.launchTimes)
+        assertEquals(2, store.customEventCounts[EVENT_NAME])
+        // values equal to the current ones aren't written
+        PreferenceHelper.edit(context).setInstallDate(INSTALL_DATE).setLaunchTimes(3.toShort())
+                                      .commit()
+        assertSame(newState, PreferenceHelper.getState(context))
+        assertEquals(version + 1, PreferenceHelper.getConditionsInputsVersion())
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.PreferenceHelper.getConditionsInputsVersion]
+     * function, the app version isn't a Rate Dialog conditions input.
+     */
+    @Test
+    internal fun conditionsInputsVersion() {
+        val version: Int = PreferenceHelper.getConditionsInputsVersion()
+        PreferenceHelper.edit(context).setVersionCode(VERSION_CODE).setVersionName(VERSION_NAME)
+                                      .commit()
+        assertEquals(VERSION_CODE, PreferenceHelper.getVersionCode(context))
+        assertEquals(VERSION_NAME, PreferenceHelper.getVersionName(context))
+        assertEquals(version, PreferenceHelper.getConditionsInputsVersion())
+        PreferenceHelper.edit(context).setRemindInterval(REMIND_INTERVAL).commit()
+        assertEquals(version + 1, PreferenceHelper.getConditionsInputsVersion())
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.PreferenceHelper.Transaction.incrementLaunchTimes]
+     * function.
+     */
+    @Test
+    internal fun incrementLaunchTimes() {
+        val threads: Array<Thread> = Array(THREADS_NUMBER) {
+            Thread(Runnable {
+                for (i in 0 until INCREMENTS_NUMBER) {
+                    PreferenceHelper.edit(context).incrementLaunchTimes().commit()
+                }
+            })
+        }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+        // increments are read and written under the state lock, so none of them are lost
+        assertEquals((THREADS_NUMBER * INCREMENTS_NUMBER).toShort(),
+                     PreferenceHelper.getLaunchTimes(context))
+        assertEquals(THREADS_NUMBER * INCREMENTS_NUMBER, store.launchTimes)
+        // the last of the launch times changes wins
+        PreferenceHelper.edit(context).incrementLaunchTimes().setLaunchTimes(7.toShort()).commit()
+        assertEquals(7.toShort(), PreferenceHelper.getLaunchTimes(context))
+        PreferenceHelper.edit(context).setLaunchTimes(1.toShort()).incrementLaunchTimes().commit()
+        assertEquals(8.toShort(), PreferenceHelper.getLaunchTimes(context))
+    }
+
+    /**
+     * Test for [com.vorlonsoft.android.rate.PreferenceHelper.Transaction.setActiveDay] function.
+     */
+    @Test
+    internal fun setActiveDay() {
+        PreferenceHelper.edit(context).setActiveDay(DAY).commit()
+        val state: RateState = PreferenceHelper.getState(context)
+        // the day is already marked, nothing is written
+        PreferenceHelper.edit(context).setActiveDay(DAY).commit()
+        assertSame(state, PreferenceHelper.getState(context))
+        PreferenceHelper.edit(context).setActiveDay(DAY + 2).commit()
+        val activityBitmap: ByteArray? =
+                PreferenceHelper.getState(context).getExtra(ActivityBitmap.EXTRA_KEY)
+        assertEquals(2, ActivityBitmap.fromByteArray(activityBitmap).getCount(DAY + 2, 3))
+        assertArrayEquals(activityBitmap, store.extras[ActivityBitmap.EXTRA_KEY])
+    }
+
+    private companion object {
+        /** Sample install date. */
+        private const val INSTALL_DATE: Long = 5L
+
+        /** Sample remind interval. */
+        private const val REMIND_INTERVAL: Long = 7L
+
+        /** Sample version code. */
+        private const val VERSION_CODE: Long = 2L
+
+        /** Sample version name. */
+        private const val VERSION_NAME: String = "1.0"
+
+        /** Sample custom event name. */
+        private const val EVENT_NAME: String = "event"
+
+        /** Sample number of the day since the epoch. */
+        private const val DAY: Int = 17800
+
+        /** The number of the concurrently committing threads. */
+        private const val THREADS_NUMBER: Int = 4
+
+        /** The number of increments committed by each thread. */
+        private const val INCREMENTS_NUMBER: Int = 250
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import android.content.Context
+import androidx.test.platform.app.InstrumentationRegistry
+import com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING
+import com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING_ARRAY
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+/**
+ * Unit test for [com.vorlonsoft.android.rate.Utils] object.
+ *
+ * @constructor Empty constructor of unit test for [com.vorlonsoft.android.rate.Utils] object.
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@Suppress("unused")
+internal class UtilsTest {
+    private val context: Context = InstrumentationRegistry.getInstrumentation().targetContext
+
+    /** Test for [com.vorlonsoft.android.rate.Utils.isPackagesExists] function. */
+    @Test
+    internal fun isPackagesExists() {
+        val packageName: String = context.packageName
+        assertSame(EMPTY_STRING_ARRAY, Utils.isPackagesExists(context, arrayOf()))
+        assertSame(EMPTY_STRING_ARRAY,
+                   Utils.isPackagesExists(context, arrayOf(MISSING_PACKAGE, null, EMPTY_STRING)))
+        // a few packages are looked up one by one
+        assertArrayEquals(arrayOf(packageName),
+                          Utils.isPackagesExists(context, arrayOf(MISSING_PACKAGE, packageName)))
+        // more packages are looked up by one pass over the installed applications
+        val targetPackages: Array<String?> = arrayOfNulls(LARGE_PACKAGES_NUMBER)
+        for (i in 0 until LARGE_PACKAGES_NUMBER) {
+            targetPackages[i] = MISSING_PACKAGE + i
+        }
+        targetPackages[1] = packageName
+        targetPackages[3] = null
+        targetPackages[5] = EMPTY_STRING
+        targetPackages[6] = packageName
+        assertArrayEquals(arrayOf(packageName, packageName),
+                          Utils.isPackagesExists(context, targetPackages))
+    }
+
+    private companion object {
+        /** Sample name of the not installed package. */
+        private const val MISSING_PACKAGE: String = "com.vorlonsoft.android.rate.missing"
+
+        /** The number of target packages, that are looked up by one pass. */
+        private const val LARGE_PACKAGES_NUMBER: Int = 8
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>ActivityBitmap Class - the app active days class of the AndroidRate library.</p>
+ * <p>The bitmap is a fixed-size ring of {@link #DAYS} bits, one bit per day the app is launched
+ * at, packed into {@link #WORDS} longs, plus the number of the last day. Day numbers are counted
+ * from the epoch, see {@link EventWindow#getDay(long)}. Marking a day and counting active days of
+ * a period are a few masked word operations and {@link Long#bitCount(long)} calls. Objects of this
+ * class are immutable, {@link #set(int)} returns a new bitmap. The bitmap is kept in the
+ * {@link RateStore} extra {@link #EXTRA_KEY}.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class ActivityBitmap {
+    /** <p>The {@link RateStore} extra key.</p> */
+    static final String EXTRA_KEY = "active_days";
+    /** <p>The number of words.</p> */
+    private static final int WORDS = 6;
+    /** <p>The number of days in the ring, not less than 365.</p> */
+    private static final int DAYS = WORDS * Long.SIZE;
+    /** <p>The binary format version of {@link #toByteArray()}.</p> */
+    private static final byte FORMAT_VERSION = 1;
+    /** <p>The binary format length of {@link #toByteArray()}.</p> */
+    private static final int FORMAT_LENGTH = 1 + 4 + (8 * WORDS);
+    /** <p>The empty bitmap.</p> */
+    static final ActivityBitmap EMPTY = new ActivityBitmap(new long[WORDS], 0);
+    /** <p>The day bits, the bit of the day N is the bit {@code N % 384} of the ring.</p> */
+    private final long[] words;
+    /** <p>The number of the last day, that was set.</p> */
+    private final int lastDay;
+
+    private ActivityBitmap(@NonNull final long[] words, final int lastDay) {
+        this.words = words;
+        this.lastDay = lastDay;
+    }
+
+    /**
+     * <p>Returns the bitmap with the day {@code day} marked as active.</p>
+     *
+     * @param day the number of the day since the epoch
+     * @return the new bitmap or this bitmap if the day is already marked or is too old
+     */
+    @NonNull
+    ActivityBitmap set(final int day) {
+        if ((lastDay - day >= DAYS) || ((day <= lastDay) && isSet(day))) {
+            return this;
+        }
+        final long[] newWords = words.clone();
+        if (day > lastDay) {
+            if (day - lastDay >= DAYS) {
+                for (int i = 0; i < WORDS; i++) {
+                    newWords[i] = 0L;
+                }
+            } else {
+                clearRange(newWords, lastDay + 1, day);
+            }
+        }
+        final int position = getPosition(day);
+        newWords[position >>> 6] |= 1L << position;
+        return new ActivityBitmap(newWords, Math.max(day, lastDay));
+    }
+
+    /**
+     * <p>Returns the number of active days within the {@code days}-day period ending with the day
+     * {@code day}.</p>
+     *
+     * @param day the number of the day since the epoch
+     * @param days the period length in days from 1 to {@link Constants.Date#YEAR_IN_DAYS}
+     * @return the number of active days within the period
+     */
+    int getCount(final int day, final int days) {
+        final int firstDay = Math.max(day - days + 1, lastDay - DAYS + 1);
+        final int lastCountedDay = Math.min(day, lastDay);
+        if (firstDay > lastCountedDay) {
+            return 0;
+        }
+        final int first = getPosition(firstDay);
+        final int last = getPosition(lastCountedDay);
+        if (first <= last) {
+            return countRange(first, last);
+        }
+        return countRange(first, DAYS - 1) + countRange(0, last);
+    }
+
+    private boolean isSet(final int day) {
+        final int position = getPosition(day);
+        return (words[position >>> 6] & (1L << position)) != 0L;
+    }
+
+    /**
+     * <p>Returns the number of set bits between the ring positions, both inclusive.</p>
+     *
+     * @param first the first position
+     * @param last the last position, not less than {@code first}
+     * @return the number of set bits
+     */
+    private int countRange(final int first, final int last) {
+        final int firstWord = first >>> 6;
+        final int lastWord = last >>> 6;
+        final long firstMask = -1L << first;
+        final long lastMask = -1L >>> (Long.SIZE - 1 - (last & 63));
+        if (firstWord == lastWord) {
+            return Long.bitCount(words[firstWord] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(words[firstWord] & firstMask);
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count + Long.bitCount(words[lastWord] & lastMask);
+    }
+
+    /**
+     * <p>Clears the bits of the days from {@code firstDay} to {@code lastDay}, both inclusive, the
+     * period is shorter than {@link #DAYS}.</p>
+     */
+    private static void clearRange(@NonNull final long[] words, final int firstDay,
+                                   final int lastDay) {
+        final int first = getPosition(firstDay);
+        final int last = getPosition(lastDay);
+        if (first <= last) {
+            clearPositions(words, first, last);
+        } else {
+            clearPositions(words, first, DAYS - 1);
+            clearPositions(words, 0, last);
+        }
+    }
+
+    private static void clearPositions(@NonNull final long[] words, final int first,
+                                       final int last) {
+        final int firstWord = first >>> 6;
+        final int lastWord = last >>> 6;
+        final long firstMask = -1L << first;
+        final long lastMask = -1L >>> (Long.SIZE - 1 - (last & 63));
+        if (firstWord == lastWord) {
+            words[firstWord] &= ~(firstMask & lastMask);
+            return;
+        }
+        words[firstWord] &= ~firstMask;
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            words[i] = 0L;
+        }
+        words[lastWord] &= ~lastMask;
+    }
+
+    private static int getPosition(final int day) {
+        return ((day % DAYS) + DAYS) % DAYS;
+    }
+
+    /**
+     * <p>Serializes the bitmap: the format version byte, the last day int and 6 words longs,
+     * big-endian.</p>
+     *
+     * @return the serialized bitmap
+     */
+    @NonNull
+    byte[] toByteArray() {
+        final byte[] bytes = new byte[FORMAT_LENGTH];
+        bytes[0] = FORMAT_VERSION;
+        bytes[1] = (byte) (lastDay >>> 24);
+        bytes[2] = (byte) (lastDay >>> 16);
+        bytes[3] = (byte) (lastDay >>> 8);
+        bytes[4] = (byte) lastDay;
+        for (int i = 0, offset = 5; i < WORDS; i++) {
+            for (int shift = 56; shift >= 0; shift -= 8, offset++) {
+                bytes[offset] = (byte) (words[i] >>> shift);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * <p>Deserializes the bitmap serialized by {@link #toByteArray()}.</p>
+     *
+     * @param bytes the serialized bitmap
+     * @return the bitmap or {@link #EMPTY} if {@code bytes} are null or corrupted
+     */
+    @NonNull
+    static ActivityBitmap fromByteArray(@Nullable final byte[] bytes) {
+        if ((bytes == null) || (bytes.length != FORMAT_LENGTH) || (bytes[0] != FORMAT_VERSION)) {
+            return EMPTY;
+        }
+        final int lastDay = ((bytes[1] & 0xFF) << 24) | ((bytes[2] & 0xFF) << 16) |
+                            ((bytes[3] & 0xFF) << 8) | (bytes[4] & 0xFF);
+        final long[] words = new long[WORDS];
+        for (int i = 0, offset = 5; i < WORDS; i++) {
+            for (int shift = 56; shift >= 0; shift -= 8, offset++) {
+                words[i] |= (bytes[offset] & 0xFFL) << shift;
+            }
+        }
+        return new ActivityBitmap(words, lastDay);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Bundle;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import androidx.annotation.NonNull;
+
+import static android.os.Build.VERSION.SDK_INT;
+import static android.os.Build.VERSION_CODES.ICE_CREAM_SANDWICH;
+
+/**
+ * <p>AppLifecycleCallbacks Class - the app lifecycle callbacks class of the AndroidRate
+ * library.</p>
+ * <p>Calls the library background listeners in the main thread once per foreground to background
+ * transition: when the last started activity is stopped, not for a configuration change, or when
+ * the app UI is hidden ({@link ComponentCallbacks2#onTrimMemory(int)}), whichever is first. The
+ * callbacks are registered once per process on API 14+, there are no background notifications on
+ * older devices.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+@TargetApi(ICE_CREAM_SANDWICH)
+final class AppLifecycleCallbacks implements ComponentCallbacks2,
+                                             Application.ActivityLifecycleCallbacks {
+
+    private static final AppLifecycleCallbacks INSTANCE = new AppLifecycleCallbacks();
+
+    private final CopyOnWriteArrayList<Runnable> backgroundListeners = new CopyOnWriteArrayList<>();
+
+    private boolean isRegistered = false;
+
+    /** <p>The number of started activities, is accessed only in the main thread.</p> */
+    private int startedActivitiesNumber = 0;
+
+    /**
+     * <p>True if the listeners are called since the last activity start, is accessed only in the
+     * main thread.</p>
+     */
+    private boolean isInBackground = false;
+
+    private AppLifecycleCallbacks() {
+    }
+
+    /**
+     * <p>Adds the listener, that is called in the main thread when the app goes to the
+     * background.</p>
+     *
+     * @param context context
+     * @param backgroundListener the background listener
+     */
+    static void addBackgroundListener(@NonNull final Context context,
+                                      @NonNull final Runnable backgroundListener) {
+        if (SDK_INT < ICE_CREAM_SANDWICH) {
+            return;
+        }
+        INSTANCE.backgroundListeners.addIfAbsent(backgroundListener);
+        synchronized (INSTANCE) {
+            if (!INSTANCE.isRegistered) {
+                final Context applicationContext = context.getApplicationContext();
+                applicationContext.registerComponentCallbacks(INSTANCE);
+                if (applicationContext instanceof Application) {
+                    ((Application) applicationContext).registerActivityLifecycleCallbacks(INSTANCE);
+                }
+                INSTANCE.isRegistered = true;
+            }
+        }
+    }
+
+    private void onBackground() {
+        if (isInBackground) {
+            return;
+        }
+        isInBackground = true;
+        for (Runnable backgroundListener : backgroundListeners) {
+            backgroundListener.run();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(final int level) {
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            onBackground();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+    }
+
+    @Override
+    public void onConfigurationChanged(final Configuration newConfig) {
+    }
+
+    @Override
+    public void onActivityCreated(final Activity activity, final Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityStarted(final Activity activity) {
+        startedActivitiesNumber++;
+        isInBackground = false;
+    }
+
+    @Override
+    public void onActivityResumed(final Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(final Activity activity) {
+    }
+
+    @Override
+    public void onActivityStopped(final Activity activity) {
+        // activities started before the registration aren't counted
+        if (startedActivitiesNumber > 0) {
+            startedActivitiesNumber--;
+        }
+        if ((startedActivitiesNumber == 0) && !activity.isChangingConfigurations()) {
+            onBackground();
+        }
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(final Activity activity, final Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(final Activity activity) {
+    }
+}
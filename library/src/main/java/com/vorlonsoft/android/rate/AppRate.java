@@ -13,14 +13,14 @@ import android.content.Context;
 import android.content.Intent;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
-import android.util.ArrayMap;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.View;
 
 import java.lang.ref.WeakReference;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -29,24 +29,14 @@ import androidx.annotation.StyleRes;
 import static android.content.DialogInterface.BUTTON_POSITIVE;
 import static android.os.Build.VERSION.SDK_INT;
 import static android.os.Build.VERSION_CODES.JELLY_BEAN_MR1;
-import static android.os.Build.VERSION_CODES.KITKAT;
+import static com.vorlonsoft.android.rate.Constants.Date.YEAR_IN_DAYS;
 import static com.vorlonsoft.android.rate.Constants.Utils.LOG_MESSAGE_PART_1;
 import static com.vorlonsoft.android.rate.Constants.Utils.TAG;
-import static com.vorlonsoft.android.rate.PreferenceHelper.get365DayPeriodDialogLaunchTimes;
-import static com.vorlonsoft.android.rate.PreferenceHelper.getCustomEventCount;
-import static com.vorlonsoft.android.rate.PreferenceHelper.getInstallDate;
+import static com.vorlonsoft.android.rate.PreferenceHelper.edit;
 import static com.vorlonsoft.android.rate.PreferenceHelper.getIsAgreeShowDialog;
-import static com.vorlonsoft.android.rate.PreferenceHelper.getLaunchTimes;
-import static com.vorlonsoft.android.rate.PreferenceHelper.getRemindInterval;
-import static com.vorlonsoft.android.rate.PreferenceHelper.getRemindLaunchesNumber;
-import static com.vorlonsoft.android.rate.PreferenceHelper.getVersionCode;
-import static com.vorlonsoft.android.rate.PreferenceHelper.getVersionName;
+import static com.vorlonsoft.android.rate.PreferenceHelper.getState;
 import static com.vorlonsoft.android.rate.PreferenceHelper.isFirstLaunch;
-import static com.vorlonsoft.android.rate.PreferenceHelper.setCustomEventCount;
-import static com.vorlonsoft.android.rate.PreferenceHelper.setFirstLaunchSharedPreferences;
 import static com.vorlonsoft.android.rate.PreferenceHelper.setIsAgreeShowDialog;
-import static com.vorlonsoft.android.rate.PreferenceHelper.setVersionCode;
-import static com.vorlonsoft.android.rate.PreferenceHelper.setVersionName;
 import static com.vorlonsoft.android.rate.StoreType.AMAZON;
 import static com.vorlonsoft.android.rate.StoreType.APPLE;
 import static com.vorlonsoft.android.rate.StoreType.BLACKBERRY;
@@ -59,7 +49,7 @@ import static com.vorlonsoft.android.rate.StoreType.YANDEX;
  * implementation.</p>
  *
  * @since    0.0.4
- * @version  1.2.1
+ * @version  1.2.5
  * @author   Alexander Savin
  * @author   Shintaro Katafuchi
  */
@@ -67,35 +57,42 @@ public final class AppRate {
     /** <p>The {@link AppRate} singleton object.</p> */
     @SuppressLint("StaticFieldLeak")
     private static volatile AppRate singleton = null;
-    private final Map<String, Short> customEventsCounts;
     /** <p>The context of the single, global Application object of the current process.</p> */
     private final Context context;
     private final DialogOptions dialogOptions = new DialogOptions();
     private final StoreOptions storeOptions = new StoreOptions();
-    private boolean isDebug = false;
-    private boolean isVersionCodeCheck = false;
-    private boolean isVersionNameCheck = false;
-    private long installDate = Time.DAY * 10L;
-    private byte appLaunchTimes = (byte) 10;
-    private long remindInterval = Time.DAY;
-    private byte remindLaunchesNumber = (byte) 0;
-    private byte selectedAppLaunches = (byte) 1;
-    /** Short.MAX_VALUE means unlimited occurrences of the display of the dialog within a 365-day period */
-    private short dialogLaunchTimes = Short.MAX_VALUE;
+    private final CustomEventCounters customEventCounters;
+    private final RateDecisionEngine rateDecisionEngine;
+    private volatile boolean isDebug = false;
+    private volatile boolean isVersionCodeCheck = false;
+    private volatile boolean isVersionNameCheck = false;
     /** <p>Weak reference to the dialog object.</p> */
     private WeakReference<Dialog> dialog = null;
     private DialogManager.Factory dialogManagerFactory = new DefaultDialogManager.Factory();
-
-    {
-        if (SDK_INT >= KITKAT) {
-            customEventsCounts = new ArrayMap<>();
-        } else {
-            customEventsCounts = new HashMap<>();
-        }
-    }
+    /**
+     * <p>The conditions inputs version after the last precomputation, -1 if it is unknown. Is
+     * accessed only in the library background thread.</p>
+     */
+    private int precomputedInputsVersion = -1;
+    /** <p>The conditions hash of the last precomputation, is accessed only in the background.</p> */
+    private long precomputedConditionsHash = 0L;
 
     private AppRate(final Context context) {
         this.context = context.getApplicationContext();
+        customEventCounters = new CustomEventCounters(this.context);
+        rateDecisionEngine = new RateDecisionEngine(customEventCounters);
+        // registered after the counters, so the increments are flushed before the precomputation
+        AppLifecycleCallbacks.addBackgroundListener(this.context, new Runnable() {
+            @Override
+            public void run() {
+                BackgroundExecutor.getInstance().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        precomputeEligibility();
+                    }
+                });
+            }
+        });
     }
 
     public static AppRate with(final Context context) {
@@ -109,6 +106,25 @@ public final class AppRate {
         return singleton;
     }
 
+    /**
+     * <p>Returns the {@link AppRate} singleton object, that keeps the library state in
+     * {@code rateStore}.</p>
+     * <p>Call this method once, before any other library call, e.g. in the
+     * {@code Application.onCreate()}. Setting another {@link RateStore} object reloads the library
+     * state from it.</p>
+     *
+     * @param context context
+     * @param rateStore the persistent state storage, e.g. {@link InMemoryRateStore} for benchmarks
+     *                  and simulations, default is {@link SharedPreferencesRateStore}
+     * @return the {@link AppRate} singleton object
+     * @see RateStore
+     */
+    @SuppressWarnings("unused")
+    public static AppRate with(final Context context, @NonNull final RateStore rateStore) {
+        PreferenceHelper.setRateStore(rateStore);
+        return with(context);
+    }
+
     /**
      * <p>Shows the Rate Dialog when conditions are met.</p>
      * <p>Call this method at the end of your onCreate() method to determine whether
@@ -144,13 +160,80 @@ public final class AppRate {
         return showRateDialogIfMeetsConditions(activity);
     }
 
-    private boolean isOverDate(long targetDate, long threshold) {
-        return new Date().getTime() - targetDate >= threshold;
+    /**
+     * <p>Asynchronous QuickStart with the AndroidRate library's defaults.</p>
+     * <p>Same as {@link #quickStart(Activity)}, but the app launch bookkeeping and the Rate Dialog
+     * conditions check run in the library background thread, only the Rate Dialog is shown in the
+     * main thread.</p>
+     *
+     * @param activity your activity, use "this" in most cases
+     * @see #quickStartAsync(Activity, Executor, OnQuickStartListener)
+     */
+    @SuppressWarnings("unused")
+    public static void quickStartAsync(@NonNull final Activity activity) {
+        quickStartAsync(activity, BackgroundExecutor.getInstance(), null);
     }
 
-    private boolean isBelow365DayPeriodMaxNumberDialogLaunchTimes() {
-        return ((dialogLaunchTimes == Short.MAX_VALUE) ||
-                (get365DayPeriodDialogLaunchTimes(context) < dialogLaunchTimes));
+    /**
+     * <p>Asynchronous QuickStart with the AndroidRate library's defaults.</p>
+     * <p>Same as {@link #quickStart(Activity)}, but the app launch bookkeeping and the Rate Dialog
+     * conditions check run in the library background thread, only the Rate Dialog is shown and
+     * the listener is called in the main thread.</p>
+     *
+     * @param activity your activity, use "this" in most cases
+     * @param listener the completion listener, can be null
+     * @see #quickStartAsync(Activity, Executor, OnQuickStartListener)
+     */
+    @SuppressWarnings("unused")
+    public static void quickStartAsync(@NonNull final Activity activity,
+                                       @Nullable final OnQuickStartListener listener) {
+        quickStartAsync(activity, BackgroundExecutor.getInstance(), listener);
+    }
+
+    /**
+     * <p>Asynchronous QuickStart with the AndroidRate library's defaults.</p>
+     * <p>Same as {@link #quickStart(Activity)}, but the app launch bookkeeping (the app version
+     * lookup and the persistent state access) and the Rate Dialog conditions check run on the
+     * {@code executor}, only the Rate Dialog is shown and the listener is called in the main
+     * thread. The Rate Dialog isn't shown if the activity is finishing by that time.</p>
+     * <p>The {@link AppRate} singleton object is created by the calling thread, the creation only
+     * registers the app lifecycle callbacks and does no persistent state or
+     * {@link android.content.pm.PackageManager} access.</p>
+     *
+     * @param activity your activity, use "this" in most cases
+     * @param executor the executor to run the bookkeeping and the conditions check on
+     * @param listener the completion listener, can be null
+     * @see #quickStart(Activity)
+     * @see OnQuickStartListener
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static void quickStartAsync(@NonNull final Activity activity,
+                                       @NonNull final Executor executor,
+                                       @Nullable final OnQuickStartListener listener) {
+        final AppRate appRate = with(activity);
+        final boolean isDebug = appRate.isDebug();
+        final WeakReference<Activity> activityReference = new WeakReference<>(activity);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                appRate.monitor();
+                final boolean isMeetsConditions = isDebug || appRate.shouldShowRateDialog();
+                new Handler(Looper.getMainLooper()).post(new Runnable() {
+                    @Override
+                    public void run() {
+                        final Activity currentActivity = activityReference.get();
+                        final boolean isShown = isMeetsConditions && (currentActivity != null) &&
+                                                !currentActivity.isFinishing();
+                        if (isShown) {
+                            appRate.showRateDialog(currentActivity);
+                        }
+                        if (listener != null) {
+                            listener.onQuickStart(isShown);
+                        }
+                    }
+                });
+            }
+        });
     }
 
     /**
@@ -185,7 +268,114 @@ public final class AppRate {
      */
     @SuppressWarnings({"unused"})
     public AppRate set365DayPeriodMaxNumberDialogLaunchTimes(short dialogLaunchTimes) {
-        this.dialogLaunchTimes = dialogLaunchTimes;
+        rateDecisionEngine.setDialogLaunchTimes(YEAR_IN_DAYS, dialogLaunchTimes);
+        return this;
+    }
+
+    /**
+     * <p>Sets the max number of occurrences of the display of the Rate Dialog within a period of
+     * the given number of days. Caps of different periods are applied simultaneously, e.g. 1
+     * within 7 days, 2 within 30 days and 3 within 365 days.</p>
+     *
+     * @param days the period length in days, from 1 to 365, the current day included
+     * @param dialogLaunchTimes the max number of the display of the Rate Dialog within the period,
+     *                          {@code Short.MAX_VALUE} means unlimited occurrences and removes the
+     *                          cap of the period
+     * @return the {@link AppRate} singleton object
+     * @throws IllegalArgumentException if {@code days} is out of the range from 1 to 365
+     */
+    @SuppressWarnings({"unused"})
+    public AppRate setDayPeriodMaxNumberDialogLaunchTimes(short days, short dialogLaunchTimes)
+            throws IllegalArgumentException {
+        if ((days < 1) || (days > YEAR_IN_DAYS)) {
+            throw new IllegalArgumentException("setDayPeriodMaxNumberDialogLaunchTimes(short " +
+                    "days, short dialogLaunchTimes): 'days' must be from 1 to 365.");
+        }
+        rateDecisionEngine.setDialogLaunchTimes(days, dialogLaunchTimes);
+        return this;
+    }
+
+    /**
+     * <p>Sets the minimum number of days the app is launched at within the period of the last
+     * {@code days} days, e.g. active on at least 5 of the last 14 days. Many launches within one
+     * day count as one active day.</p>
+     *
+     * @param activeDays the minimum number of active days within the period, default is 0, 0 means
+     *                   any number of active days
+     * @param days the period length in days, from 1 to 365, the current day included
+     * @return the {@link AppRate} singleton object
+     * @throws IllegalArgumentException if {@code days} is out of the range from 1 to 365
+     */
+    @SuppressWarnings({"unused"})
+    public AppRate setMinimumActiveDays(short activeDays, short days)
+            throws IllegalArgumentException {
+        if ((days < 1) || (days > YEAR_IN_DAYS)) {
+            throw new IllegalArgumentException("setMinimumActiveDays(short activeDays, short " +
+                    "days): 'days' must be from 1 to 365.");
+        }
+        rateDecisionEngine.setActiveDays(activeDays, days);
+        return this;
+    }
+
+    /**
+     * <p>Sets the minimum engagement score. The score is the sum of the weights of app launches
+     * and custom events, every weight is halved every half-life since the launch or the event, so
+     * recent engagement counts the most.</p>
+     *
+     * @param minimumEngagementScore the minimum engagement score, default is 0, 0 means any score
+     * @return the {@link AppRate} singleton object
+     * @see #setEngagementScoreHalfLife(long, short)
+     * @see #setEngagementScoreLaunchWeight(float)
+     * @see #setEngagementScoreWeight(String, float)
+     */
+    @SuppressWarnings({"unused"})
+    public AppRate setMinimumEngagementScore(float minimumEngagementScore) {
+        rateDecisionEngine.setMinimumEngagementScore(minimumEngagementScore);
+        return this;
+    }
+
+    /**
+     * <p>Sets the engagement score half-life, the time every weight is halved in.</p>
+     * <p>Default is 1 {@link Time#WEEK week}, 0 means weights aren't decayed.</p>
+     *
+     * @param timeUnit one of the values defined by {@link Time.TimeUnits}
+     * @param timeUnitsNumber time units number
+     * @return the {@link AppRate} singleton object
+     * @see #setMinimumEngagementScore(float)
+     * @see Time.TimeUnits
+     */
+    @SuppressWarnings({"unused"})
+    public AppRate setEngagementScoreHalfLife(@Time.TimeUnits long timeUnit,
+                                              short timeUnitsNumber) {
+        rateDecisionEngine.setEngagementHalfLife(timeUnit * timeUnitsNumber);
+        return this;
+    }
+
+    /**
+     * <p>Sets the engagement score weight of every app launch counted by {@link #monitor()}.</p>
+     *
+     * @param weight the weight, default is 0, 0 means app launches don't change the score
+     * @return the {@link AppRate} singleton object
+     * @see #setMinimumEngagementScore(float)
+     */
+    @SuppressWarnings({"unused"})
+    public AppRate setEngagementScoreLaunchWeight(float weight) {
+        customEventCounters.setLaunchEngagementWeight(weight);
+        return this;
+    }
+
+    /**
+     * <p>Sets the engagement score weight of every increment of the custom event. Increments are
+     * added to the score when they are written.</p>
+     *
+     * @param eventName the custom event name
+     * @param weight the weight, default is 0, 0 means the custom event doesn't change the score
+     * @return the {@link AppRate} singleton object
+     * @see #setMinimumEngagementScore(float)
+     */
+    @SuppressWarnings({"unused"})
+    public AppRate setEngagementScoreWeight(String eventName, float weight) {
+        customEventCounters.setEngagementWeight(customEventCounters.getSlot(eventName), weight);
         return this;
     }
 
@@ -198,7 +388,7 @@ public final class AppRate {
      * @return the {@link AppRate} singleton object
      */
     public AppRate setLaunchTimes(@SuppressWarnings("SameParameterValue") byte appLaunchTimes) {
-        this.appLaunchTimes = appLaunchTimes;
+        rateDecisionEngine.setAppLaunchTimes(appLaunchTimes);
         return this;
     }
 
@@ -228,7 +418,7 @@ public final class AppRate {
      */
     @SuppressWarnings("WeakerAccess")
     public AppRate setTimeToWait(@Time.TimeUnits long timeUnit, short timeUnitsNumber) {
-        this.installDate = timeUnit * timeUnitsNumber;
+        rateDecisionEngine.setInstallDate(timeUnit * timeUnitsNumber);
         return this;
     }
 
@@ -260,7 +450,7 @@ public final class AppRate {
      */
     @SuppressWarnings("WeakerAccess")
     public AppRate setRemindTimeToWait(@Time.TimeUnits long timeUnit, short timeUnitsNumber) {
-        this.remindInterval = timeUnit * timeUnitsNumber;
+        rateDecisionEngine.setRemindInterval(timeUnit * timeUnitsNumber);
         return this;
     }
 
@@ -274,7 +464,7 @@ public final class AppRate {
      */
     @SuppressWarnings("unused")
     public AppRate setRemindLaunchesNumber(@SuppressWarnings("SameParameterValue") byte remindLaunchesNumber) {
-        this.remindLaunchesNumber = remindLaunchesNumber;
+        rateDecisionEngine.setRemindLaunchesNumber(remindLaunchesNumber);
         return this;
     }
 
@@ -291,7 +481,32 @@ public final class AppRate {
 
     @SuppressWarnings("unused")
     public AppRate setMinimumEventCount(String eventName, short minimumCount) {
-        this.customEventsCounts.put(eventName, minimumCount);
+        rateDecisionEngine.setMinimumEventCount(eventName, minimumCount, 0);
+        return this;
+    }
+
+    /**
+     * <p>Sets the minimum count of the custom event within the sliding window of the last
+     * {@code days} days, e.g. at least 5 "purchase_completed" events in the last 14 days.</p>
+     * <p>Only the custom event increments made after this call are counted within the window. The
+     * window takes at most two bytes per day for each custom event.</p>
+     *
+     * @param eventName the custom event name
+     * @param minimumCount the minimum count within the window
+     * @param days the window length in days, from 1 to 365, the current day included
+     * @return the {@link AppRate} singleton object
+     * @throws IllegalArgumentException if {@code days} is out of the range from 1 to 365
+     * @see #setMinimumEventCount(String, short)
+     * @since 1.2.5
+     */
+    @SuppressWarnings("unused")
+    public AppRate setMinimumEventCount(String eventName, short minimumCount, short days)
+            throws IllegalArgumentException {
+        if ((days < 1) || (days > YEAR_IN_DAYS)) {
+            throw new IllegalArgumentException("setMinimumEventCount(String eventName, short " +
+                    "minimumCount, short days): 'days' must be from 1 to 365.");
+        }
+        rateDecisionEngine.setMinimumEventCount(eventName, minimumCount, days);
         return this;
     }
 
@@ -307,7 +522,7 @@ public final class AppRate {
      */
     @SuppressWarnings("WeakerAccess")
     public AppRate setSelectedAppLaunches(@SuppressWarnings("SameParameterValue") byte selectedAppLaunches) {
-        this.selectedAppLaunches = selectedAppLaunches;
+        rateDecisionEngine.setSelectedAppLaunches(selectedAppLaunches);
         return this;
     }
 
@@ -401,8 +616,14 @@ public final class AppRate {
         return this;
     }
 
+    /**
+     * <p>Clears all data in the persistent state storage.</p>
+     *
+     * @return the {@link AppRate} singleton object
+     */
     @SuppressWarnings("unused")
     public AppRate clearSettingsParam() {
+        customEventCounters.discard();
         PreferenceHelper.clearSharedPreferences(context);
         return this;
     }
@@ -742,6 +963,40 @@ public final class AppRate {
         return setStoreType(INTENT, null, intents);
     }
 
+    /**
+     * <p>Sets several app stores defined by {@link StoreType.StoreWithoutApplicationId} in the
+     * priority order to the Positive button.</p>
+     * <p>The Positive button starts the first app store installed on the user device, others are
+     * fallbacks. The app stores web (http/https) uris are the last fallbacks. For example, the app
+     * distributed through Google Play, Samsung Galaxy Apps and Huawei AppGallery can use
+     * {@code setStoreTypes(StoreType.GOOGLEPLAY, StoreType.SAMSUNG, StoreType.CHINESESTORES)}.</p>
+     *
+     * @param storeTypes the values defined by {@link StoreType.StoreWithoutApplicationId} in the
+     *                   priority order
+     * @return the {@link AppRate} singleton object
+     * @throws IllegalArgumentException if {@code storeTypes} equals null or is empty or if any of
+     *         {@code storeTypes} isn't defined by {@link StoreType.StoreWithoutApplicationId}
+     * @see #setStoreType(int)
+     * @since 1.2.5
+     */
+    @SuppressWarnings({"ConstantConditions", "unused"})
+    public AppRate setStoreTypes(@StoreType.StoreWithoutApplicationId final int... storeTypes)
+            throws IllegalArgumentException {
+        if ((storeTypes == null) || (storeTypes.length == 0)) {
+            throw new IllegalArgumentException("setStoreTypes(int... storeTypes): 'storeTypes' " +
+                    "must be != null and not empty.");
+        }
+        for (int storeType : storeTypes) {
+            if ((storeType < AMAZON) || (storeType > YANDEX) || (storeType == APPLE) ||
+                (storeType == BLACKBERRY)) {
+                throw new IllegalArgumentException("StoreTypes must be some of: AMAZON, BAZAAR, " +
+                        "CHINESESTORES, GOOGLEPLAY, MI, SAMSUNG, SLIDEME, TENCENT, YANDEX.");
+            }
+        }
+        storeOptions.setStoreTypes(storeTypes);
+        return this;
+    }
+
     private AppRate setStoreType(@StoreType.AnyStoreType final int storeType,
                                  final String[] stringParam,
                                  final Intent[] intentParaam) {
@@ -753,7 +1008,8 @@ public final class AppRate {
      * <p>Gets the app store type from library options.</p>
      * <p>NOTE: this method doesn't get an app store type from user's device.</p>
      *
-     * @return one of the values defined by {@link StoreType.AnyStoreType}
+     * @return one of the values defined by {@link StoreType.AnyStoreType}, the first app store if
+     *         several app stores are set by {@link #setStoreTypes(int...)}
      */
     @SuppressWarnings("unused")
     @StoreType.AnyStoreType
@@ -761,14 +1017,85 @@ public final class AppRate {
         return storeOptions.getStoreType();
     }
 
+    /**
+     * <p>Returns the custom event handle.</p>
+     * <p>The handle resolves the custom event once, its increments and reads don't allocate. Keep
+     * it for frequent events.</p>
+     *
+     * @param eventName the custom event name
+     * @return the custom event handle
+     * @see CustomEvent
+     * @since 1.2.5
+     */
+    @SuppressWarnings("WeakerAccess")
+    @NonNull
+    public CustomEvent event(@NonNull String eventName) {
+        return new CustomEvent(customEventCounters, customEventCounters.getSlot(eventName));
+    }
+
+    /**
+     * <p>Increments the custom event count.</p>
+     * <p>The increment is held in memory and is written later, see
+     * {@link #setEventCountFlushThreshold(short)} and
+     * {@link #setEventCountFlushInterval(long, short)}.</p>
+     *
+     * @param eventName the custom event name
+     * @return the {@link AppRate} singleton object
+     * @see #event(String)
+     * @see #flushEventCounts()
+     */
     @SuppressWarnings("unused")
     public AppRate incrementEventCount(String eventName) {
-        return setEventCountValue(eventName, (short) (getCustomEventCount(context, eventName) + 1));
+        customEventCounters.increment(customEventCounters.getSlot(eventName));
+        return this;
     }
 
     @SuppressWarnings("WeakerAccess")
     public AppRate setEventCountValue(String eventName, short countValue) {
-        setCustomEventCount(context, eventName, countValue);
+        customEventCounters.set(customEventCounters.getSlot(eventName), countValue);
+        return this;
+    }
+
+    /**
+     * <p>Sets the number of unflushed custom events increments, that are written at once.</p>
+     *
+     * @param flushThreshold the number of increments, default is 16, 1 means every increment is
+     *                       written immediately
+     * @return the {@link AppRate} singleton object
+     * @see #incrementEventCount(String)
+     */
+    @SuppressWarnings("unused")
+    public AppRate setEventCountFlushThreshold(short flushThreshold) {
+        customEventCounters.setFlushThreshold(flushThreshold);
+        return this;
+    }
+
+    /**
+     * <p>Sets the max time a custom event increment stays unflushed.</p>
+     * <p>Default is 30 {@link Time#SECOND seconds}, 0 means there is no time-based flush.
+     * Unflushed increments are also written when the app goes to the background.</p>
+     *
+     * @param timeUnit one of the values defined by {@link Time.TimeUnits}
+     * @param timeUnitsNumber time units number
+     * @return the {@link AppRate} singleton object
+     * @see #incrementEventCount(String)
+     * @see Time.TimeUnits
+     */
+    @SuppressWarnings("unused")
+    public AppRate setEventCountFlushInterval(@Time.TimeUnits long timeUnit, short timeUnitsNumber) {
+        customEventCounters.setFlushInterval(timeUnit * timeUnitsNumber);
+        return this;
+    }
+
+    /**
+     * <p>Writes all unflushed custom events increments now.</p>
+     *
+     * @return the {@link AppRate} singleton object
+     * @see #incrementEventCount(String)
+     */
+    @SuppressWarnings("unused")
+    public AppRate flushEventCounts() {
+        customEventCounters.flush();
         return this;
     }
 
@@ -837,23 +1164,36 @@ public final class AppRate {
      * launched.</p>
      */
     public void monitor() {
+        // the launch times, the active days and the engagement score are updated by the commit
+        // under the state lock, so concurrent launches aren't lost
+        final PreferenceHelper.Transaction transaction = edit(context)
+                .setActiveDay(EventWindow.getDay(new Date().getTime()));
+        final RateState state = getState(context);
+        final float launchEngagementWeight = customEventCounters.getLaunchEngagementWeight();
+        if (launchEngagementWeight != 0.0f) {
+            transaction.addEngagementScore(launchEngagementWeight,
+                                           customEventCounters.getEngagementHalfLife());
+        }
         if (isFirstLaunch(context)) {
-            setFirstLaunchSharedPreferences(context);
+            transaction.setFirstLaunch();
         } else {
-            PreferenceHelper.setLaunchTimes(context, (short) (getLaunchTimes(context) + 1));
-            if (AppInformation.getLongVersionCode(context) != getVersionCode(context)) {
+            transaction.incrementLaunchTimes();
+            final long versionCode = AppInformation.getLongVersionCode(context);
+            if (versionCode != state.versionCode) {
                 if (isVersionCodeCheck) {
-                    setAgreeShowDialog(true);
+                    transaction.setIsAgreeShowDialog(true);
                 }
-                setVersionCode(context);
+                transaction.setVersionCode(versionCode);
             }
-            if (!AppInformation.getVersionName(context).equals(getVersionName(context))) {
+            final String versionName = AppInformation.getVersionName(context);
+            if (!versionName.equals(state.versionName)) {
                 if (isVersionNameCheck) {
-                    setAgreeShowDialog(true);
+                    transaction.setIsAgreeShowDialog(true);
                 }
-                setVersionName(context);
+                transaction.setVersionName(versionName);
             }
         }
+        transaction.commit();
     }
 
     /**
@@ -876,6 +1216,7 @@ public final class AppRate {
             clearRateDialog();
         }
 
+        StoreIntentsResolver.getInstance(context).preresolve(storeOptions);
         setRateDialog(new WeakReference<>(dialogManagerFactory
                 .createDialogManager(activity, dialogOptions, storeOptions).createDialog()));
         if (dialog.get() != null) {
@@ -949,57 +1290,137 @@ public final class AppRate {
      * <p>Determines whether conditions to show the Rate Dialog meets or not.</p>
      *
      * @return true if the conditions to show the Rate Dialog meets, false othewise
+     * @see #getRateDecision()
      */
     @SuppressWarnings("WeakerAccess")
     public boolean shouldShowRateDialog() {
-        return getAgreeShowDialog() &&
-                isOverLaunchTimes() &&
-                isSelectedAppLaunch() &&
-                isOverInstallDate() &&
-                isOverRemindDate() &&
-                isOverRemindLaunchesNumber() &&
-                isOverCustomEventsRequirements() &&
-                isBelow365DayPeriodMaxNumberDialogLaunchTimes();
+        return getRateDecision() == RateDecision.SHOW;
     }
 
-    private boolean isOverLaunchTimes() {
-        return ((appLaunchTimes == 0) || (getLaunchTimes(context) >= appLaunchTimes));
+    /**
+     * <p>Evaluates conditions to show the Rate Dialog against one consistent state snapshot and
+     * one current time.</p>
+     * <p>The decision is {@link RateDecision#SHOW} or the first condition that isn't met, it is
+     * logged in Debug mode. The decision is memoized until its inputs are changed or the time
+     * condition, that isn't met, expires.</p>
+     * <p>If the decision is {@link RateDecision#SHOW}, the store intents are resolved in the
+     * library background thread, see {@link StoreIntentsResolver}.</p>
+     *
+     * @return one of the values defined by {@link RateDecision.AnyRateDecision}
+     * @see RateDecision.AnyRateDecision
+     * @since 1.2.5
+     */
+    @SuppressWarnings("WeakerAccess")
+    @RateDecision.AnyRateDecision
+    public int getRateDecision() {
+        final int decision = rateDecisionEngine.getDecision(new Date().getTime());
+        if (isDebug) {
+            Log.d(TAG, "Rate Dialog decision: " + RateDecisionEngine.getDecisionName(decision));
+        }
+        if (decision == RateDecision.SHOW) {
+            // the Rate button click only starts the first resolved intent
+            StoreIntentsResolver.getInstance(context).preresolve(storeOptions);
+        }
+        return decision;
     }
 
-    private boolean isSelectedAppLaunch() {
-        return ((selectedAppLaunches == 1) ||
-                ((selectedAppLaunches != 0) && ((getLaunchTimes(context) % selectedAppLaunches) == 0)));
+    /**
+     * <p>Returns the current evaluation order of the Rate Dialog conditions. <b>For development
+     * only!</b></p>
+     * <p>Conditions are ordered by their cost per rejection, the order is adapted at runtime.</p>
+     *
+     * @return the conditions, the values defined by {@link RateDecision.AnyRateDecision}
+     * @see #getConditionEvaluationsNumber(int)
+     * @see #getConditionRejectionsNumber(int)
+     * @since 1.2.5
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public int[] getConditionsOrder() {
+        return rateDecisionEngine.getConditionsOrder();
     }
 
-    private boolean isOverInstallDate() {
-        return ((installDate == 0L) || isOverDate(getInstallDate(context), installDate));
+    /**
+     * <p>Returns the recent number of evaluations of the Rate Dialog condition. <b>For development
+     * only!</b></p>
+     *
+     * @param condition one of the values defined by {@link RateDecision.AnyRateDecision}
+     * @return the number of evaluations, 0 for {@link RateDecision#SHOW} and
+     *         {@link RateDecision#PRECOMPUTED}
+     * @see #getConditionsOrder()
+     * @since 1.2.5
+     */
+    @SuppressWarnings("unused")
+    public int getConditionEvaluationsNumber(@RateDecision.AnyRateDecision int condition) {
+        return rateDecisionEngine.getEvaluationsNumber(condition);
     }
 
-    private boolean isOverRemindDate() {
-        return ((remindInterval == 0L) ||
-                (getRemindInterval(context) == 0L) ||
-                isOverDate(getRemindInterval(context), remindInterval));
+    /**
+     * <p>Returns the recent number of rejections by the Rate Dialog condition. <b>For development
+     * only!</b></p>
+     *
+     * @param condition one of the values defined by {@link RateDecision.AnyRateDecision}
+     * @return the number of rejections, 0 for {@link RateDecision#SHOW} and
+     *         {@link RateDecision#PRECOMPUTED}
+     * @see #getConditionsOrder()
+     * @since 1.2.5
+     */
+    @SuppressWarnings("unused")
+    public int getConditionRejectionsNumber(@RateDecision.AnyRateDecision int condition) {
+        return rateDecisionEngine.getRejectionsNumber(condition);
     }
 
-    private boolean isOverRemindLaunchesNumber() {
-        return ((remindLaunchesNumber == 0) ||
-                (getRemindLaunchesNumber(context) == 0) ||
-                (getLaunchTimes(context) - getRemindLaunchesNumber(context) >= remindLaunchesNumber));
+    /**
+     * <p>Returns the current order of the store intents, that the Rate button starts. <b>For
+     * development only!</b></p>
+     * <p>Intents, that no activity can handle, are dropped. {@link StoreType#CHINESESTORES},
+     * {@link StoreType#INTENT}, {@link StoreType#OTHER} and {@link #setStoreTypes(int...)}
+     * intents are ordered by launch outcomes on the user device, the intent, that was launched
+     * last time, is first.</p>
+     *
+     * @return the indices of the intents in the store intents chain, e.g. in the
+     *         {@link #setStoreType(Intent...)} array
+     * @since 1.2.5
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public int[] getStoreIntentsOrder() {
+        return StoreIntentsResolver.getInstance(context).getIntentsOrder(storeOptions);
     }
 
-    private boolean isOverCustomEventsRequirements() {
-        if (customEventsCounts.isEmpty()) {
-            return true;
-        } else {
-            Short currentCount;
-            for (Map.Entry<String, Short> eventRequirement : customEventsCounts.entrySet()) {
-                currentCount = getCustomEventCount(context, eventRequirement.getKey());
-                if (currentCount < eventRequirement.getValue()) {
-                    return false;
-                }
-            }
-            return true;
+    /**
+     * <p>Computes and stores the time the Rate Dialog conditions are met at the next app
+     * launch.</p>
+     * <p>The library calls this method in the background thread when the app goes to the
+     * background. Nothing is computed if neither the conditions inputs nor the conditions options
+     * are changed since the last precomputation.</p>
+     *
+     * @see RateDecisionEngine#computeEligibilityRecord(RateState, boolean, long)
+     */
+    private void precomputeEligibility() {
+        // active days, engagement score and windowed custom events requirements can become unmet
+        // as time passes
+        if (customEventCounters.hasPendingIncrements() ||
+            rateDecisionEngine.hasExpiringConditions()) {
+            return;
+        }
+        final int inputsVersion = PreferenceHelper.getConditionsInputsVersion();
+        final long conditionsHash = rateDecisionEngine.getConditionsHash();
+        if ((inputsVersion == precomputedInputsVersion) &&
+            (conditionsHash == precomputedConditionsHash)) {
+            return;
         }
+        final CustomEventCounters.Snapshot snapshot = customEventCounters.getSnapshot();
+        edit(context)
+                .setExtra(EligibilityRecord.EXTRA_KEY, rateDecisionEngine
+                        .computeEligibilityRecord(snapshot.state, snapshot.isOverMinimumCounts,
+                                new Date().getTime())
+                        .toByteArray())
+                .commit();
+        // the record write changes the version once, any other change makes it unknown
+        final int newInputsVersion = PreferenceHelper.getConditionsInputsVersion();
+        precomputedInputsVersion = (newInputsVersion - inputsVersion <= 1) ? newInputsVersion : -1;
+        precomputedConditionsHash = conditionsHash;
     }
 
     /**
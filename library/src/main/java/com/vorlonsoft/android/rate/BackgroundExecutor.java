@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+
+import static com.vorlonsoft.android.rate.Constants.Utils.UTILITY_CLASS_MESSAGE;
+
+/**
+ * <p>BackgroundExecutor Class - the background executor class of the AndroidRate library.</p>
+ * <p>The single library-owned background thread, tasks are executed one by one in the order they
+ * were submitted. The thread is created on demand and stops after one minute of idle.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class BackgroundExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private static final String THREAD_NAME = "AndroidRate";
+
+    private static volatile Executor executor = null;
+
+    private BackgroundExecutor() {
+        throw new UnsupportedOperationException("BackgroundExecutor" + UTILITY_CLASS_MESSAGE);
+    }
+
+    /**
+     * <p>Returns the single library-owned background executor.</p>
+     *
+     * @return the serial background executor
+     */
+    @NonNull
+    static Executor getInstance() {
+        if (executor == null) {
+            synchronized (BackgroundExecutor.class) {
+                if (executor == null) {
+                    final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(1, 1,
+                            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                            new ThreadFactory() {
+                                @Override
+                                public Thread newThread(@NonNull final Runnable runnable) {
+                                    final Thread thread = new Thread(new Runnable() {
+                                        @Override
+                                        public void run() {
+                                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                            runnable.run();
+                                        }
+                                    }, THREAD_NAME);
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    executor = threadPoolExecutor;
+                }
+            }
+        }
+        return executor;
+    }
+}
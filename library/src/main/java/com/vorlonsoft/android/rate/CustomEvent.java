@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import androidx.annotation.NonNull;
+
+/**
+ * <p>CustomEvent Class - the custom event handle class of the AndroidRate library.</p>
+ * <p>The handle resolves the custom event once, so its increments and reads don't build the
+ * preference key, don't hash the event name and don't allocate. Keep the handle returned by
+ * {@link AppRate#event(String)} for frequent events. The class is thread-safe.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see AppRate#event(String)
+ */
+public final class CustomEvent {
+
+    private final CustomEventCounters customEventCounters;
+
+    private final int slot;
+
+    CustomEvent(@NonNull final CustomEventCounters customEventCounters, final int slot) {
+        this.customEventCounters = customEventCounters;
+        this.slot = slot;
+    }
+
+    /**
+     * <p>Returns the custom event name.</p>
+     *
+     * @return the custom event name
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public String getName() {
+        return customEventCounters.getName(slot);
+    }
+
+    /**
+     * <p>Increments the custom event count.</p>
+     * <p>The increment is held in memory and is written later, see
+     * {@link AppRate#setEventCountFlushThreshold(short)} and
+     * {@link AppRate#setEventCountFlushInterval(long, short)}.</p>
+     *
+     * @return the {@link CustomEvent} object
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    @NonNull
+    public CustomEvent increment() {
+        customEventCounters.increment(slot);
+        return this;
+    }
+
+    /**
+     * <p>Returns the custom event count including unflushed increments.</p>
+     *
+     * @return the custom event count
+     */
+    @SuppressWarnings("unused")
+    public short getCount() {
+        return customEventCounters.getCount(slot);
+    }
+
+    /**
+     * <p>Sets the custom event count, unflushed increments of this event are discarded.</p>
+     *
+     * @param eventCount the custom event count
+     * @return the {@link CustomEvent} object
+     */
+    @SuppressWarnings({"unused", "UnusedReturnValue"})
+    @NonNull
+    public CustomEvent setCount(final short eventCount) {
+        customEventCounters.set(slot, eventCount);
+        return this;
+    }
+}
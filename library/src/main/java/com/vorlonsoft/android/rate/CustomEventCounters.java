@@ -0,0 +1,759 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+
+import static com.vorlonsoft.android.rate.PreferenceHelper.edit;
+
+/**
+ * <p>CustomEventCounters Class - the write-behind custom events counters class of the AndroidRate
+ * library.</p>
+ * <p>Increments are held in memory and are written to the {@link RateStore} by a single
+ * transaction, when the number of unflushed increments reaches the flush threshold, when the
+ * flush interval elapses, when the app goes to the background or when {@link #flush()} is called.
+ * Counts returned by {@link #getCount(int)} include unflushed increments.</p>
+ * <p>Every custom event gets a dense slot number once, by {@link #getSlot(String)}. Stored counts,
+ * unflushed increments and remaining counts are kept in arrays indexed by the slot, so
+ * increments and reads by the slot don't hash the event name and don't allocate.</p>
+ * <p>The class is thread-safe. Increments are lock-free, they go to {@link StripedCounter} objects
+ * and the minimum counts are kept in the primitive {@link StringShortTable}. Flushes are
+ * serialized and are seen by readers atomically through the flush sequence number. Writes to the
+ * {@link RateStore} are made before the flush sequence number is made odd, it is odd only while
+ * the in-memory counts are published, so readers never wait for the storage I/O.</p>
+ * <p>The number of custom events, that haven't reached their minimum counts, is kept up to date by
+ * {@link #setMinimumCount(String, short, int)}, {@link #increment(int)} and
+ * {@link #set(int, short)}, when they cross a minimum count, so the requirements status of
+ * {@link #getSnapshot()} is O(1) no matter how many custom events are registered. A minimum count
+ * can be windowed, then the events within the last days are counted by the custom event
+ * {@link EventWindow}, and remaining counts are recounted once a day.</p>
+ * <p>Custom events with non-zero engagement weights add their weights to the
+ * {@link EngagementScore} when their increments are flushed, app launches add the launch
+ * weight.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see AppRate#event(String)
+ * @see AppRate#setMinimumEventCount(String, short)
+ * @see AppRate#setMinimumEventCount(String, short, short)
+ */
+final class CustomEventCounters {
+
+    /** <p>The default number of unflushed increments, that triggers the flush.</p> */
+    static final short DEFAULT_FLUSH_THRESHOLD = 16;
+
+    /** <p>The default max time in milliseconds an increment stays unflushed.</p> */
+    static final long DEFAULT_FLUSH_INTERVAL = Time.SECOND * 30L;
+
+    /** <p>The default engagement score half-life in milliseconds.</p> */
+    static final long DEFAULT_ENGAGEMENT_HALF_LIFE = Time.WEEK;
+
+    /** <p>The initial capacity of the slots arrays.</p> */
+    private static final int INITIAL_SLOTS_CAPACITY = 16;
+
+    private final Context context;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /** <p>The slots of custom events.</p> */
+    private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<>();
+
+    /** <p>The number of slots.</p> */
+    private volatile int slotsNumber = 0;
+
+    /** <p>The custom events names, indexed by a slot.</p> */
+    private volatile String[] slotNames = new String[INITIAL_SLOTS_CAPACITY];
+
+    /** <p>The stored custom events counts, indexed by a slot, written under the flush lock.</p> */
+    private volatile short[] storedCounts = new short[INITIAL_SLOTS_CAPACITY];
+
+    /** <p>The unflushed increments of custom events, indexed by a slot.</p> */
+    private volatile StripedCounter[] pendingIncrements =
+            new StripedCounter[INITIAL_SLOTS_CAPACITY];
+
+    /** <p>The remaining counts to reach the minimum counts, indexed by a slot.</p> */
+    private volatile AtomicInteger[] remainingCounts = new AtomicInteger[INITIAL_SLOTS_CAPACITY];
+
+    /**
+     * <p>The windows of windowed minimum counts, indexed by a slot, they are changed in place under
+     * the flush lock.</p>
+     */
+    private volatile EventWindow[] windows = new EventWindow[INITIAL_SLOTS_CAPACITY];
+
+    /** <p>The engagement score weights of custom events, indexed by a slot.</p> */
+    private volatile float[] engagementWeights = new float[INITIAL_SLOTS_CAPACITY];
+
+    /** <p>The number of custom events with non-zero engagement score weights.</p> */
+    private volatile int engagementWeightsNumber = 0;
+
+    private volatile float launchEngagementWeight = 0.0f;
+
+    private volatile long engagementHalfLife = DEFAULT_ENGAGEMENT_HALF_LIFE;
+
+    /** <p>The number of windowed minimum counts.</p> */
+    private volatile int windowsNumber = 0;
+
+    /** <p>The day the remaining counts are counted for.</p> */
+    private volatile int remainingCountsDay = -1;
+
+    /** <p>The minimum counts of custom events, guarded by the requirements lock.</p> */
+    private final StringShortTable minimumCounts = new StringShortTable();
+
+    /** <p>The number of custom events, that haven't reached their minimum counts.</p> */
+    private final AtomicInteger unmetRequirementsNumber = new AtomicInteger(0);
+
+    /** <p>The lock, that guards the minimum counts and the remaining counts updates.</p> */
+    private final Object requirementsLock = new Object();
+
+    /** <p>The number of state resets the stored counts are loaded for.</p> */
+    private volatile int stateResetsNumber;
+
+    /** <p>The total number of unflushed increments.</p> */
+    private final StripedCounter pendingIncrementsNumber = new StripedCounter();
+
+    private final AtomicBoolean isFlushScheduled = new AtomicBoolean(false);
+
+    /**
+     * <p>The version of custom events counts, it is changed by flushes, writes and minimum counts
+     * changes, but not by increments.</p>
+     */
+    private final AtomicInteger countsVersion = new AtomicInteger(0);
+
+    /** <p>The lock, that serializes flushes, writes and slots allocations.</p> */
+    private final Object flushLock = new Object();
+
+    /**
+     * <p>The flush sequence number, it is odd while the in-memory counts are being changed. No
+     * storage I/O is made while it is odd.</p>
+     */
+    private volatile int flushSequence = 0;
+
+    private volatile short flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+
+    /**
+     * <p>The number of increments of the thread cell between the flush threshold checks, so the
+     * total number of unflushed increments is summed once per this number of increments.</p>
+     */
+    private volatile int flushCheckInterval = getFlushCheckInterval(DEFAULT_FLUSH_THRESHOLD);
+
+    private volatile long flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+    CustomEventCounters(@NonNull final Context context) {
+        this.context = context;
+        stateResetsNumber = PreferenceHelper.getStateResetsNumber();
+        AppLifecycleCallbacks.addBackgroundListener(context, flushRunnable);
+    }
+
+    /**
+     * <p>Returns the number of increments of the thread cell between the flush threshold checks.
+     * Every cell holds less than this number of unchecked increments, so the flush is triggered
+     * at most twice the flush threshold unflushed increments.</p>
+     *
+     * @param flushThreshold the number of unflushed increments, that triggers the flush
+     * @return the number of increments between the flush threshold checks
+     */
+    private static int getFlushCheckInterval(final short flushThreshold) {
+        return Math.max(flushThreshold / StripedCounter.STRIPES, 1);
+    }
+
+    private static short toShort(final long value) {
+        return (short) Math.max(Math.min(value, Short.MAX_VALUE), Short.MIN_VALUE);
+    }
+
+    /**
+     * <p>Returns the slot of the custom event, the slot is allocated on the first call.</p>
+     *
+     * @param eventName the custom event name
+     * @return the slot
+     */
+    int getSlot(@NonNull final String eventName) {
+        final Integer slot = slots.get(eventName);
+        if (slot != null) {
+            return slot;
+        }
+        synchronized (flushLock) {
+            final Integer allocatedSlot = slots.get(eventName);
+            if (allocatedSlot != null) {
+                return allocatedSlot;
+            }
+            final int newSlot = slotsNumber;
+            if (newSlot == slotNames.length) {
+                final int capacity = newSlot * 2;
+                slotNames = Arrays.copyOf(slotNames, capacity);
+                storedCounts = Arrays.copyOf(storedCounts, capacity);
+                pendingIncrements = Arrays.copyOf(pendingIncrements, capacity);
+                remainingCounts = Arrays.copyOf(remainingCounts, capacity);
+                windows = Arrays.copyOf(windows, capacity);
+                engagementWeights = Arrays.copyOf(engagementWeights, capacity);
+            }
+            slotNames[newSlot] = eventName;
+            storedCounts[newSlot] =
+                    PreferenceHelper.getState(context).getCustomEventCount(eventName);
+            pendingIncrements[newSlot] = new StripedCounter();
+            remainingCounts[newSlot] = new AtomicInteger(0);
+            // the slot is published after its arrays elements
+            slotsNumber = newSlot + 1;
+            slots.put(eventName, newSlot);
+            return newSlot;
+        }
+    }
+
+    /**
+     * <p>Returns the custom event name.</p>
+     *
+     * @param slot the slot returned by {@link #getSlot(String)}
+     * @return the custom event name
+     */
+    @NonNull
+    String getName(final int slot) {
+        return slotNames[slot];
+    }
+
+    /**
+     * <p>Sets the number of unflushed increments, that triggers the flush.</p>
+     *
+     * @param flushThreshold the number of unflushed increments, 1 means write-through
+     */
+    void setFlushThreshold(final short flushThreshold) {
+        this.flushThreshold = flushThreshold;
+        flushCheckInterval = getFlushCheckInterval(flushThreshold);
+        if (pendingIncrementsNumber.sum() >= flushThreshold) {
+            flush();
+        }
+    }
+
+    /**
+     * <p>Sets the max time an increment stays unflushed.</p>
+     *
+     * @param flushInterval the max time in milliseconds, 0 means no time-based flush
+     */
+    void setFlushInterval(final long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * <p>Sets the engagement score weight of the custom event.</p>
+     *
+     * @param slot the slot returned by {@link #getSlot(String)}
+     * @param weight the weight of every increment, 0 means increments don't change the score
+     */
+    void setEngagementWeight(final int slot, final float weight) {
+        synchronized (flushLock) {
+            final float oldWeight = engagementWeights[slot];
+            engagementWeights[slot] = weight;
+            if ((oldWeight == 0.0f) && (weight != 0.0f)) {
+                engagementWeightsNumber++;
+            } else if ((oldWeight != 0.0f) && (weight == 0.0f)) {
+                engagementWeightsNumber--;
+            }
+            countsVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * <p>Sets the engagement score weight of the app launch.</p>
+     *
+     * @param launchEngagementWeight the weight, 0 means launches don't change the score
+     */
+    void setLaunchEngagementWeight(final float launchEngagementWeight) {
+        this.launchEngagementWeight = launchEngagementWeight;
+    }
+
+    float getLaunchEngagementWeight() {
+        return launchEngagementWeight;
+    }
+
+    /**
+     * <p>Sets the engagement score half-life.</p>
+     *
+     * @param engagementHalfLife the half-life in milliseconds, 0 means the score doesn't decay
+     */
+    void setEngagementHalfLife(final long engagementHalfLife) {
+        this.engagementHalfLife = engagementHalfLife;
+        countsVersion.incrementAndGet();
+    }
+
+    long getEngagementHalfLife() {
+        return engagementHalfLife;
+    }
+
+    /**
+     * <p>Returns the sum of engagement score weights of unflushed increments. They are added to the
+     * score at the flush time, that is less than the flush interval later.</p>
+     *
+     * @return the sum of weights of unflushed increments
+     */
+    double getPendingEngagementScore() {
+        if ((engagementWeightsNumber == 0) || !hasPendingIncrements()) {
+            return 0.0;
+        }
+        final int currentSlotsNumber = slotsNumber;
+        final float[] currentEngagementWeights = engagementWeights;
+        double score = 0.0;
+        for (int slot = 0; slot < currentSlotsNumber; slot++) {
+            if (currentEngagementWeights[slot] != 0.0f) {
+                score += currentEngagementWeights[slot] * pendingIncrements[slot].sum();
+            }
+        }
+        return score;
+    }
+
+    private static int getToday() {
+        return EventWindow.getDay(System.currentTimeMillis());
+    }
+
+    /**
+     * <p>Sets the minimum count of the custom event.</p>
+     *
+     * @param eventName the custom event name
+     * @param minimumCount the minimum count
+     * @param days the window length in days, 0 means all custom events are counted
+     */
+    void setMinimumCount(@NonNull final String eventName, final short minimumCount,
+                         final int days) {
+        final int slot = getSlot(eventName);
+        synchronized (requirementsLock) {
+            minimumCounts.put(eventName, minimumCount);
+            setWindow(slot, days);
+            synchronized (flushLock) {
+                flushSequence++;
+                try {
+                    setRemainingCount(slot, minimumCount, getToday());
+                    countsVersion.incrementAndGet();
+                } finally {
+                    flushSequence++;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Sets the window of the custom event, the window is loaded from the {@link RateStore}
+     * extra. Call it under the requirements lock.</p>
+     *
+     * @param slot the custom event slot
+     * @param days the window length in days, 0 means there is no window
+     */
+    private void setWindow(final int slot, final int days) {
+        synchronized (flushLock) {
+            final EventWindow window = windows[slot];
+            if ((window == null) ? (days == 0) : (window.getDays() == days)) {
+                return;
+            }
+            final EventWindow newWindow = (days == 0) ? null : EventWindow.fromByteArray(
+                    PreferenceHelper.getState(context)
+                                    .getExtra(EventWindow.getExtraKey(slotNames[slot])), days);
+            flushSequence++;
+            try {
+                windows[slot] = newWindow;
+                if (window == null) {
+                    windowsNumber++;
+                } else if (days == 0) {
+                    windowsNumber--;
+                }
+                countsVersion.incrementAndGet();
+            } finally {
+                flushSequence++;
+            }
+        }
+    }
+
+    /**
+     * <p>Checks if there are windowed minimum counts, they can become unmet as time passes.</p>
+     *
+     * @return true if there are windowed minimum counts, false otherwise
+     */
+    boolean hasWindowedMinimumCounts() {
+        return windowsNumber != 0;
+    }
+
+    /**
+     * <p>Recounts the remaining counts if there are windowed minimum counts and the day is changed
+     * since they were counted.</p>
+     */
+    private void recountIfDayChanged() {
+        if ((windowsNumber != 0) && (remainingCountsDay != getToday())) {
+            recountRemainingCounts();
+        }
+    }
+
+    /**
+     * <p>Sets the remaining count of the custom event to the minimum count minus the count the
+     * minimum count is compared with and updates the number of unmet requirements if the
+     * remaining count crosses 0. Call it under the requirements lock and the flush lock, while
+     * the flush sequence number is odd, so readers see the remaining counts with the counts they
+     * are counted for.</p>
+     * <p>Increments decrement remaining counts without locking, so the remaining count is set by
+     * compare-and-set and is counted again if an increment is made meanwhile, no increment is
+     * lost.</p>
+     *
+     * @param slot the custom event slot
+     * @param minimumCount the minimum count of the custom event
+     * @param day the number of the current day since the epoch
+     */
+    private void setRemainingCount(final int slot, final short minimumCount, final int day) {
+        final AtomicInteger remainingCount = remainingCounts[slot];
+        while (true) {
+            final int oldRemainingCount = remainingCount.get();
+            final int requirementCount = getRequirementCount(slot, day);
+            final int newRemainingCount = Math.max(minimumCount - requirementCount, 0);
+            if (remainingCount.compareAndSet(oldRemainingCount, newRemainingCount)) {
+                if ((oldRemainingCount == 0) && (newRemainingCount > 0)) {
+                    unmetRequirementsNumber.incrementAndGet();
+                } else if ((oldRemainingCount > 0) && (newRemainingCount == 0)) {
+                    unmetRequirementsNumber.decrementAndGet();
+                }
+                // an increment, that hasn't decremented the old remaining count, is counted now
+                if (getRequirementCount(slot, day) == requirementCount) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /** <p>Recounts the remaining counts of all custom events from their counts.</p> */
+    private void recountRemainingCounts() {
+        synchronized (requirementsLock) {
+            synchronized (flushLock) {
+                flushSequence++;
+                try {
+                    final int day = getToday();
+                    remainingCountsDay = day;
+                    for (int i = 0; i < minimumCounts.capacity(); i++) {
+                        final String eventName = minimumCounts.keyAt(i);
+                        if (eventName != null) {
+                            setRemainingCount(getSlot(eventName), minimumCounts.valueAt(i), day);
+                        }
+                    }
+                } finally {
+                    flushSequence++;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Reloads the stored counts and recounts the remaining counts after the state reset, e.g.
+     * the cleared data.</p>
+     */
+    private void reloadIfStateReset() {
+        if (stateResetsNumber == PreferenceHelper.getStateResetsNumber()) {
+            return;
+        }
+        synchronized (flushLock) {
+            final int currentStateResetsNumber = PreferenceHelper.getStateResetsNumber();
+            if (stateResetsNumber == currentStateResetsNumber) {
+                return;
+            }
+            final RateState state = PreferenceHelper.getState(context);
+            flushSequence++;
+            try {
+                for (int slot = 0; slot < slotsNumber; slot++) {
+                    storedCounts[slot] = state.getCustomEventCount(slotNames[slot]);
+                    if (windows[slot] != null) {
+                        windows[slot] = EventWindow.fromByteArray(
+                                state.getExtra(EventWindow.getExtraKey(slotNames[slot])),
+                                windows[slot].getDays());
+                    }
+                }
+                stateResetsNumber = currentStateResetsNumber;
+                countsVersion.incrementAndGet();
+            } finally {
+                flushSequence++;
+            }
+        }
+        recountRemainingCounts();
+    }
+
+    /**
+     * <p>Returns the order-independent hash of all minimum counts.</p>
+     *
+     * @return the hash of all minimum counts
+     */
+    long getMinimumCountsHash() {
+        synchronized (requirementsLock) {
+            long hash = 0L;
+            for (int i = 0; i < minimumCounts.capacity(); i++) {
+                final String eventName = minimumCounts.keyAt(i);
+                if (eventName != null) {
+                    final EventWindow window = windows[getSlot(eventName)];
+                    final int days = (window == null) ? 0 : window.getDays();
+                    hash += (eventName.hashCode() * 0x9E3779B97F4A7C15L) ^
+                            (minimumCounts.valueAt(i) | ((long) days << 16));
+                }
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * <p>Checks if there are unflushed increments.</p>
+     *
+     * @return true if there are unflushed increments, false otherwise
+     */
+    boolean hasPendingIncrements() {
+        return pendingIncrementsNumber.sum() != 0L;
+    }
+
+    /**
+     * <p>Returns the version of custom events counts. Increments don't change it, so the counts
+     * are unchanged since the version was read only if {@link #hasPendingIncrements()} is false
+     * too.</p>
+     *
+     * @return the version of custom events counts
+     */
+    int getCountsVersion() {
+        return countsVersion.get();
+    }
+
+    /**
+     * <p>Increments the custom event count in memory without locking and allocation. Only the
+     * thread cells of striped counters are updated, the total number of unflushed increments is
+     * summed once per the flush check interval increments of the thread cell.</p>
+     *
+     * @param slot the slot returned by {@link #getSlot(String)}
+     */
+    void increment(final int slot) {
+        pendingIncrements[slot].increment();
+        final long cellValue = pendingIncrementsNumber.increment();
+        final AtomicInteger remainingCount = remainingCounts[slot];
+        int value;
+        do {
+            value = remainingCount.get();
+        } while ((value > 0) && !remainingCount.compareAndSet(value, value - 1));
+        if (value == 1) {
+            unmetRequirementsNumber.decrementAndGet();
+        }
+        if (((cellValue % flushCheckInterval) == 0L) &&
+            (pendingIncrementsNumber.sum() >= flushThreshold)) {
+            flush();
+        } else if ((flushInterval > 0L) && !isFlushScheduled.get() &&
+                   isFlushScheduled.compareAndSet(false, true)) {
+            handler.postDelayed(flushRunnable, flushInterval);
+        }
+    }
+
+    /**
+     * <p>Sets the custom event count, unflushed increments of this event are discarded.</p>
+     *
+     * @param slot the slot returned by {@link #getSlot(String)}
+     * @param eventCount the custom event count
+     */
+    void set(final int slot, final short eventCount) {
+        reloadIfStateReset();
+        synchronized (requirementsLock) {
+            synchronized (flushLock) {
+                // the count is written before readers are made to wait for the in-memory change
+                PreferenceHelper.setCustomEventCount(context, slotNames[slot], eventCount);
+                flushSequence++;
+                try {
+                    final StripedCounter pendingIncrement = pendingIncrements[slot];
+                    final long pendingIncrementValue = pendingIncrement.sum();
+                    pendingIncrement.add(-pendingIncrementValue);
+                    pendingIncrementsNumber.add(-pendingIncrementValue);
+                    storedCounts[slot] = eventCount;
+                    if (minimumCounts.containsKey(slotNames[slot])) {
+                        setRemainingCount(slot, minimumCounts.get(slotNames[slot], (short) 0),
+                                          getToday());
+                    }
+                    countsVersion.incrementAndGet();
+                } finally {
+                    flushSequence++;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Returns the custom event count including unflushed increments without allocation.</p>
+     *
+     * @param slot the slot returned by {@link #getSlot(String)}
+     * @return the custom event count
+     */
+    short getCount(final int slot) {
+        reloadIfStateReset();
+        final StripedCounter pendingIncrement = pendingIncrements[slot];
+        while (true) {
+            final int sequence = flushSequence;
+            if ((sequence & 1) == 0) {
+                final long count = storedCounts[slot] + pendingIncrement.sum();
+                if (sequence == flushSequence) {
+                    return toShort(count);
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * <p>Returns the custom event count the minimum count is compared with, including unflushed
+     * increments: the count within the window if the minimum count is windowed, the count
+     * otherwise. Call it under the flush lock, so stored counts and windows aren't changed.</p>
+     *
+     * @param slot the custom event slot
+     * @param day the number of the current day since the epoch
+     * @return the custom event count
+     */
+    private int getRequirementCount(final int slot, final int day) {
+        final EventWindow window = windows[slot];
+        return toShort(((window == null) ? storedCounts[slot] : window.getCount(day)) +
+                       pendingIncrements[slot].sum());
+    }
+
+    /**
+     * <p>Returns the consistent state snapshot with unflushed increments added to the custom events
+     * counts and with the custom events requirements status for these counts.</p>
+     *
+     * @return the snapshot with the stored state if there are no unflushed increments, with the
+     *         state with added increments otherwise
+     */
+    @NonNull
+    Snapshot getSnapshot() {
+        reloadIfStateReset();
+        recountIfDayChanged();
+        while (true) {
+            final int sequence = flushSequence;
+            if ((sequence & 1) == 0) {
+                final RateState storedState = PreferenceHelper.getState(context);
+                RateState state = storedState;
+                if (hasPendingIncrements()) {
+                    final Map<String, Short> customEventCounts =
+                            new HashMap<>(storedState.customEventCounts);
+                    final int currentSlotsNumber = slotsNumber;
+                    for (int slot = 0; slot < currentSlotsNumber; slot++) {
+                        final long pendingIncrementValue = pendingIncrements[slot].sum();
+                        if (pendingIncrementValue != 0L) {
+                            customEventCounts.put(slotNames[slot],
+                                    toShort(storedCounts[slot] + pendingIncrementValue));
+                        }
+                    }
+                    state = storedState.withCustomEventCounts(
+                            Collections.unmodifiableMap(customEventCounts));
+                }
+                final boolean isOverMinimumCounts = unmetRequirementsNumber.get() == 0;
+                if (sequence == flushSequence) {
+                    return new Snapshot(state, isOverMinimumCounts);
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /** <p>Writes all unflushed increments by a single transaction.</p> */
+    void flush() {
+        handler.removeCallbacks(flushRunnable);
+        isFlushScheduled.set(false);
+        reloadIfStateReset();
+        synchronized (flushLock) {
+            final int currentSlotsNumber = slotsNumber;
+            final long[] flushedIncrements = new long[currentSlotsNumber];
+            final int day = getToday();
+            boolean isFlushNeeded = false;
+            double engagementScore = 0.0;
+            final PreferenceHelper.Transaction transaction = edit(context);
+            for (int slot = 0; slot < currentSlotsNumber; slot++) {
+                flushedIncrements[slot] = pendingIncrements[slot].sum();
+                if (flushedIncrements[slot] != 0L) {
+                    isFlushNeeded = true;
+                    engagementScore += engagementWeights[slot] * flushedIncrements[slot];
+                    transaction.setCustomEventCount(slotNames[slot],
+                            toShort(storedCounts[slot] + flushedIncrements[slot]));
+                    if (windows[slot] != null) {
+                        transaction.setExtra(EventWindow.getExtraKey(slotNames[slot]),
+                                windows[slot].toByteArray(day, (int) flushedIncrements[slot]));
+                    }
+                }
+            }
+            if (!isFlushNeeded) {
+                return;
+            }
+            if (engagementScore != 0.0) {
+                transaction.addEngagementScore(engagementScore, engagementHalfLife);
+            }
+            // the stored state gets the flushed counts, while readers still add them as pending
+            // increments to the old stored counts, so they see the same counts until the
+            // in-memory counts are published
+            transaction.commit();
+            flushSequence++;
+            try {
+                // increments made during the flush stay pending
+                for (int slot = 0; slot < currentSlotsNumber; slot++) {
+                    if (flushedIncrements[slot] != 0L) {
+                        storedCounts[slot] =
+                                toShort(storedCounts[slot] + flushedIncrements[slot]);
+                        if (windows[slot] != null) {
+                            windows[slot].add(day, (int) flushedIncrements[slot]);
+                        }
+                        pendingIncrements[slot].add(-flushedIncrements[slot]);
+                        pendingIncrementsNumber.add(-flushedIncrements[slot]);
+                    }
+                }
+                countsVersion.incrementAndGet();
+            } finally {
+                flushSequence++;
+            }
+        }
+    }
+
+    /** <p>Discards all unflushed increments, e.g. when the library data is cleared.</p> */
+    void discard() {
+        handler.removeCallbacks(flushRunnable);
+        isFlushScheduled.set(false);
+        synchronized (flushLock) {
+            flushSequence++;
+            try {
+                final int currentSlotsNumber = slotsNumber;
+                for (int slot = 0; slot < currentSlotsNumber; slot++) {
+                    final long pendingIncrementValue = pendingIncrements[slot].sum();
+                    pendingIncrements[slot].add(-pendingIncrementValue);
+                    pendingIncrementsNumber.add(-pendingIncrementValue);
+                }
+                countsVersion.incrementAndGet();
+            } finally {
+                flushSequence++;
+            }
+        }
+        recountRemainingCounts();
+    }
+
+    /**
+     * <p>The state snapshot with the custom events requirements status, that are read
+     * together.</p>
+     */
+    static final class Snapshot {
+        /** <p>The state with unflushed increments added to the custom events counts.</p> */
+        @NonNull
+        final RateState state;
+        /** <p>True if all custom events have reached their minimum counts in the state.</p> */
+        final boolean isOverMinimumCounts;
+
+        private Snapshot(@NonNull final RateState state, final boolean isOverMinimumCounts) {
+            this.state = state;
+            this.isOverMinimumCounts = isOverMinimumCounts;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import android.widget.RatingBar;
 import android.widget.TextView;
 
 import java.lang.ref.WeakReference;
+import java.util.Date;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -36,9 +37,8 @@ import static android.view.View.VISIBLE;
 import static android.widget.LinearLayout.VERTICAL;
 import static com.vorlonsoft.android.rate.Constants.Utils.TAG;
 import static com.vorlonsoft.android.rate.DialogType.CLASSIC;
+import static com.vorlonsoft.android.rate.PreferenceHelper.edit;
 import static com.vorlonsoft.android.rate.PreferenceHelper.getDialogFirstLaunchTime;
-import static com.vorlonsoft.android.rate.PreferenceHelper.increment365DayPeriodDialogLaunchTimes;
-import static com.vorlonsoft.android.rate.PreferenceHelper.setDialogFirstLaunchTime;
 
 /**
  * <p>DefaultDialogManager Class - default dialog manager class implements {@link DialogManager}
@@ -49,7 +49,7 @@ import static com.vorlonsoft.android.rate.PreferenceHelper.setDialogFirstLaunchT
  * singleton implementation inside library, not outside (protected, not private constructor).</p>
  *
  * @since    1.0.2
- * @version  1.2.1
+ * @version  1.2.5
  * @author   Alexander Savin
  * @author   Antoine Vianey
  * @see DefaultDialogManager.Factory
@@ -83,10 +83,11 @@ public class DefaultDialogManager implements DialogManager {
                     }
                 }
             } else {
+                final PreferenceHelper.Transaction transaction = edit(context);
                 if (getDialogFirstLaunchTime(context) == 0L) {
-                    setDialogFirstLaunchTime(context);
+                    transaction.setDialogFirstLaunchTime(new Date().getTime());
                 }
-                increment365DayPeriodDialogLaunchTimes(context);
+                transaction.increment365DayPeriodDialogLaunchTimes().commit();
             }
             if (((SDK_INT >= LOLLIPOP) || (dialog instanceof androidx.appcompat.app.AlertDialog)) &&
                 ((dialogOptions.getType() == CLASSIC) ||
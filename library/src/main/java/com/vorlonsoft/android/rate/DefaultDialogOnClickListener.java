@@ -24,23 +24,8 @@ import static android.content.DialogInterface.BUTTON_POSITIVE;
 import static com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING;
 import static com.vorlonsoft.android.rate.Constants.Utils.LOG_MESSAGE_PART_1;
 import static com.vorlonsoft.android.rate.Constants.Utils.TAG;
-import static com.vorlonsoft.android.rate.IntentHelper.createIntentsForStore;
 import static com.vorlonsoft.android.rate.PreferenceHelper.setIsAgreeShowDialog;
-import static com.vorlonsoft.android.rate.PreferenceHelper.setRemindInterval;
-import static com.vorlonsoft.android.rate.PreferenceHelper.setRemindLaunchesNumber;
-import static com.vorlonsoft.android.rate.StoreType.AMAZON;
-import static com.vorlonsoft.android.rate.StoreType.APPLE;
-import static com.vorlonsoft.android.rate.StoreType.BAZAAR;
-import static com.vorlonsoft.android.rate.StoreType.BLACKBERRY;
-import static com.vorlonsoft.android.rate.StoreType.CHINESESTORES;
-import static com.vorlonsoft.android.rate.StoreType.GOOGLEPLAY;
-import static com.vorlonsoft.android.rate.StoreType.INTENT;
-import static com.vorlonsoft.android.rate.StoreType.MI;
-import static com.vorlonsoft.android.rate.StoreType.OTHER;
-import static com.vorlonsoft.android.rate.StoreType.SAMSUNG;
-import static com.vorlonsoft.android.rate.StoreType.SLIDEME;
-import static com.vorlonsoft.android.rate.StoreType.TENCENT;
-import static com.vorlonsoft.android.rate.StoreType.YANDEX;
+import static com.vorlonsoft.android.rate.PreferenceHelper.setRemindButtonClick;
 
 /**
  * <p>DefaultDialogOnClickListener Class - the default Rate Dialog buttons on-click listener class
@@ -165,11 +150,19 @@ final class DefaultDialogOnClickListener implements View.OnClickListener,
         }
     }
 
-    /** <p>Calls when a positive button on the Rate Dialog is clicked.</p> */
+    /**
+     * <p>Calls when a positive button on the Rate Dialog is clicked.</p>
+     * <p>The intents are usually resolved in the background beforehand, so the first of them is
+     * launchable, the others are fallbacks in case the app store was removed since then. Launch
+     * outcomes are reported to {@link StoreIntentsResolver}, so the intent, that is launched, is
+     * tried first next time.</p>
+     */
     private void onPositiveButtonClick() {
         final String packageName = AppInformation.getPackageName(context);
         if (packageName.hashCode() != EMPTY_STRING.hashCode()) {
-            final Intent[] intentsToAppStores = getIntentsForStores(packageName);
+            final StoreIntentsResolver storeIntentsResolver =
+                    StoreIntentsResolver.getInstance(context);
+            final Intent[] intentsToAppStores = storeIntentsResolver.getIntents(storeOptions);
             try {
                 if (intentsToAppStores.length == 0) {
                     Log.w(TAG, LOG_MESSAGE_PART_1 + "no intent found for startActivity " +
@@ -179,10 +172,14 @@ final class DefaultDialogOnClickListener implements View.OnClickListener,
                                                  " startActivity (intentsToAppStores[0] == null).");
                 } else {
                     context.startActivity(intentsToAppStores[0]);
+                    storeIntentsResolver.setLaunchResult(intentsToAppStores[0], true);
                 }
             } catch (ActivityNotFoundException e) {
                 Log.w(TAG, LOG_MESSAGE_PART_1 + "no activity found for " + intentsToAppStores[0]
                          , e);
+                if (intentsToAppStores[0] != null) {
+                    storeIntentsResolver.setLaunchResult(intentsToAppStores[0], false);
+                }
                 final byte intentsToAppStoresNumber = (byte) intentsToAppStores.length;
                 if (intentsToAppStoresNumber > 1) {
                     boolean isCatch;
@@ -194,11 +191,15 @@ final class DefaultDialogOnClickListener implements View.OnClickListener,
                                                                                  b + "] == null).");
                             } else {
                                 context.startActivity(intentsToAppStores[b]);
+                                storeIntentsResolver.setLaunchResult(intentsToAppStores[b], true);
                             }
                             isCatch = false;
                         } catch (ActivityNotFoundException ex) {
                             Log.w(TAG, LOG_MESSAGE_PART_1 + "no activity found for " +
                                                                          intentsToAppStores[b], ex);
+                            if (intentsToAppStores[b] != null) {
+                                storeIntentsResolver.setLaunchResult(intentsToAppStores[b], false);
+                            }
                             isCatch = true;
                         }
                         if (!isCatch) {
@@ -220,44 +221,6 @@ final class DefaultDialogOnClickListener implements View.OnClickListener,
 
     /** <p>Calls when a neutral button on the Rate Dialog is clicked.</p> */
     private void onNeutralButtonClick() {
-        setRemindInterval(context);
-        setRemindLaunchesNumber(context);
-    }
-
-    /**
-     * <p>Creates intents for stores.</p>
-     *
-     * @param packageName package name
-     * @return intents for stores
-     */
-    @NonNull
-    private Intent[] getIntentsForStores(@NonNull final String packageName) {
-        switch (storeOptions.getStoreType()) {
-            case AMAZON:
-                return createIntentsForStore(context, AMAZON, packageName);
-            case APPLE:
-                return createIntentsForStore(context, APPLE, storeOptions.getApplicationId());
-            case BAZAAR:
-                return createIntentsForStore(context, BAZAAR, packageName);
-            case BLACKBERRY:
-                return createIntentsForStore(context, BLACKBERRY, storeOptions.getApplicationId());
-            case CHINESESTORES:
-                return createIntentsForStore(context, CHINESESTORES, packageName);
-            case MI:
-                return createIntentsForStore(context, MI, packageName);
-            case SAMSUNG:
-                return createIntentsForStore(context, SAMSUNG, packageName);
-            case SLIDEME:
-                return createIntentsForStore(context, SLIDEME, packageName);
-            case TENCENT:
-                return createIntentsForStore(context, TENCENT, packageName);
-            case YANDEX:
-                return createIntentsForStore(context, YANDEX, packageName);
-            case INTENT:
-            case OTHER:
-                return storeOptions.getIntents();
-            default:
-                return createIntentsForStore(context, GOOGLEPLAY, packageName);
-        }
+        setRemindButtonClick(context);
     }
 }
\ No newline at end of file
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.vorlonsoft.android.rate.Constants.Date.YEAR_IN_DAYS;
+
+/**
+ * <p>DialogLaunchHistory Class - the 365-day period Rate Dialog launch history class of the
+ * AndroidRate library.</p>
+ * <p>History is a fixed-size ring of {@link Constants.Date#YEAR_IN_DAYS} cumulative day counts:
+ * the number of Rate Dialog launches up to and including the day. Day numbers are counted from
+ * the first Rate Dialog launch time. The ring is advanced only when a launch is counted on a later
+ * day, every day expires once, so {@link #increment(int)} is amortized O(1) and any period count is
+ * the difference of two cumulative counts, O(1). Nothing is allocated after the history is
+ * created.</p>
+ * <p>There is one history object per loaded state. It is changed only by
+ * {@link PreferenceHelper.Transaction#commit()} under the state lock, every method is synchronized
+ * on the history, so queries see the whole change and never wait for the storage I/O of the
+ * commit.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class DialogLaunchHistory {
+    /** <p>The binary format version of {@link #toByteArray()}.</p> */
+    private static final byte FORMAT_VERSION = 1;
+    /** <p>The binary format length of {@link #toByteArray()}.</p> */
+    private static final int FORMAT_LENGTH = 1 + 4 + (2 * YEAR_IN_DAYS);
+    /**
+     * <p>The cumulative counts, the count up to and including the day N is stored in
+     * {@code cumulativeCounts[N mod 365]} for the last 365 days.</p>
+     */
+    private final int[] cumulativeCounts = new int[YEAR_IN_DAYS];
+    /** <p>The number of the last day, that was written to the history.</p> */
+    private int lastDay = 0;
+    /** <p>The cumulative count up to and including the day {@code lastDay - 365}.</p> */
+    private int baseCount = 0;
+
+    /** <p>Creates the empty history.</p> */
+    DialogLaunchHistory() {
+    }
+
+    private static int getIndex(final int day) {
+        return ((day % YEAR_IN_DAYS) + YEAR_IN_DAYS) % YEAR_IN_DAYS;
+    }
+
+    /**
+     * <p>Returns the number of Rate Dialog launches up to and including the day {@code day}.</p>
+     *
+     * @param day the number of the day since the first Rate Dialog launch time
+     * @return the cumulative count
+     */
+    private int getCumulativeCount(final int day) {
+        if (day >= lastDay) {
+            return cumulativeCounts[getIndex(lastDay)];
+        } else if (day <= lastDay - YEAR_IN_DAYS) {
+            return baseCount;
+        }
+        return cumulativeCounts[getIndex(day)];
+    }
+
+    /**
+     * <p>Moves the last day to the day {@code day}, the days leaving the 365-day period are
+     * expired once.</p>
+     *
+     * @param day the new last day, it is greater than the last day
+     */
+    private void advance(final int day) {
+        final int count = cumulativeCounts[getIndex(lastDay)];
+        if (day - lastDay >= YEAR_IN_DAYS) {
+            Arrays.fill(cumulativeCounts, count);
+            baseCount = count;
+        } else {
+            for (int d = lastDay + 1; d <= day; d++) {
+                final int index = getIndex(d);
+                // the element of the day d holds the count of the day d - 365 until now
+                baseCount = cumulativeCounts[index];
+                cumulativeCounts[index] = count;
+            }
+        }
+        lastDay = day;
+    }
+
+    /** <p>Clears the history.</p> */
+    synchronized void clear() {
+        Arrays.fill(cumulativeCounts, 0);
+        lastDay = 0;
+        baseCount = 0;
+    }
+
+    /**
+     * <p>Increments the counter of the day {@code day} by one.</p>
+     *
+     * @param day the number of the day since the first Rate Dialog launch time
+     */
+    synchronized void increment(final int day) {
+        final int launchDay = Math.max(day, 0);
+        if (launchDay > lastDay) {
+            advance(launchDay);
+        } else if (lastDay - launchDay >= YEAR_IN_DAYS) {
+            return;
+        }
+        if (getCumulativeCount(launchDay) - getCumulativeCount(launchDay - 1) < Short.MAX_VALUE) {
+            // the later days are counted only if the clock has been moved back
+            for (int d = launchDay; d <= lastDay; d++) {
+                cumulativeCounts[getIndex(d)]++;
+            }
+        }
+    }
+
+    /**
+     * <p>Returns the number of Rate Dialog launches within the 365-day period ending with the day
+     * {@code day}.</p>
+     *
+     * @param day the number of the day since the first Rate Dialog launch time
+     * @return the number of Rate Dialog launches within the 365-day period
+     */
+    int getCount(final int day) {
+        return getCount(day, YEAR_IN_DAYS);
+    }
+
+    /**
+     * <p>Returns the number of Rate Dialog launches within the {@code days}-day period ending with
+     * the day {@code day}.</p>
+     *
+     * @param day the number of the day since the first Rate Dialog launch time
+     * @param days the period length in days from 1 to {@link Constants.Date#YEAR_IN_DAYS}
+     * @return the number of Rate Dialog launches within the period
+     */
+    synchronized int getCount(final int day, final int days) {
+        return getCumulativeCount(day) - getCumulativeCount(day - Math.min(days, YEAR_IN_DAYS));
+    }
+
+    /**
+     * <p>Returns the first day not earlier than the day {@code day}, when the number of Rate
+     * Dialog launches within the {@code days}-day period is below {@code maxCount}, if there are
+     * no new launches.</p>
+     * <p>The period count doesn't increase after the last day, so the day is found by the binary
+     * search.</p>
+     *
+     * @param day the number of the day since the first Rate Dialog launch time
+     * @param maxCount the max number of Rate Dialog launches within the period
+     * @param days the period length in days from 1 to {@link Constants.Date#YEAR_IN_DAYS}
+     * @return the number of the day, -1 if {@code maxCount} isn't positive
+     */
+    synchronized int getFirstDayBelow(final int day, final int maxCount, final int days) {
+        if (maxCount <= 0) {
+            return -1;
+        }
+        int belowDay = day;
+        // the days before the last day are checked only if the clock has been moved back
+        while ((belowDay < lastDay) && (getCount(belowDay, days) >= maxCount)) {
+            belowDay++;
+        }
+        if (getCount(belowDay, days) < maxCount) {
+            return belowDay;
+        }
+        // the count is 0 when the whole period is after the last day
+        int aboveDay = belowDay;
+        belowDay = lastDay + Math.min(days, YEAR_IN_DAYS);
+        while (belowDay - aboveDay > 1) {
+            final int middleDay = (aboveDay + belowDay) >>> 1;
+            if (getCount(middleDay, days) >= maxCount) {
+                aboveDay = middleDay;
+            } else {
+                belowDay = middleDay;
+            }
+        }
+        return belowDay;
+    }
+
+    /**
+     * <p>Returns the first day not earlier than the day {@code day}, when the number of Rate
+     * Dialog launches within the 365-day period is below {@code maxCount}, if there are no new
+     * launches.</p>
+     *
+     * @param day the number of the day since the first Rate Dialog launch time
+     * @param maxCount the max number of Rate Dialog launches within the 365-day period
+     * @return the number of the day, -1 if {@code maxCount} isn't positive
+     */
+    int getFirstDayBelow(final int day, final int maxCount) {
+        return getFirstDayBelow(day, maxCount, YEAR_IN_DAYS);
+    }
+
+    /**
+     * <p>Serializes the history: the format version byte, the last day int and 365 day counters
+     * shorts, big-endian.</p>
+     *
+     * @return the serialized history
+     */
+    @NonNull
+    synchronized byte[] toByteArray() {
+        final byte[] bytes = new byte[FORMAT_LENGTH];
+        bytes[0] = FORMAT_VERSION;
+        bytes[1] = (byte) (lastDay >>> 24);
+        bytes[2] = (byte) (lastDay >>> 16);
+        bytes[3] = (byte) (lastDay >>> 8);
+        bytes[4] = (byte) lastDay;
+        for (int d = lastDay - YEAR_IN_DAYS + 1; d <= lastDay; d++) {
+            final int count = getCumulativeCount(d) - getCumulativeCount(d - 1);
+            final int offset = 5 + (2 * getIndex(d));
+            bytes[offset] = (byte) (count >>> 8);
+            bytes[offset + 1] = (byte) count;
+        }
+        return bytes;
+    }
+
+    /**
+     * <p>Deserializes the history serialized by {@link #toByteArray()}.</p>
+     *
+     * @param bytes the serialized history
+     * @return the history, the empty history if {@code bytes} are null or corrupted
+     */
+    @NonNull
+    static DialogLaunchHistory fromByteArray(@Nullable final byte[] bytes) {
+        final DialogLaunchHistory history = new DialogLaunchHistory();
+        if ((bytes == null) || (bytes.length != FORMAT_LENGTH) || (bytes[0] != FORMAT_VERSION)) {
+            return history;
+        }
+        final int lastDay = ((bytes[1] & 0xFF) << 24) | ((bytes[2] & 0xFF) << 16) |
+                            ((bytes[3] & 0xFF) << 8) | (bytes[4] & 0xFF);
+        final short[] dayCounts = new short[YEAR_IN_DAYS];
+        for (int i = 0, offset = 5; i < YEAR_IN_DAYS; i++, offset += 2) {
+            dayCounts[i] = (short) (((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF));
+        }
+        history.set(dayCounts, lastDay);
+        return history;
+    }
+
+    /**
+     * <p>Sets the history from the day counters ring.</p>
+     *
+     * @param dayCounts the day counters, the counter of the day N is {@code dayCounts[N mod 365]}
+     * @param lastDay the number of the last day of the ring
+     */
+    private void set(@NonNull final short[] dayCounts, final int lastDay) {
+        this.lastDay = lastDay;
+        baseCount = 0;
+        int count = 0;
+        for (int d = lastDay - YEAR_IN_DAYS + 1; d <= lastDay; d++) {
+            count += Math.max(dayCounts[getIndex(d)], 0);
+            cumulativeCounts[getIndex(d)] = count;
+        }
+    }
+
+    /**
+     * <p>Converts the legacy {@code ":day y year - count:"} history string to the history.</p>
+     * <p>Entries older than the 365-day period ending with the day {@code currentDay} are
+     * dropped.</p>
+     *
+     * @param legacyHistory the legacy history string
+     * @param currentDay the number of the current day since the first Rate Dialog launch time
+     * @return the history
+     */
+    @NonNull
+    static DialogLaunchHistory fromLegacyString(@Nullable final String legacyHistory,
+                                                final int currentDay) {
+        final DialogLaunchHistory history = new DialogLaunchHistory();
+        if (legacyHistory == null) {
+            return history;
+        }
+        final short[] buckets = new short[YEAR_IN_DAYS];
+        final int length = legacyHistory.length();
+        int position = 0;
+        while (position < length) {
+            // ":" day "y" year "-" count
+            final int dayEnd = legacyHistory.indexOf('y', position + 1);
+            final int yearEnd = (dayEnd < 0) ? -1 : legacyHistory.indexOf('-', dayEnd + 1);
+            final int countEnd = (yearEnd < 0) ? -1 : legacyHistory.indexOf(':', yearEnd + 1);
+            if (countEnd < 0) {
+                break;
+            }
+            final int day = parseNonNegativeInt(legacyHistory, position + 1, dayEnd);
+            final int year = parseNonNegativeInt(legacyHistory, dayEnd + 1, yearEnd);
+            final int count = parseNonNegativeInt(legacyHistory, yearEnd + 1, countEnd);
+            if ((day >= 0) && (year >= 0) && (count > 0)) {
+                final int absoluteDay = (year * YEAR_IN_DAYS) + day;
+                if ((absoluteDay <= currentDay) && (currentDay - absoluteDay < YEAR_IN_DAYS)) {
+                    final int index = absoluteDay % YEAR_IN_DAYS;
+                    buckets[index] = (short) Math.min(buckets[index] + count, Short.MAX_VALUE);
+                }
+            }
+            position = countEnd;
+        }
+        history.set(buckets, Math.max(currentDay, 0));
+        return history;
+    }
+
+    /**
+     * <p>Parses the non-negative decimal integer without allocations.</p>
+     *
+     * @param string the string
+     * @param start the start index, inclusive
+     * @param end the end index, exclusive
+     * @return the parsed integer or -1 if the substring isn't a non-negative decimal integer
+     */
+    private static int parseNonNegativeInt(@NonNull final String string, final int start,
+                                           final int end) {
+        if ((start >= end) || (end - start > 9)) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            final char c = string.charAt(i);
+            if ((c < '0') || (c > '9')) {
+                return -1;
+            }
+            result = (result * 10) + (c - '0');
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>EligibilityRecord Class - the precomputed Rate Dialog eligibility class of the AndroidRate
+ * library.</p>
+ * <p>The record is computed when the app goes to the background and is kept in the
+ * {@link RateStore} extra {@link #EXTRA_KEY}. It says that at the given number of app launches and
+ * with the given Rate Dialog conditions options the conditions are met at or after the given time,
+ * so the next app launch checks the conditions by a single time comparison. The record is removed
+ * by {@link PreferenceHelper.Transaction#commit()} when any other condition input changes.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class EligibilityRecord {
+    /** <p>The {@link RateStore} extra key.</p> */
+    static final String EXTRA_KEY = "eligibility";
+    /** <p>The {@link #eligibleAt} value, that means the conditions are never met.</p> */
+    static final long NEVER = Long.MAX_VALUE;
+    /** <p>The binary format version of {@link #toByteArray()}.</p> */
+    private static final byte FORMAT_VERSION = 1;
+    /** <p>The binary format length of {@link #toByteArray()}.</p> */
+    private static final int FORMAT_LENGTH = 1 + 8 + 2 + 8;
+    /** <p>The hash of the Rate Dialog conditions options the record is computed with.</p> */
+    final long conditionsHash;
+    /** <p>The number of app launches the record is computed for.</p> */
+    final short launchTimes;
+    /** <p>The time the conditions are met at or after, {@link #NEVER} if they are never met.</p> */
+    final long eligibleAt;
+
+    EligibilityRecord(final long conditionsHash, final short launchTimes, final long eligibleAt) {
+        this.conditionsHash = conditionsHash;
+        this.launchTimes = launchTimes;
+        this.eligibleAt = eligibleAt;
+    }
+
+    /**
+     * <p>Serializes the record: the format version byte, the conditions hash long, the launch
+     * times short and the eligible at long, big-endian.</p>
+     *
+     * @return the serialized record
+     */
+    @NonNull
+    byte[] toByteArray() {
+        final byte[] bytes = new byte[FORMAT_LENGTH];
+        bytes[0] = FORMAT_VERSION;
+        putLong(bytes, 1, conditionsHash);
+        bytes[9] = (byte) (launchTimes >>> 8);
+        bytes[10] = (byte) launchTimes;
+        putLong(bytes, 11, eligibleAt);
+        return bytes;
+    }
+
+    /**
+     * <p>Deserializes the record serialized by {@link #toByteArray()}.</p>
+     *
+     * @param bytes the serialized record
+     * @return the record or null if {@code bytes} are null or corrupted
+     */
+    @Nullable
+    static EligibilityRecord fromByteArray(@Nullable final byte[] bytes) {
+        if ((bytes == null) || (bytes.length != FORMAT_LENGTH) || (bytes[0] != FORMAT_VERSION)) {
+            return null;
+        }
+        return new EligibilityRecord(getLong(bytes, 1),
+                (short) (((bytes[9] & 0xFF) << 8) | (bytes[10] & 0xFF)), getLong(bytes, 11));
+    }
+
+    private static void putLong(@NonNull final byte[] bytes, final int offset, final long value) {
+        for (int i = 0; i < 8; i++) {
+            bytes[offset + i] = (byte) (value >>> (56 - (8 * i)));
+        }
+    }
+
+    private static long getLong(@NonNull final byte[] bytes, final int offset) {
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+}
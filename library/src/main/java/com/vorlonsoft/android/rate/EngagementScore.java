@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>EngagementScore Class - the exponentially decayed engagement score class of the AndroidRate
+ * library.</p>
+ * <p>The score is the sum of weights of app launches and custom events, every weight is halved
+ * every half-life since it was added. Only the value at the last update time is kept, so the
+ * memory and the update time are constant no matter how many events are added. Objects of this
+ * class are immutable, {@link #add(long, long, double)} returns a new score. The score is kept in
+ * the {@link RateStore} extra {@link #EXTRA_KEY}.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class EngagementScore {
+    /** <p>The {@link RateStore} extra key.</p> */
+    static final String EXTRA_KEY = "engagement_score";
+    /** <p>The binary format version of {@link #toByteArray()}.</p> */
+    private static final byte FORMAT_VERSION = 1;
+    /** <p>The binary format length of {@link #toByteArray()}.</p> */
+    private static final int FORMAT_LENGTH = 1 + 8 + 8;
+    /** <p>The zero score.</p> */
+    static final EngagementScore ZERO = new EngagementScore(0.0, 0L);
+    /** <p>The value at {@link #lastUpdate}.</p> */
+    private final double value;
+    /** <p>The time of the last update.</p> */
+    private final long lastUpdate;
+
+    private EngagementScore(final double value, final long lastUpdate) {
+        this.value = value;
+        this.lastUpdate = lastUpdate;
+    }
+
+    /**
+     * <p>Returns the score value at the time.</p>
+     *
+     * @param time the time, the value isn't decayed for times before the last update
+     * @param halfLife the half-life in milliseconds, 0 means no decay
+     * @return the score value
+     */
+    double getValue(final long time, final long halfLife) {
+        if ((halfLife <= 0L) || (time <= lastUpdate) || (value == 0.0)) {
+            return value;
+        }
+        return value * Math.pow(0.5, (double) (time - lastUpdate) / halfLife);
+    }
+
+    /**
+     * <p>Returns the score with the weight added at the time.</p>
+     *
+     * @param time the time
+     * @param halfLife the half-life in milliseconds, 0 means no decay
+     * @param weight the weight
+     * @return the new score
+     */
+    @NonNull
+    EngagementScore add(final long time, final long halfLife, final double weight) {
+        return new EngagementScore(getValue(time, halfLife) + weight, Math.max(time, lastUpdate));
+    }
+
+    /**
+     * <p>Returns the time the score decays below the threshold at, if nothing is added.</p>
+     *
+     * @param threshold the threshold, positive
+     * @param halfLife the half-life in milliseconds, 0 means no decay
+     * @return the time, {@code Long.MAX_VALUE} if the score never decays below the threshold, the
+     *         last update time if the score is already below it
+     */
+    long getTimeBelow(final double threshold, final long halfLife) {
+        if (value < threshold) {
+            return lastUpdate;
+        }
+        if (halfLife <= 0L) {
+            return Long.MAX_VALUE;
+        }
+        // value * 0.5 ^ (t / halfLife) < threshold
+        final double delay = Math.floor(halfLife * (Math.log(value / threshold) / Math.log(2.0)));
+        return (delay >= Long.MAX_VALUE - lastUpdate) ? Long.MAX_VALUE :
+                lastUpdate + (long) delay + 1L;
+    }
+
+    /**
+     * <p>Serializes the score: the format version byte, the value double and the last update
+     * time long, big-endian.</p>
+     *
+     * @return the serialized score
+     */
+    @NonNull
+    byte[] toByteArray() {
+        final byte[] bytes = new byte[FORMAT_LENGTH];
+        bytes[0] = FORMAT_VERSION;
+        final long valueBits = Double.doubleToLongBits(value);
+        for (int shift = 56, offset = 1; shift >= 0; shift -= 8, offset++) {
+            bytes[offset] = (byte) (valueBits >>> shift);
+            bytes[offset + 8] = (byte) (lastUpdate >>> shift);
+        }
+        return bytes;
+    }
+
+    /**
+     * <p>Deserializes the score serialized by {@link #toByteArray()}.</p>
+     *
+     * @param bytes the serialized score
+     * @return the score or {@link #ZERO} if {@code bytes} are null or corrupted
+     */
+    @NonNull
+    static EngagementScore fromByteArray(@Nullable final byte[] bytes) {
+        if ((bytes == null) || (bytes.length != FORMAT_LENGTH) || (bytes[0] != FORMAT_VERSION)) {
+            return ZERO;
+        }
+        long valueBits = 0L;
+        long lastUpdate = 0L;
+        for (int offset = 1; offset <= 8; offset++) {
+            valueBits = (valueBits << 8) | (bytes[offset] & 0xFFL);
+            lastUpdate = (lastUpdate << 8) | (bytes[offset + 8] & 0xFFL);
+        }
+        final double value = Double.longBitsToDouble(valueBits);
+        return (Double.isNaN(value) || Double.isInfinite(value)) ? ZERO :
+                new EngagementScore(value, lastUpdate);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.vorlonsoft.android.rate.Constants.Date.YEAR_IN_DAYS;
+
+/**
+ * <p>EventWindow Class - the sliding window custom event counts class of the AndroidRate
+ * library.</p>
+ * <p>The window is a fixed-size ring buffer of day counters plus a running total, its size is
+ * the window length from 1 to {@link Constants.Date#YEAR_IN_DAYS} days, so the memory is bounded
+ * per custom event. Day numbers are counted from the epoch. The ring is advanced in place to the
+ * newest day and the total is kept up to date, so {@link #add(int, int)} and
+ * {@link #getCount(int)} are amortized O(1): every day counter is expired once per window length.
+ * The window is kept in the {@link RateStore} extra {@link #getExtraKey(String)}, it is serialized
+ * only when it is written.</p>
+ * <p>Objects of this class aren't thread-safe, {@link CustomEventCounters} guards them by its
+ * flush lock.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see DialogLaunchHistory
+ */
+final class EventWindow {
+    /** <p>The binary format version of {@link #toByteArray()}.</p> */
+    private static final byte FORMAT_VERSION = 1;
+    /** <p>The {@link RateStore} extra key prefix.</p> */
+    private static final String EXTRA_KEY_PREFIX = "event_window_";
+    /** <p>The day counters, the counter of the day N is stored in {@code buckets[N % days]}.</p> */
+    private final short[] buckets;
+    /** <p>The number of the newest day of the window.</p> */
+    private int lastDay;
+    /** <p>The sum of all day counters.</p> */
+    private int total;
+
+    private EventWindow(@NonNull final short[] buckets, final int lastDay, final int total) {
+        this.buckets = buckets;
+        this.lastDay = lastDay;
+        this.total = total;
+    }
+
+    /**
+     * <p>Returns the empty window.</p>
+     *
+     * @param days the window length in days from 1 to {@link Constants.Date#YEAR_IN_DAYS}
+     * @return the empty window
+     */
+    @NonNull
+    static EventWindow empty(final int days) {
+        return new EventWindow(new short[days], 0, 0);
+    }
+
+    /**
+     * <p>Returns the {@link RateStore} extra key of the custom event window.</p>
+     *
+     * @param eventName the custom event name
+     * @return the extra key
+     */
+    @NonNull
+    static String getExtraKey(@NonNull final String eventName) {
+        return EXTRA_KEY_PREFIX + eventName;
+    }
+
+    /**
+     * <p>Returns the number of the day of the time.</p>
+     *
+     * @param time the time
+     * @return the number of the day since the epoch
+     */
+    static int getDay(final long time) {
+        return (int) (time / Time.DAY);
+    }
+
+    /**
+     * <p>Returns the window length.</p>
+     *
+     * @return the window length in days
+     */
+    int getDays() {
+        return buckets.length;
+    }
+
+    /**
+     * <p>Advances the window to the day {@code day}, the counters of the days, that leave the
+     * window, are subtracted from the total and are cleared.</p>
+     *
+     * @param day the number of the day since the epoch
+     */
+    private void advance(final int day) {
+        if (day <= lastDay) {
+            return;
+        }
+        final int days = buckets.length;
+        if ((long) day - lastDay >= days) {
+            Arrays.fill(buckets, (short) 0);
+            total = 0;
+        } else {
+            for (int d = lastDay + 1; d <= day; d++) {
+                total -= buckets[d % days];
+                buckets[d % days] = 0;
+            }
+        }
+        lastDay = day;
+    }
+
+    /**
+     * <p>Increases the counter of the day {@code day} by {@code count}.</p>
+     *
+     * @param day the number of the day since the epoch
+     * @param count the number of custom events
+     */
+    void add(final int day, final int count) {
+        advance(day);
+        final int days = buckets.length;
+        if ((lastDay - day < days) && (day >= 0)) {
+            final int index = day % days;
+            final int newCount = Math.min(buckets[index] + count, Short.MAX_VALUE);
+            total += newCount - buckets[index];
+            buckets[index] = (short) newCount;
+        }
+    }
+
+    /**
+     * <p>Returns the number of custom events within the window ending with the day
+     * {@code day}.</p>
+     *
+     * @param day the number of the day since the epoch
+     * @return the number of custom events within the window
+     */
+    int getCount(final int day) {
+        advance(day);
+        return total;
+    }
+
+    /**
+     * <p>Serializes the window with the counter of the day {@code day} increased by
+     * {@code count}, the window isn't changed, so it can be changed by {@link #add(int, int)}
+     * after the serialized window is written.</p>
+     *
+     * @param day the number of the day since the epoch
+     * @param count the number of custom events
+     * @return the serialized window
+     */
+    @NonNull
+    byte[] toByteArray(final int day, final int count) {
+        final EventWindow window = new EventWindow(buckets.clone(), lastDay, total);
+        window.add(day, count);
+        return window.toByteArray();
+    }
+
+    /**
+     * <p>Serializes the window: the format version byte, the window length short, the last day
+     * int and day counters shorts, big-endian.</p>
+     *
+     * @return the serialized window
+     */
+    @NonNull
+    byte[] toByteArray() {
+        final int days = buckets.length;
+        final byte[] bytes = new byte[1 + 2 + 4 + (2 * days)];
+        bytes[0] = FORMAT_VERSION;
+        bytes[1] = (byte) (days >>> 8);
+        bytes[2] = (byte) days;
+        bytes[3] = (byte) (lastDay >>> 24);
+        bytes[4] = (byte) (lastDay >>> 16);
+        bytes[5] = (byte) (lastDay >>> 8);
+        bytes[6] = (byte) lastDay;
+        for (int i = 0, offset = 7; i < days; i++, offset += 2) {
+            bytes[offset] = (byte) (buckets[i] >>> 8);
+            bytes[offset + 1] = (byte) buckets[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * <p>Deserializes the window serialized by {@link #toByteArray()}.</p>
+     * <p>If the stored window length differs from {@code days}, the newest days, that fit, are
+     * kept.</p>
+     *
+     * @param bytes the serialized window
+     * @param days the window length in days from 1 to {@link Constants.Date#YEAR_IN_DAYS}
+     * @return the window or the empty window if {@code bytes} are null or corrupted
+     */
+    @NonNull
+    static EventWindow fromByteArray(@Nullable final byte[] bytes, final int days) {
+        if ((bytes == null) || (bytes.length < 7) || (bytes[0] != FORMAT_VERSION)) {
+            return empty(days);
+        }
+        final int storedDays = ((bytes[1] & 0xFF) << 8) | (bytes[2] & 0xFF);
+        if ((storedDays < 1) || (storedDays > YEAR_IN_DAYS) ||
+            (bytes.length != 7 + (2 * storedDays))) {
+            return empty(days);
+        }
+        final int lastDay = ((bytes[3] & 0xFF) << 24) | ((bytes[4] & 0xFF) << 16) |
+                            ((bytes[5] & 0xFF) << 8) | (bytes[6] & 0xFF);
+        final short[] buckets = new short[days];
+        int total = 0;
+        for (int d = lastDay - Math.min(storedDays, days) + 1; d <= lastDay; d++) {
+            if (d >= 0) {
+                final int offset = 7 + (2 * (d % storedDays));
+                buckets[d % days] =
+                        (short) (((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF));
+                total += buckets[d % days];
+            }
+        }
+        return new EventWindow(buckets, lastDay, total);
+    }
+}
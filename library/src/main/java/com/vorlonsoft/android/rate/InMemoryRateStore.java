@@ -0,0 +1,292 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING;
+
+/**
+ * <p>InMemoryRateStore Class - the in-memory {@link RateStore} implementation of the AndroidRate
+ * library.</p>
+ * <p>The store keeps the library state in memory only, it never touches the disk and doesn't
+ * depend on the Android runtime, so it is useful for benchmarks, simulations and tests. The store
+ * is thread-safe.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see RateStore
+ * @see SharedPreferencesRateStore
+ */
+@SuppressWarnings("WeakerAccess")
+public final class InMemoryRateStore implements RateStore {
+    private long dialogFirstLaunchTime = 0L;
+    private long installDate = 0L;
+    private boolean isAgreeShowDialog = true;
+    private int launchTimes = 0;
+    private long remindInterval = 0L;
+    private int remindLaunchesNumber = 0;
+    private long versionCode = 0L;
+    @NonNull
+    private String versionName = EMPTY_STRING;
+    @NonNull
+    private final Map<String, Integer> customEventCounts = new HashMap<>();
+    @Nullable
+    private byte[] dialogLaunchHistory = null;
+    @NonNull
+    private final Map<String, byte[]> extras = new HashMap<>();
+
+    /** <p>Creates the empty {@link InMemoryRateStore} object.</p> */
+    public InMemoryRateStore() {
+    }
+
+    @Override
+    public synchronized long getDialogFirstLaunchTime() {
+        return dialogFirstLaunchTime;
+    }
+
+    @Override
+    public synchronized long getInstallDate() {
+        return installDate;
+    }
+
+    @Override
+    public synchronized boolean isAgreeShowDialog() {
+        return isAgreeShowDialog;
+    }
+
+    @Override
+    public synchronized int getLaunchTimes() {
+        return launchTimes;
+    }
+
+    @Override
+    public synchronized long getRemindInterval() {
+        return remindInterval;
+    }
+
+    @Override
+    public synchronized int getRemindLaunchesNumber() {
+        return remindLaunchesNumber;
+    }
+
+    @Override
+    public synchronized long getVersionCode() {
+        return versionCode;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String getVersionName() {
+        return versionName;
+    }
+
+    @NonNull
+    @Override
+    public synchronized Map<String, Integer> getCustomEventCounts() {
+        return new HashMap<>(customEventCounts);
+    }
+
+    @Nullable
+    @Override
+    public synchronized byte[] getDialogLaunchHistory() {
+        return (dialogLaunchHistory == null) ? null : dialogLaunchHistory.clone();
+    }
+
+    @NonNull
+    @Override
+    public synchronized Map<String, byte[]> getExtras() {
+        final Map<String, byte[]> extrasCopy = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : extras.entrySet()) {
+            extrasCopy.put(entry.getKey(), entry.getValue().clone());
+        }
+        return extrasCopy;
+    }
+
+    @NonNull
+    @Override
+    public RateStore.Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * <p>InMemoryRateStore.Editor Class - the {@link RateStore.Editor} implementation of the
+     * {@link InMemoryRateStore}.</p>
+     * <p>Changes are collected in the editor and are copied to the store atomically by
+     * {@link #apply()}.</p>
+     *
+     * @since    1.2.5
+     * @version  1.2.5
+     * @author   Alexander Savin
+     */
+    private static final class Editor implements RateStore.Editor {
+        private final InMemoryRateStore store;
+        private boolean isClear = false;
+        private Long dialogFirstLaunchTime = null;
+        private Long installDate = null;
+        private Boolean isAgreeShowDialog = null;
+        private Integer launchTimes = null;
+        private Long remindInterval = null;
+        private Integer remindLaunchesNumber = null;
+        private Long versionCode = null;
+        private String versionName = null;
+        private final Map<String, Integer> customEventCounts = new HashMap<>();
+        private boolean isDialogLaunchHistoryChanged = false;
+        private byte[] dialogLaunchHistory = null;
+        private final Map<String, byte[]> extras = new HashMap<>();
+
+        private Editor(@NonNull final InMemoryRateStore store) {
+            this.store = store;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setDialogFirstLaunchTime(final long dialogFirstLaunchTime) {
+            this.dialogFirstLaunchTime = dialogFirstLaunchTime;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setInstallDate(final long installDate) {
+            this.installDate = installDate;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setAgreeShowDialog(final boolean isAgreeShowDialog) {
+            this.isAgreeShowDialog = isAgreeShowDialog;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setLaunchTimes(final int launchTimes) {
+            this.launchTimes = launchTimes;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setRemindInterval(final long remindInterval) {
+            this.remindInterval = remindInterval;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setRemindLaunchesNumber(final int remindLaunchesNumber) {
+            this.remindLaunchesNumber = remindLaunchesNumber;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setVersionCode(final long versionCode) {
+            this.versionCode = versionCode;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setVersionName(@NonNull final String versionName) {
+            this.versionName = versionName;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setCustomEventCount(@NonNull final String eventName,
+                                                    final int eventCount) {
+            customEventCounts.put(eventName, eventCount);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setDialogLaunchHistory(@Nullable final byte[] dialogLaunchHistory) {
+            this.dialogLaunchHistory = (dialogLaunchHistory == null) ? null :
+                                                                       dialogLaunchHistory.clone();
+            isDialogLaunchHistoryChanged = true;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setExtra(@NonNull final String key, @Nullable final byte[] value) {
+            extras.put(key, (value == null) ? null : value.clone());
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor clear() {
+            isClear = true;
+            return this;
+        }
+
+        @Override
+        public void apply() {
+            synchronized (store) {
+                if (isClear) {
+                    store.dialogFirstLaunchTime = 0L;
+                    store.installDate = 0L;
+                    store.isAgreeShowDialog = true;
+                    store.launchTimes = 0;
+                    store.remindInterval = 0L;
+                    store.remindLaunchesNumber = 0;
+                    store.versionCode = 0L;
+                    store.versionName = EMPTY_STRING;
+                    store.customEventCounts.clear();
+                    store.dialogLaunchHistory = null;
+                    store.extras.clear();
+                }
+                if (dialogFirstLaunchTime != null) {
+                    store.dialogFirstLaunchTime = dialogFirstLaunchTime;
+                }
+                if (installDate != null) {
+                    store.installDate = installDate;
+                }
+                if (isAgreeShowDialog != null) {
+                    store.isAgreeShowDialog = isAgreeShowDialog;
+                }
+                if (launchTimes != null) {
+                    store.launchTimes = launchTimes;
+                }
+                if (remindInterval != null) {
+                    store.remindInterval = remindInterval;
+                }
+                if (remindLaunchesNumber != null) {
+                    store.remindLaunchesNumber = remindLaunchesNumber;
+                }
+                if (versionCode != null) {
+                    store.versionCode = versionCode;
+                }
+                if (versionName != null) {
+                    store.versionName = versionName;
+                }
+                store.customEventCounts.putAll(customEventCounts);
+                if (isDialogLaunchHistoryChanged) {
+                    store.dialogLaunchHistory = dialogLaunchHistory;
+                }
+                for (Map.Entry<String, byte[]> entry : extras.entrySet()) {
+                    if (entry.getValue() == null) {
+                        store.extras.remove(entry.getKey());
+                    } else {
+                        store.extras.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -10,7 +10,13 @@ import android.content.Context;
 import android.content.Intent;
 import android.util.Log;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 import androidx.annotation.NonNull;
 
@@ -30,13 +36,12 @@ import static com.vorlonsoft.android.rate.StoreType.TENCENT;
 import static com.vorlonsoft.android.rate.StoreType.YANDEX;
 import static com.vorlonsoft.android.rate.UriHelper.getStoreUri;
 import static com.vorlonsoft.android.rate.UriHelper.getStoreWebUri;
-import static com.vorlonsoft.android.rate.Utils.isPackagesExists;
 
 /**
  * <p>IntentHelper Class - intent helper class of the AndroidRate library.</p>
  *
  * @since    0.5.0
- * @version  1.2.1
+ * @version  1.2.5
  * @author   Alexander Savin
  * @author   Shintaro Katafuchi
  */
@@ -93,6 +98,25 @@ final class IntentHelper {
             "com.coolapk.market"                //cool市场
     };
 
+    /** <p>All app stores and browsers packages names, without duplicates.</p> */
+    private static final String[] KNOWN_PACKAGES_NAMES;
+
+    static {
+        final Set<String> knownPackagesNames = new LinkedHashSet<>();
+        knownPackagesNames.add(GOOGLE_PLAY_PACKAGE_NAME);
+        knownPackagesNames.add(AMAZON_APPSTORE_PACKAGE_NAME);
+        knownPackagesNames.add(BLACKBERRY_WORLD_PACKAGE_NAME);
+        knownPackagesNames.add(CAFE_BAZAAR_PACKAGE_NAME);
+        knownPackagesNames.add(MI_PACKAGE_NAME);
+        knownPackagesNames.add(SAMSUNG_GALAXY_APPS_PACKAGE_NAME);
+        knownPackagesNames.add(SLIDEME_MARKETPLACE_PACKAGE_NAME);
+        knownPackagesNames.add(TENCENT_PACKAGE_NAME);
+        knownPackagesNames.add(YANDEX_STORE_PACKAGE_NAME);
+        knownPackagesNames.addAll(Arrays.asList(CHINESE_STORES_PACKAGES_NAMES));
+        knownPackagesNames.addAll(Arrays.asList(BROWSERS_PACKAGES_NAMES));
+        KNOWN_PACKAGES_NAMES = knownPackagesNames.toArray(new String[knownPackagesNames.size()]);
+    }
+
     private IntentHelper() {
         throw new UnsupportedOperationException("IntentHelper" + UTILITY_CLASS_MESSAGE);
     }
@@ -140,6 +164,16 @@ final class IntentHelper {
         }
     }
 
+    /**
+     * <p>Returns all app stores and browsers packages names, that the library can start.</p>
+     *
+     * @return packages names, don't modify the array
+     */
+    @NonNull
+    static String[] getKnownPackagesNames() {
+        return KNOWN_PACKAGES_NAMES;
+    }
+
     private static void setIntentForStore(final Intent intent) {
         // Make sure it DOESN'T open in the stack of appPackageName activity
         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
@@ -163,7 +197,9 @@ final class IntentHelper {
         final boolean needStorePackage = getNeedStorePackageFlagForStore(appStore);
         final boolean hasWebUriIntent = getHasWebUriIntentFlagForStore(appStore);
         final String[] storesPackagesNames = getPackagesNamesForStore(appStore);
-        final String[] deviceStoresPackagesNames = isPackagesExists(context, storesPackagesNames);
+        final StorePackagesCache storePackagesCache = StorePackagesCache.getInstance(context);
+        final String[] deviceStoresPackagesNames =
+                storePackagesCache.getInstalledPackages(storesPackagesNames);
         final byte deviceStoresPackagesNumber = (byte) deviceStoresPackagesNames.length;
         final Intent[] intents;
 
@@ -182,7 +218,8 @@ final class IntentHelper {
         } else if (!needStorePackage) {
             intents = new Intent[]{new Intent(Intent.ACTION_VIEW, getStoreWebUri(appStore, paramName))};
             if (appStore == APPLE) {
-                final String[] deviceBrowsersPackagesNames = isPackagesExists(context, BROWSERS_PACKAGES_NAMES);
+                final String[] deviceBrowsersPackagesNames =
+                        storePackagesCache.getInstalledPackages(BROWSERS_PACKAGES_NAMES);
                 if (deviceBrowsersPackagesNames.length > 0) {
                     intents[0].setPackage(deviceBrowsersPackagesNames[0]);
                 }
@@ -201,4 +238,63 @@ final class IntentHelper {
         }
         return intents;
     }
+
+    /**
+     * <p>Creates one fallback intents chain for the app stores in the priority order.</p>
+     * <p>The installed stores packages are looked up by one hashed pass over the union of the app
+     * stores packages. The chain starts with the intents to the installed app stores, one intent
+     * per package, in the priority order, then the web (http/https) uri intents follow in the same
+     * order.</p>
+     *
+     * @param context context
+     * @param appStores the values defined by {@link StoreType.StoreWithoutApplicationId} in the
+     *                  priority order
+     * @param paramName the app package name
+     * @return intents for the app stores or an empty array if none of them can be started
+     */
+    @NonNull
+    static Intent[] createIntentsForStores(@NonNull final Context context,
+                                           @NonNull final int[] appStores,
+                                           @NonNull final String paramName) {
+        final Set<String> storesPackagesNames = new LinkedHashSet<>();
+        for (int appStore : appStores) {
+            Collections.addAll(storesPackagesNames, getPackagesNamesForStore(appStore));
+        }
+        final Set<String> deviceStoresPackagesNames = new HashSet<>();
+        Collections.addAll(deviceStoresPackagesNames, StorePackagesCache.getInstance(context)
+                .getInstalledPackages(storesPackagesNames.toArray(
+                        new String[storesPackagesNames.size()])));
+
+        final List<Intent> intents = new ArrayList<>();
+        final List<Intent> webUriIntents = new ArrayList<>();
+        final Set<String> addedPackagesNames = new HashSet<>();
+        for (int appStore : appStores) {
+            boolean hasDeviceStorePackage = false;
+            for (String storePackageName : getPackagesNamesForStore(appStore)) {
+                if (deviceStoresPackagesNames.contains(storePackageName)) {
+                    hasDeviceStorePackage = true;
+                    // e.g. Mi Appstore is one of the chinese app stores too
+                    if (addedPackagesNames.add(storePackageName)) {
+                        final Intent intent = new Intent(Intent.ACTION_VIEW,
+                                                         getStoreUri(appStore, paramName));
+                        setIntentForStore(intent);
+                        intent.setPackage(storePackageName);
+                        intents.add(intent);
+                    }
+                }
+            }
+            if (getHasWebUriIntentFlagForStore(appStore) &&
+                (hasDeviceStorePackage || !getNeedStorePackageFlagForStore(appStore))) {
+                webUriIntents.add(new Intent(Intent.ACTION_VIEW,
+                                             getStoreWebUri(appStore, paramName)));
+            }
+        }
+        intents.addAll(webUriIntents);
+        if (intents.isEmpty()) {
+            Log.w(TAG, LOG_MESSAGE_PART_1 + Arrays.toString(appStores) + " app stores packages " +
+                    "not exist on the user device and the user device can't start their web " +
+                    "(http/https) uri activities without them.");
+        }
+        return intents.toArray(new Intent[intents.size()]);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,758 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.vorlonsoft.android.rate.Constants.Utils.TAG;
+
+/**
+ * <p>JournalRateStore Class - the append-only journal {@link RateStore} implementation of the
+ * AndroidRate library.</p>
+ * <p>Every {@link RateStore.Editor#apply()} appends one compact binary record with the changes
+ * to the {@code "androidrate_journal.bin"} file, so frequent updates like
+ * {@link AppRate#incrementEventCount(String)} are sequential appends instead of the whole XML file
+ * rewrites. The app launches and custom events counts are recorded as deltas, e.g. one custom
+ * event increment is the {@code +1} record. Other fields, e.g. the Rate Dialog launch history
+ * updated by a Rate Dialog show or the agree flag updated by a button click, aren't counters, so
+ * they are recorded as their new values. The state is folded into memory on the first access.
+ * When the journal grows by more than the compaction threshold since the last compaction, it is
+ * replaced by the single record with the current state. All file operations are done in the
+ * library background thread.</p>
+ * <p>Each record is protected by its length and the CRC32 checksum, a torn record at the end of
+ * the journal after a crash is dropped on load. Appended records are synced to the storage device
+ * once per batch of records queued together. If the journal doesn't exist yet, the state is
+ * imported from the {@link SharedPreferencesRateStore} once.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see RateStore
+ * @see SharedPreferencesRateStore
+ */
+@SuppressWarnings("WeakerAccess")
+public final class JournalRateStore implements RateStore {
+
+    /** <p>The default journal compaction threshold in bytes.</p> */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 16 * 1024;
+
+    private static final String FILE_NAME = "androidrate_journal.bin";
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private static final byte OP_CLEAR = 0;
+
+    private static final byte OP_DIALOG_FIRST_LAUNCH_TIME = 1;
+
+    private static final byte OP_INSTALL_DATE = 2;
+
+    private static final byte OP_IS_AGREE_SHOW_DIALOG = 3;
+
+    private static final byte OP_LAUNCH_TIMES = 4;
+
+    private static final byte OP_REMIND_INTERVAL = 5;
+
+    private static final byte OP_REMIND_LAUNCHES_NUMBER = 6;
+
+    private static final byte OP_VERSION_CODE = 7;
+
+    private static final byte OP_VERSION_NAME = 8;
+
+    private static final byte OP_CUSTOM_EVENT_COUNT = 9;
+
+    private static final byte OP_DIALOG_LAUNCH_HISTORY = 10;
+
+    private static final byte OP_EXTRA = 11;
+
+    private static final byte OP_LAUNCH_TIMES_DELTA = 12;
+
+    private static final byte OP_CUSTOM_EVENT_COUNT_DELTA = 13;
+
+    /** <p>The record header (length) and trailer (CRC32) size in bytes.</p> */
+    private static final int RECORD_OVERHEAD = 8;
+
+    private final Context context;
+
+    private final File file;
+
+    private final int compactionThreshold;
+
+    /** <p>The folded state, null until loaded.</p> */
+    private InMemoryRateStore state = null;
+
+    /** <p>The journal length in bytes, is accessed only in the library background thread.</p> */
+    private long journalLength = 0L;
+
+    /** <p>The journal length after the last compaction, is accessed only in the background.</p> */
+    private long compactedLength = 0L;
+
+    /** <p>The journal append stream, is accessed only in the library background thread.</p> */
+    private FileOutputStream journalStream = null;
+
+    /** <p>The number of records folded into {@link #state}, is guarded by this store.</p> */
+    private long foldedRecordsNumber = 0L;
+
+    /** <p>The number of folded records, that aren't appended yet, is guarded by this store.</p> */
+    private int pendingRecordsNumber = 0;
+
+    /**
+     * <p>The number of records folded into the last compacted journal, is accessed only in the
+     * library background thread.</p>
+     */
+    private long compactedRecordsNumber = 0L;
+
+    /**
+     * <p>Creates {@link JournalRateStore} object with the default compaction threshold.</p>
+     * <p>The journal is loaded on the first access.</p>
+     *
+     * @param context context
+     */
+    public JournalRateStore(@NonNull final Context context) {
+        this(context, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * <p>Creates {@link JournalRateStore} object.</p>
+     * <p>The journal is loaded on the first access.</p>
+     *
+     * @param context context
+     * @param compactionThreshold the journal length in bytes, after which the journal is compacted
+     */
+    public JournalRateStore(@NonNull final Context context, final int compactionThreshold) {
+        this.context = context.getApplicationContext();
+        this.compactionThreshold = compactionThreshold;
+        file = new File(this.context.getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * <p>Folds the journal into memory, drops a torn tail record if any.</p>
+     *
+     * @return the folded state
+     */
+    @NonNull
+    private InMemoryRateStore getState() {
+        if (state == null) {
+            state = new InMemoryRateStore();
+            if (file.exists()) {
+                final long validLength = load();
+                if (validLength < file.length()) {
+                    Log.w(TAG, "The journal " + file + " has a torn tail record, it is dropped.");
+                    final long length = validLength;
+                    BackgroundExecutor.getInstance().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            truncate(length);
+                        }
+                    });
+                }
+                journalLength = validLength;
+            } else {
+                final SharedPreferencesRateStore preferences = new SharedPreferencesRateStore(context);
+                final RateStore.Editor editor = new Editor(this)
+                        .setDialogFirstLaunchTime(preferences.getDialogFirstLaunchTime())
+                        .setInstallDate(preferences.getInstallDate())
+                        .setAgreeShowDialog(preferences.isAgreeShowDialog())
+                        .setLaunchTimes(preferences.getLaunchTimes())
+                        .setRemindInterval(preferences.getRemindInterval())
+                        .setRemindLaunchesNumber(preferences.getRemindLaunchesNumber())
+                        .setVersionCode(preferences.getVersionCode())
+                        .setVersionName(preferences.getVersionName())
+                        .setDialogLaunchHistory(preferences.getDialogLaunchHistory());
+                for (Map.Entry<String, Integer> entry : preferences.getCustomEventCounts().entrySet()) {
+                    editor.setCustomEventCount(entry.getKey(), entry.getValue());
+                }
+                for (Map.Entry<String, byte[]> entry : preferences.getExtras().entrySet()) {
+                    editor.setExtra(entry.getKey(), entry.getValue());
+                }
+                editor.apply();
+            }
+        }
+        return state;
+    }
+
+    /**
+     * <p>Reads the journal and folds all valid records into {@link #state}.</p>
+     *
+     * @return the length of the valid part of the journal
+     */
+    private long load() {
+        final byte[] journal;
+        try {
+            final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                journal = new byte[(int) randomAccessFile.length()];
+                randomAccessFile.readFully(journal);
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Can't read the journal " + file + ".", e);
+            return 0L;
+        }
+        final CRC32 crc32 = new CRC32();
+        int offset = 0;
+        while (journal.length - offset >= RECORD_OVERHEAD) {
+            final int length = readInt(journal, offset);
+            if ((length < 0) || (length > journal.length - offset - RECORD_OVERHEAD)) {
+                break;
+            }
+            crc32.reset();
+            crc32.update(journal, offset + 4, length);
+            if (readInt(journal, offset + 4 + length) != (int) crc32.getValue()) {
+                break;
+            }
+            try {
+                fold(new DataInputStream(new ByteArrayInputStream(journal, offset + 4, length)));
+            } catch (IOException e) {
+                break;
+            }
+            offset += length + RECORD_OVERHEAD;
+        }
+        return offset;
+    }
+
+    private static int readInt(@NonNull final byte[] bytes, final int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) |
+               ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    /**
+     * <p>Applies the record operations to {@link #state}.</p>
+     *
+     * @param record the record payload
+     * @throws IOException if the record is malformed
+     */
+    private void fold(@NonNull final DataInputStream record) throws IOException {
+        final RateStore.Editor editor = state.edit();
+        // deltas are applied to the state before the record
+        boolean isClear = false;
+        Map<String, Integer> customEventCounts = null;
+        int operation;
+        while ((operation = record.read()) != -1) {
+            switch (operation) {
+                case OP_CLEAR:
+                    editor.clear();
+                    isClear = true;
+                    break;
+                case OP_DIALOG_FIRST_LAUNCH_TIME:
+                    editor.setDialogFirstLaunchTime(record.readLong());
+                    break;
+                case OP_INSTALL_DATE:
+                    editor.setInstallDate(record.readLong());
+                    break;
+                case OP_IS_AGREE_SHOW_DIALOG:
+                    editor.setAgreeShowDialog(record.readBoolean());
+                    break;
+                case OP_LAUNCH_TIMES:
+                    editor.setLaunchTimes(record.readInt());
+                    break;
+                case OP_REMIND_INTERVAL:
+                    editor.setRemindInterval(record.readLong());
+                    break;
+                case OP_REMIND_LAUNCHES_NUMBER:
+                    editor.setRemindLaunchesNumber(record.readInt());
+                    break;
+                case OP_VERSION_CODE:
+                    editor.setVersionCode(record.readLong());
+                    break;
+                case OP_VERSION_NAME:
+                    editor.setVersionName(record.readUTF());
+                    break;
+                case OP_CUSTOM_EVENT_COUNT:
+                    editor.setCustomEventCount(record.readUTF(), record.readInt());
+                    break;
+                case OP_DIALOG_LAUNCH_HISTORY:
+                    editor.setDialogLaunchHistory(readBytes(record));
+                    break;
+                case OP_EXTRA:
+                    editor.setExtra(record.readUTF(), readBytes(record));
+                    break;
+                case OP_LAUNCH_TIMES_DELTA:
+                    editor.setLaunchTimes((isClear ? 0 : state.getLaunchTimes()) + record.readInt());
+                    break;
+                case OP_CUSTOM_EVENT_COUNT_DELTA:
+                    if (customEventCounts == null) {
+                        customEventCounts = state.getCustomEventCounts();
+                    }
+                    final String eventName = record.readUTF();
+                    final Integer eventCount = isClear ? null : customEventCounts.get(eventName);
+                    editor.setCustomEventCount(eventName,
+                                               ((eventCount == null) ? 0 : eventCount) +
+                                               record.readInt());
+                    break;
+                default:
+                    throw new IOException("Unknown journal operation " + operation + ".");
+            }
+        }
+        editor.apply();
+    }
+
+    @Nullable
+    private static byte[] readBytes(@NonNull final DataInputStream record) throws IOException {
+        final int length = record.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        record.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * <p>Appends the record to the journal, syncs the journal after the last queued record,
+     * compacts the journal if it has grown over the threshold. Must be called in the library
+     * background thread.</p>
+     *
+     * @param record the framed record
+     * @param recordNumber the number of the record in the fold order, starting from 1
+     */
+    private void append(@NonNull final byte[] record, final long recordNumber) {
+        final boolean isLastPendingRecord;
+        synchronized (this) {
+            isLastPendingRecord = (--pendingRecordsNumber == 0);
+        }
+        // the record is already in the compacted journal, deltas must not be folded twice
+        if (recordNumber > compactedRecordsNumber) {
+            try {
+                if (journalStream == null) {
+                    journalStream = new FileOutputStream(file, true);
+                }
+                journalStream.write(record);
+                journalLength += record.length;
+            } catch (IOException e) {
+                Log.w(TAG, "Can't append to the journal " + file + ".", e);
+                closeJournalStream();
+            }
+        }
+        if (isLastPendingRecord && (journalStream != null)) {
+            try {
+                journalStream.getFD().sync();
+            } catch (IOException e) {
+                Log.w(TAG, "Can't sync the journal " + file + ".", e);
+            }
+        }
+        if (journalLength - compactedLength > compactionThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * <p>Replaces the journal by the single record with the current state. Must be called in the
+     * library background thread.</p>
+     * <p>Records folded before the snapshot was taken, but still queued after this task, are
+     * skipped by {@link #append(byte[], long)}.</p>
+     */
+    private void compact() {
+        final byte[] snapshot;
+        final long snapshotRecordsNumber;
+        synchronized (this) {
+            final RateStore.Editor editor = new Editor(this)
+                    .clear()
+                    .setDialogFirstLaunchTime(state.getDialogFirstLaunchTime())
+                    .setInstallDate(state.getInstallDate())
+                    .setAgreeShowDialog(state.isAgreeShowDialog())
+                    .setLaunchTimes(state.getLaunchTimes())
+                    .setRemindInterval(state.getRemindInterval())
+                    .setRemindLaunchesNumber(state.getRemindLaunchesNumber())
+                    .setVersionCode(state.getVersionCode())
+                    .setVersionName(state.getVersionName())
+                    .setDialogLaunchHistory(state.getDialogLaunchHistory());
+            for (Map.Entry<String, Integer> entry : state.getCustomEventCounts().entrySet()) {
+                editor.setCustomEventCount(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, byte[]> entry : state.getExtras().entrySet()) {
+                editor.setExtra(entry.getKey(), entry.getValue());
+            }
+            snapshot = ((Editor) editor).toRecord(((Editor) editor).getPayload(state));
+            snapshotRecordsNumber = foldedRecordsNumber;
+        }
+        final File temporaryFile = new File(file.getPath() + TEMPORARY_FILE_SUFFIX);
+        try {
+            final FileOutputStream temporaryStream = new FileOutputStream(temporaryFile);
+            try {
+                temporaryStream.write(snapshot);
+                temporaryStream.getFD().sync();
+            } finally {
+                temporaryStream.close();
+            }
+            closeJournalStream();
+            if (!temporaryFile.renameTo(file)) {
+                throw new IOException("Can't rename " + temporaryFile + " to " + file + ".");
+            }
+            journalLength = snapshot.length;
+            compactedLength = snapshot.length;
+            compactedRecordsNumber = snapshotRecordsNumber;
+        } catch (IOException e) {
+            Log.w(TAG, "Can't compact the journal " + file + ".", e);
+            //noinspection ResultOfMethodCallIgnored
+            temporaryFile.delete();
+        }
+    }
+
+    private void truncate(final long length) {
+        closeJournalStream();
+        try {
+            final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                randomAccessFile.setLength(length);
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Can't truncate the journal " + file + ".", e);
+        }
+    }
+
+    private void closeJournalStream() {
+        if (journalStream != null) {
+            try {
+                journalStream.close();
+            } catch (IOException e) {
+                Log.i(TAG, "Can't close the journal " + file + ".", e);
+            }
+            journalStream = null;
+        }
+    }
+
+    @Override
+    public synchronized long getDialogFirstLaunchTime() {
+        return getState().getDialogFirstLaunchTime();
+    }
+
+    @Override
+    public synchronized long getInstallDate() {
+        return getState().getInstallDate();
+    }
+
+    @Override
+    public synchronized boolean isAgreeShowDialog() {
+        return getState().isAgreeShowDialog();
+    }
+
+    @Override
+    public synchronized int getLaunchTimes() {
+        return getState().getLaunchTimes();
+    }
+
+    @Override
+    public synchronized long getRemindInterval() {
+        return getState().getRemindInterval();
+    }
+
+    @Override
+    public synchronized int getRemindLaunchesNumber() {
+        return getState().getRemindLaunchesNumber();
+    }
+
+    @Override
+    public synchronized long getVersionCode() {
+        return getState().getVersionCode();
+    }
+
+    @NonNull
+    @Override
+    public synchronized String getVersionName() {
+        return getState().getVersionName();
+    }
+
+    @NonNull
+    @Override
+    public synchronized Map<String, Integer> getCustomEventCounts() {
+        return getState().getCustomEventCounts();
+    }
+
+    @Nullable
+    @Override
+    public synchronized byte[] getDialogLaunchHistory() {
+        return getState().getDialogLaunchHistory();
+    }
+
+    @NonNull
+    @Override
+    public synchronized Map<String, byte[]> getExtras() {
+        return getState().getExtras();
+    }
+
+    @NonNull
+    @Override
+    public RateStore.Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * <p>JournalRateStore.Editor Class - the {@link RateStore.Editor} implementation of the
+     * {@link JournalRateStore}.</p>
+     * <p>Changes are encoded as the record operations in the order of the calls, the app launches
+     * and custom events counts are encoded as deltas to the current state at {@link #apply()}.
+     * {@link #apply()} folds the record into memory and appends it to the journal in the library
+     * background thread.</p>
+     *
+     * @since    1.2.5
+     * @version  1.2.5
+     * @author   Alexander Savin
+     */
+    private static final class Editor implements RateStore.Editor {
+        private final JournalRateStore store;
+        private final ByteArrayOutputStream operations = new ByteArrayOutputStream();
+        private final DataOutputStream output = new DataOutputStream(operations);
+        private boolean isClear = false;
+        private Integer launchTimes = null;
+        private final Map<String, Integer> customEventCounts = new LinkedHashMap<>();
+
+        private Editor(@NonNull final JournalRateStore store) {
+            this.store = store;
+        }
+
+        @NonNull
+        private RateStore.Editor writeLong(final byte operation, final long value) {
+            try {
+                output.writeByte(operation);
+                output.writeLong(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        @NonNull
+        private RateStore.Editor writeInt(final byte operation, final int value) {
+            try {
+                output.writeByte(operation);
+                output.writeInt(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setDialogFirstLaunchTime(final long dialogFirstLaunchTime) {
+            return writeLong(OP_DIALOG_FIRST_LAUNCH_TIME, dialogFirstLaunchTime);
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setInstallDate(final long installDate) {
+            return writeLong(OP_INSTALL_DATE, installDate);
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setAgreeShowDialog(final boolean isAgreeShowDialog) {
+            try {
+                output.writeByte(OP_IS_AGREE_SHOW_DIALOG);
+                output.writeBoolean(isAgreeShowDialog);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setLaunchTimes(final int launchTimes) {
+            this.launchTimes = launchTimes;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setRemindInterval(final long remindInterval) {
+            return writeLong(OP_REMIND_INTERVAL, remindInterval);
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setRemindLaunchesNumber(final int remindLaunchesNumber) {
+            return writeInt(OP_REMIND_LAUNCHES_NUMBER, remindLaunchesNumber);
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setVersionCode(final long versionCode) {
+            return writeLong(OP_VERSION_CODE, versionCode);
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setVersionName(@NonNull final String versionName) {
+            try {
+                output.writeByte(OP_VERSION_NAME);
+                output.writeUTF(versionName);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setCustomEventCount(@NonNull final String eventName,
+                                                    final int eventCount) {
+            customEventCounts.put(eventName, eventCount);
+            return this;
+        }
+
+        private void writeBytes(@Nullable final byte[] bytes) throws IOException {
+            if (bytes == null) {
+                output.writeInt(-1);
+            } else {
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setDialogLaunchHistory(@Nullable final byte[] dialogLaunchHistory) {
+            try {
+                output.writeByte(OP_DIALOG_LAUNCH_HISTORY);
+                writeBytes(dialogLaunchHistory);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setExtra(@NonNull final String key, @Nullable final byte[] value) {
+            try {
+                output.writeByte(OP_EXTRA);
+                output.writeUTF(key);
+                writeBytes(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor clear() {
+            isClear = true;
+            return this;
+        }
+
+        /**
+         * <p>Returns the record payload, {@link #clear()} goes first, the app launches and custom
+         * events counts go last. They are encoded as deltas to {@code state} or as values if the
+         * record clears the state, unchanged counts are omitted.</p>
+         *
+         * @param state the state before the record
+         * @return the record payload
+         */
+        @NonNull
+        private byte[] getPayload(@NonNull final InMemoryRateStore state) {
+            try {
+                if (launchTimes != null) {
+                    if (isClear) {
+                        output.writeByte(OP_LAUNCH_TIMES);
+                        output.writeInt(launchTimes);
+                    } else if (launchTimes != state.getLaunchTimes()) {
+                        output.writeByte(OP_LAUNCH_TIMES_DELTA);
+                        output.writeInt(launchTimes - state.getLaunchTimes());
+                    }
+                }
+                if (!customEventCounts.isEmpty()) {
+                    final Map<String, Integer> stateCustomEventCounts =
+                            state.getCustomEventCounts();
+                    for (Map.Entry<String, Integer> entry : customEventCounts.entrySet()) {
+                        final Integer eventCount = stateCustomEventCounts.get(entry.getKey());
+                        if (isClear) {
+                            output.writeByte(OP_CUSTOM_EVENT_COUNT);
+                            output.writeUTF(entry.getKey());
+                            output.writeInt(entry.getValue());
+                        } else if ((eventCount == null) || !eventCount.equals(entry.getValue())) {
+                            output.writeByte(OP_CUSTOM_EVENT_COUNT_DELTA);
+                            output.writeUTF(entry.getKey());
+                            output.writeInt(entry.getValue() -
+                                            ((eventCount == null) ? 0 : eventCount));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            launchTimes = null;
+            customEventCounts.clear();
+            final byte[] payload = operations.toByteArray();
+            if (!isClear) {
+                return payload;
+            }
+            final byte[] clearedPayload = new byte[payload.length + 1];
+            clearedPayload[0] = OP_CLEAR;
+            System.arraycopy(payload, 0, clearedPayload, 1, payload.length);
+            return clearedPayload;
+        }
+
+        /**
+         * <p>Returns the framed record: the payload length, the payload and its CRC32.</p>
+         *
+         * @param payload the record payload
+         * @return the framed record
+         */
+        @NonNull
+        private byte[] toRecord(@NonNull final byte[] payload) {
+            final CRC32 crc32 = new CRC32();
+            crc32.update(payload, 0, payload.length);
+            final ByteArrayOutputStream record = new ByteArrayOutputStream(payload.length +
+                                                                           RECORD_OVERHEAD);
+            final DataOutputStream recordOutput = new DataOutputStream(record);
+            try {
+                recordOutput.writeInt(payload.length);
+                recordOutput.write(payload);
+                recordOutput.writeInt((int) crc32.getValue());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return record.toByteArray();
+        }
+
+        @Override
+        public void apply() {
+            synchronized (store) {
+                final byte[] payload = getPayload(store.getState());
+                if (payload.length == 0) {
+                    return;
+                }
+                try {
+                    store.fold(new DataInputStream(new ByteArrayInputStream(payload)));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                final byte[] record = toRecord(payload);
+                final long recordNumber = ++store.foldedRecordsNumber;
+                store.pendingRecordsNumber++;
+                // submitted under the lock, so records are appended in the order they are folded
+                BackgroundExecutor.getInstance().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        store.append(record, recordNumber);
+                    }
+                });
+            }
+        }
+    }
+}
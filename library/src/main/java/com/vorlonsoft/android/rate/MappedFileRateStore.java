@@ -0,0 +1,482 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.vorlonsoft.android.rate.Constants.Utils.TAG;
+
+/**
+ * <p>MappedFileRateStore Class - the memory-mapped file {@link RateStore} implementation of the
+ * AndroidRate library.</p>
+ * <p>The fixed-size part of the library state (the launch times, the install date, the remind
+ * fields, the agree flag, the version code and the Rate Dialog launch history) is kept at fixed
+ * offsets of the small {@code "androidrate_state.bin"} file mapped into memory, so every
+ * {@link RateStore.Editor#apply()} is a few primitive stores instead of the whole XML file
+ * rewrite. The variable-size part (the version name, custom events counts and extras) is kept by
+ * the {@link SharedPreferencesRateStore}.</p>
+ * <p>The file has two slots, each with the version header, the sequence number and the CRC32
+ * checksum. Writes go to the inactive slot, that is forced to the storage device before
+ * {@link RateStore.Editor#apply()} returns, so after a crash or a power loss the last complete
+ * state is recovered. If the file doesn't contain a valid state yet, the fixed-size part is
+ * imported from the {@link SharedPreferencesRateStore} once.</p>
+ * <p>Only the fixed-size part is written atomically. The variable-size part is applied to the
+ * {@link SharedPreferencesRateStore} after the slot, asynchronously, so one
+ * {@link RateStore.Editor#apply()} isn't atomic across the two parts: after a crash the
+ * fixed-size part can be newer than the variable-size one, e.g. the launch times can be counted
+ * while the custom events counts or the extras aren't updated yet. Use the
+ * {@link JournalRateStore} if the whole state must be written atomically.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see RateStore
+ * @see SharedPreferencesRateStore
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MappedFileRateStore implements RateStore {
+
+    private static final String FILE_NAME = "androidrate_state.bin";
+
+    private static final int MAGIC = 0x41525354; // "ARST"
+
+    private static final short FORMAT_VERSION = 1;
+
+    private static final int SLOT_SIZE = 1024;
+
+    private static final int FILE_SIZE = SLOT_SIZE * 2;
+
+    private static final int OFFSET_MAGIC = 0;
+
+    private static final int OFFSET_FORMAT_VERSION = 4;
+
+    private static final int OFFSET_IS_AGREE_SHOW_DIALOG = 6;
+
+    private static final int OFFSET_SEQUENCE = 8;
+
+    private static final int OFFSET_DIALOG_FIRST_LAUNCH_TIME = 16;
+
+    private static final int OFFSET_INSTALL_DATE = 24;
+
+    private static final int OFFSET_REMIND_INTERVAL = 32;
+
+    private static final int OFFSET_VERSION_CODE = 40;
+
+    private static final int OFFSET_LAUNCH_TIMES = 48;
+
+    private static final int OFFSET_REMIND_LAUNCHES_NUMBER = 52;
+
+    private static final int OFFSET_DIALOG_LAUNCH_HISTORY_LENGTH = 56;
+
+    private static final int OFFSET_CHECKSUM = 60;
+
+    private static final int OFFSET_DIALOG_LAUNCH_HISTORY = 64;
+
+    private static final int DIALOG_LAUNCH_HISTORY_CAPACITY = SLOT_SIZE - OFFSET_DIALOG_LAUNCH_HISTORY;
+
+    /** <p>The store of the variable-size part of the library state.</p> */
+    private final SharedPreferencesRateStore variableStore;
+
+    private final File file;
+
+    /** <p>The mapped file or the heap buffer if the file can't be mapped, null until loaded.</p> */
+    private ByteBuffer buffer = null;
+
+    /** <p>The offset of the active slot, -1 if there is no valid slot.</p> */
+    private int activeSlot = -1;
+
+    private final CRC32 crc32 = new CRC32();
+
+    private final byte[] slotBytes = new byte[SLOT_SIZE];
+
+    /**
+     * <p>Creates {@link MappedFileRateStore} object.</p>
+     * <p>The file is opened and mapped on the first access.</p>
+     *
+     * @param context context
+     */
+    public MappedFileRateStore(@NonNull final Context context) {
+        variableStore = new SharedPreferencesRateStore(context);
+        file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+    }
+
+    /**
+     * <p>Maps the file and selects the valid slot with the highest sequence number.</p>
+     *
+     * @return the buffer
+     */
+    @NonNull
+    private ByteBuffer getBuffer() {
+        if (buffer == null) {
+            try {
+                final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                try {
+                    if (randomAccessFile.length() != FILE_SIZE) {
+                        randomAccessFile.setLength(FILE_SIZE);
+                    }
+                    buffer = randomAccessFile.getChannel()
+                                             .map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+                } finally {
+                    randomAccessFile.close(); // the mapping stays valid
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Can't map " + file + ", the library state won't be saved.", e);
+                buffer = ByteBuffer.allocate(FILE_SIZE);
+            }
+            final boolean isFirstSlotValid = isSlotValid(0);
+            final boolean isSecondSlotValid = isSlotValid(SLOT_SIZE);
+            if (isFirstSlotValid && isSecondSlotValid) {
+                activeSlot = (buffer.getLong(OFFSET_SEQUENCE) >=
+                              buffer.getLong(SLOT_SIZE + OFFSET_SEQUENCE)) ? 0 : SLOT_SIZE;
+            } else if (isFirstSlotValid) {
+                activeSlot = 0;
+            } else if (isSecondSlotValid) {
+                activeSlot = SLOT_SIZE;
+            } else {
+                if (buffer.getInt(OFFSET_MAGIC) == MAGIC) {
+                    Log.w(TAG, "The library state in " + file + " is corrupted, it is reset.");
+                }
+                importVariableStore();
+            }
+        }
+        return buffer;
+    }
+
+    /** <p>Imports the fixed-size part of the library state from the preference file.</p> */
+    private void importVariableStore() {
+        if (variableStore.getInstallDate() != 0L) {
+            new Editor(this)
+                    .setDialogFirstLaunchTime(variableStore.getDialogFirstLaunchTime())
+                    .setInstallDate(variableStore.getInstallDate())
+                    .setAgreeShowDialog(variableStore.isAgreeShowDialog())
+                    .setLaunchTimes(variableStore.getLaunchTimes())
+                    .setRemindInterval(variableStore.getRemindInterval())
+                    .setRemindLaunchesNumber(variableStore.getRemindLaunchesNumber())
+                    .setVersionCode(variableStore.getVersionCode())
+                    .setDialogLaunchHistory(variableStore.getDialogLaunchHistory())
+                    .apply();
+        }
+    }
+
+    /**
+     * <p>Returns the CRC32 checksum of the slot, all bytes except the checksum itself.</p>
+     *
+     * @param slot the offset of the slot
+     * @return the checksum
+     */
+    private int getChecksum(final int slot) {
+        final ByteBuffer slotBuffer = buffer.duplicate();
+        slotBuffer.position(slot);
+        slotBuffer.get(slotBytes);
+        crc32.reset();
+        crc32.update(slotBytes, 0, OFFSET_CHECKSUM);
+        crc32.update(slotBytes, OFFSET_DIALOG_LAUNCH_HISTORY,
+                     SLOT_SIZE - OFFSET_DIALOG_LAUNCH_HISTORY);
+        return (int) crc32.getValue();
+    }
+
+    private boolean isSlotValid(final int slot) {
+        return (buffer.getInt(slot + OFFSET_MAGIC) == MAGIC) &&
+               (buffer.getShort(slot + OFFSET_FORMAT_VERSION) == FORMAT_VERSION) &&
+               (buffer.getInt(slot + OFFSET_CHECKSUM) == getChecksum(slot));
+    }
+
+    private synchronized long getLong(final int offset, final long defaultValue) {
+        final ByteBuffer currentBuffer = getBuffer();
+        return (activeSlot < 0) ? defaultValue : currentBuffer.getLong(activeSlot + offset);
+    }
+
+    private synchronized int getInt(final int offset, final int defaultValue) {
+        final ByteBuffer currentBuffer = getBuffer();
+        return (activeSlot < 0) ? defaultValue : currentBuffer.getInt(activeSlot + offset);
+    }
+
+    @Override
+    public long getDialogFirstLaunchTime() {
+        return getLong(OFFSET_DIALOG_FIRST_LAUNCH_TIME, 0L);
+    }
+
+    @Override
+    public long getInstallDate() {
+        return getLong(OFFSET_INSTALL_DATE, 0L);
+    }
+
+    @Override
+    public synchronized boolean isAgreeShowDialog() {
+        final ByteBuffer currentBuffer = getBuffer();
+        return (activeSlot < 0) || (currentBuffer.get(activeSlot + OFFSET_IS_AGREE_SHOW_DIALOG) != 0);
+    }
+
+    @Override
+    public int getLaunchTimes() {
+        return getInt(OFFSET_LAUNCH_TIMES, 0);
+    }
+
+    @Override
+    public long getRemindInterval() {
+        return getLong(OFFSET_REMIND_INTERVAL, 0L);
+    }
+
+    @Override
+    public int getRemindLaunchesNumber() {
+        return getInt(OFFSET_REMIND_LAUNCHES_NUMBER, 0);
+    }
+
+    @Override
+    public long getVersionCode() {
+        return getLong(OFFSET_VERSION_CODE, 0L);
+    }
+
+    @NonNull
+    @Override
+    public String getVersionName() {
+        return variableStore.getVersionName();
+    }
+
+    @NonNull
+    @Override
+    public Map<String, Integer> getCustomEventCounts() {
+        return variableStore.getCustomEventCounts();
+    }
+
+    @NonNull
+    @Override
+    public Map<String, byte[]> getExtras() {
+        return variableStore.getExtras();
+    }
+
+    @Nullable
+    @Override
+    public synchronized byte[] getDialogLaunchHistory() {
+        final ByteBuffer currentBuffer = getBuffer();
+        final int length = (activeSlot < 0) ? 0 :
+                currentBuffer.getInt(activeSlot + OFFSET_DIALOG_LAUNCH_HISTORY_LENGTH);
+        if ((length <= 0) || (length > DIALOG_LAUNCH_HISTORY_CAPACITY)) {
+            return null;
+        }
+        final byte[] dialogLaunchHistory = new byte[length];
+        final ByteBuffer historyBuffer = currentBuffer.duplicate();
+        historyBuffer.position(activeSlot + OFFSET_DIALOG_LAUNCH_HISTORY);
+        historyBuffer.get(dialogLaunchHistory);
+        return dialogLaunchHistory;
+    }
+
+    @NonNull
+    @Override
+    public RateStore.Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * <p>MappedFileRateStore.Editor Class - the {@link RateStore.Editor} implementation of the
+     * {@link MappedFileRateStore}.</p>
+     * <p>{@link #apply()} copies the active slot to the inactive one, stores changed fields at
+     * their offsets, updates the checksum, forces the slot to the storage device and then
+     * activates the slot by the higher sequence number.</p>
+     *
+     * @since    1.2.5
+     * @version  1.2.5
+     * @author   Alexander Savin
+     */
+    private static final class Editor implements RateStore.Editor {
+        private final MappedFileRateStore store;
+        private final RateStore.Editor variableEditor;
+        private boolean isVariableChanged = false;
+        private boolean isClear = false;
+        private Long dialogFirstLaunchTime = null;
+        private Long installDate = null;
+        private Boolean isAgreeShowDialog = null;
+        private Integer launchTimes = null;
+        private Long remindInterval = null;
+        private Integer remindLaunchesNumber = null;
+        private Long versionCode = null;
+        private boolean isDialogLaunchHistoryChanged = false;
+        private byte[] dialogLaunchHistory = null;
+
+        private Editor(@NonNull final MappedFileRateStore store) {
+            this.store = store;
+            variableEditor = store.variableStore.edit();
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setDialogFirstLaunchTime(final long dialogFirstLaunchTime) {
+            this.dialogFirstLaunchTime = dialogFirstLaunchTime;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setInstallDate(final long installDate) {
+            this.installDate = installDate;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setAgreeShowDialog(final boolean isAgreeShowDialog) {
+            this.isAgreeShowDialog = isAgreeShowDialog;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setLaunchTimes(final int launchTimes) {
+            this.launchTimes = launchTimes;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setRemindInterval(final long remindInterval) {
+            this.remindInterval = remindInterval;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setRemindLaunchesNumber(final int remindLaunchesNumber) {
+            this.remindLaunchesNumber = remindLaunchesNumber;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setVersionCode(final long versionCode) {
+            this.versionCode = versionCode;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setVersionName(@NonNull final String versionName) {
+            variableEditor.setVersionName(versionName);
+            isVariableChanged = true;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setCustomEventCount(@NonNull final String eventName,
+                                                    final int eventCount) {
+            variableEditor.setCustomEventCount(eventName, eventCount);
+            isVariableChanged = true;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setDialogLaunchHistory(@Nullable final byte[] dialogLaunchHistory) {
+            if ((dialogLaunchHistory != null) &&
+                (dialogLaunchHistory.length > DIALOG_LAUNCH_HISTORY_CAPACITY)) {
+                throw new IllegalArgumentException("The Rate Dialog launch history is longer " +
+                        "than " + DIALOG_LAUNCH_HISTORY_CAPACITY + " bytes.");
+            }
+            this.dialogLaunchHistory = dialogLaunchHistory;
+            isDialogLaunchHistoryChanged = true;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setExtra(@NonNull final String key, @Nullable final byte[] value) {
+            variableEditor.setExtra(key, value);
+            isVariableChanged = true;
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor clear() {
+            isClear = true;
+            variableEditor.clear();
+            isVariableChanged = true;
+            return this;
+        }
+
+        @Override
+        public void apply() {
+            synchronized (store) {
+                final ByteBuffer buffer = store.getBuffer();
+                final int activeSlot = store.activeSlot;
+                final int slot = (activeSlot == 0) ? SLOT_SIZE : 0;
+                final long sequence;
+                if (isClear || (activeSlot < 0)) {
+                    for (int i = slot; i < slot + SLOT_SIZE; i++) {
+                        buffer.put(i, (byte) 0);
+                    }
+                    buffer.put(slot + OFFSET_IS_AGREE_SHOW_DIALOG, (byte) 1);
+                    sequence = (activeSlot < 0) ? 1L : buffer.getLong(activeSlot + OFFSET_SEQUENCE) + 1L;
+                } else {
+                    final ByteBuffer source = buffer.duplicate();
+                    source.limit(activeSlot + SLOT_SIZE).position(activeSlot);
+                    final ByteBuffer target = buffer.duplicate();
+                    target.position(slot);
+                    target.put(source);
+                    sequence = buffer.getLong(activeSlot + OFFSET_SEQUENCE) + 1L;
+                }
+                buffer.putInt(slot + OFFSET_MAGIC, MAGIC);
+                buffer.putShort(slot + OFFSET_FORMAT_VERSION, FORMAT_VERSION);
+                buffer.putLong(slot + OFFSET_SEQUENCE, sequence);
+                if (dialogFirstLaunchTime != null) {
+                    buffer.putLong(slot + OFFSET_DIALOG_FIRST_LAUNCH_TIME, dialogFirstLaunchTime);
+                }
+                if (installDate != null) {
+                    buffer.putLong(slot + OFFSET_INSTALL_DATE, installDate);
+                }
+                if (isAgreeShowDialog != null) {
+                    buffer.put(slot + OFFSET_IS_AGREE_SHOW_DIALOG, (byte) (isAgreeShowDialog ? 1 : 0));
+                }
+                if (launchTimes != null) {
+                    buffer.putInt(slot + OFFSET_LAUNCH_TIMES, launchTimes);
+                }
+                if (remindInterval != null) {
+                    buffer.putLong(slot + OFFSET_REMIND_INTERVAL, remindInterval);
+                }
+                if (remindLaunchesNumber != null) {
+                    buffer.putInt(slot + OFFSET_REMIND_LAUNCHES_NUMBER, remindLaunchesNumber);
+                }
+                if (versionCode != null) {
+                    buffer.putLong(slot + OFFSET_VERSION_CODE, versionCode);
+                }
+                if (isDialogLaunchHistoryChanged) {
+                    if (dialogLaunchHistory == null) {
+                        buffer.putInt(slot + OFFSET_DIALOG_LAUNCH_HISTORY_LENGTH, 0);
+                    } else {
+                        buffer.putInt(slot + OFFSET_DIALOG_LAUNCH_HISTORY_LENGTH,
+                                      dialogLaunchHistory.length);
+                        final ByteBuffer target = buffer.duplicate();
+                        target.position(slot + OFFSET_DIALOG_LAUNCH_HISTORY);
+                        target.put(dialogLaunchHistory);
+                    }
+                }
+                buffer.putInt(slot + OFFSET_CHECKSUM, store.getChecksum(slot));
+                // the heap buffer is used if the file can't be mapped
+                if (buffer instanceof MappedByteBuffer) {
+                    ((MappedByteBuffer) buffer).force();
+                }
+                store.activeSlot = slot;
+            }
+            if (isVariableChanged) {
+                variableEditor.apply();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+/**
+ * OnQuickStartListener Interface - the asynchronous quick start completion listener interface of
+ * the AndroidRate library.
+ *
+ * You can implement it and pass it to [AppRate.quickStartAsync] to get a callback in the main
+ * thread when the app launch is counted and the Rate Dialog conditions are checked.
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+interface OnQuickStartListener {
+    /**
+     * A callback when the asynchronous quick start is completed.
+     *
+     * @param isShown true if the Rate Dialog is shown, false otherwise
+     */
+    fun onQuickStart(isShown: Boolean)
+}
@@ -7,202 +7,208 @@
 package com.vorlonsoft.android.rate;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import static com.vorlonsoft.android.rate.Constants.Date.YEAR_IN_DAYS;
-import static com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING;
 import static com.vorlonsoft.android.rate.Constants.Utils.UTILITY_CLASS_MESSAGE;
 
 /**
  * <p>PreferenceHelper Class - preference helper class of the AndroidRate library.</p>
+ * <p>All reads are served by the process-wide {@link RateState} snapshot, all writes go through
+ * the {@link RateStore} set by {@link AppRate#with(Context, RateStore)},
+ * {@link SharedPreferencesRateStore} by default.</p>
  *
  * @since    0.1.3
- * @version  1.2.1
+ * @version  1.2.5
  * @author   Alexander Savin
  * @author   Shintaro Katafuchi
  */
 final class PreferenceHelper {
 
-    private static final String PREF_FILE_NAME = "androidrate_pref_file";
+    /** <p>The persistent state storage, null if it isn't created yet.</p> */
+    private static volatile RateStore rateStore = null;
 
-    private static final String PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_TIMES = "androidrate_365_day_period_dialog_launch_times";
-    /** The key prefix for each custom event, so that there is no clash with existing keys (PREF_KEY_INSTALL_DATE etc.) */
-    private static final String PREF_KEY_CUSTOM_EVENT_PREFIX = "androidrate_custom_event_prefix_";
+    /** <p>The process-wide state snapshot, null if it isn't loaded yet.</p> */
+    private static volatile RateState state = null;
 
-    private static final String PREF_KEY_DIALOG_FIRST_LAUNCH_TIME = "androidrate_dialog_first_launch_time";
+    /** <p>The lock, that serializes state snapshot replacements.</p> */
+    private static final Object STATE_LOCK = new Object();
 
-    private static final String PREF_KEY_INSTALL_DATE = "androidrate_install_date";
+    /** <p>The version of Rate Dialog conditions inputs.</p> */
+    private static volatile int conditionsInputsVersion = 0;
 
-    private static final String PREF_KEY_IS_AGREE_SHOW_DIALOG = "androidrate_is_agree_show_dialog";
-
-    private static final String PREF_KEY_LAUNCH_TIMES = "androidrate_launch_times";
-
-    private static final String PREF_KEY_REMIND_INTERVAL = "androidrate_remind_interval";
-
-    private static final String PREF_KEY_REMIND_LAUNCHES_NUMBER = "androidrate_remind_launches_number";
-
-    private static final String PREF_KEY_VERSION_CODE = "androidrate_version_code";
-
-    private static final String PREF_KEY_VERSION_NAME = "androidrate_version_name";
-
-    private static final String NUMERIC_MASK = "(0|[1-9][0-9]*)";
-
-    private static final String DEFAULT_DIALOG_LAUNCH_TIMES = ":0y0-0:";
-
-    private static final String CURRENT_DAY_LAUNCHES_MASK = "-" + NUMERIC_MASK + ":";
+    /** <p>The number of state replacements by another storage or by the cleared data.</p> */
+    private static volatile int stateResetsNumber = 0;
 
     private PreferenceHelper() {
         throw new UnsupportedOperationException("PreferenceHelper" + UTILITY_CLASS_MESSAGE);
     }
 
-    private static SharedPreferences getPreferences(final Context context) {
-        return context.getSharedPreferences(PREF_FILE_NAME, Context.MODE_PRIVATE);
-    }
-
-    private static SharedPreferences.Editor getPreferencesEditor(final Context context) {
-        return getPreferences(context).edit();
-    }
-
-    private static void setCurrentDayDialogLaunchTimes(@NonNull final Context context,
-                                                       @Nullable final String dialogLaunchTimes,
-                                                       final byte currentYear,
-                                                       final short currentDay,
-                                                       final short currentDayCount) {
-        String putDialogLaunchTimes = (dialogLaunchTimes != null) ?
-                dialogLaunchTimes.replaceAll(":" + currentDay + "y" + currentYear + CURRENT_DAY_LAUNCHES_MASK,
-                                             ":" + currentDay + "y" + currentYear + "-" + currentDayCount + ":") :
-                ":" + currentDay + "y" + currentYear + "-" + currentDayCount + ":";
-        // since 3rd year deletes data for the current day that older than 2 years
-        if (currentYear > 1) {
-            for (byte b = 0; b < currentYear - 1; b++) {
-                putDialogLaunchTimes = putDialogLaunchTimes.replaceAll(":" + currentDay + "y" + b + CURRENT_DAY_LAUNCHES_MASK,
-                                                                       ":");
+    /**
+     * <p>Returns the persistent state storage.</p>
+     *
+     * @param context context
+     * @return the persistent state storage, {@link SharedPreferencesRateStore} by default
+     */
+    @NonNull
+    private static RateStore getRateStore(final Context context) {
+        RateStore currentRateStore = rateStore;
+        if (currentRateStore == null) {
+            synchronized (STATE_LOCK) {
+                currentRateStore = rateStore;
+                if (currentRateStore == null) {
+                    currentRateStore = new SharedPreferencesRateStore(context);
+                    rateStore = currentRateStore;
+                }
             }
         }
-
-        getPreferencesEditor(context)
-                .putString(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_TIMES, putDialogLaunchTimes)
-                .apply();
+        return currentRateStore;
     }
 
     /**
-     * <p>Clears data in shared preferences.</p>
+     * <p>Sets the persistent state storage.</p>
+     * <p>If the storage is changed, the state snapshot is reloaded from the new storage on the next
+     * access.</p>
      *
-     * @param context context
+     * @param newRateStore the persistent state storage
      */
-    static void clearSharedPreferences(final Context context) {
-        getPreferencesEditor(context)
-                .clear()
-                .apply();
+    static void setRateStore(@NonNull final RateStore newRateStore) {
+        synchronized (STATE_LOCK) {
+            if (rateStore != newRateStore) {
+                rateStore = newRateStore;
+                state = null;
+                conditionsInputsVersion++;
+                stateResetsNumber++;
+            }
+        }
     }
 
-    static boolean isFirstLaunch(final Context context) {
-        return getPreferences(context).getLong(PREF_KEY_INSTALL_DATE, 0L) == 0L;
+    private static short toShort(final int value) {
+        return (short) Math.max(Math.min(value, Short.MAX_VALUE), Short.MIN_VALUE);
     }
 
-    static void setFirstLaunchSharedPreferences(final Context context) {
-        final SharedPreferences.Editor preferencesEditor = getPreferencesEditor(context);
-        preferencesEditor.putString(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_TIMES, DEFAULT_DIALOG_LAUNCH_TIMES)
-                .putLong(PREF_KEY_DIALOG_FIRST_LAUNCH_TIME, 0L)
-                .putLong(PREF_KEY_INSTALL_DATE, new Date().getTime())
-                .putInt(PREF_KEY_LAUNCH_TIMES, 1)
-                .putLong(PREF_KEY_REMIND_INTERVAL, 0L)
-                .putInt(PREF_KEY_REMIND_LAUNCHES_NUMBER, 0)
-                .putLong(PREF_KEY_VERSION_CODE, AppInformation.getLongVersionCode(context))
-                .putString(PREF_KEY_VERSION_NAME, AppInformation.getVersionName(context))
-                .apply();
-        if (getIsAgreeShowDialog(context)) { //if (get() == true) set(true); - NOT error!
-            setIsAgreeShowDialog(context, true);
+    /**
+     * <p>Loads the state snapshot from the persistent state storage.</p>
+     *
+     * @param context context
+     * @return the loaded state snapshot
+     */
+    @NonNull
+    private static RateState loadState(final Context context) {
+        final RateStore currentRateStore = getRateStore(context);
+        final Map<String, Short> customEventCounts = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : currentRateStore.getCustomEventCounts().entrySet()) {
+            customEventCounts.put(entry.getKey(), toShort(entry.getValue()));
         }
+        return new RateState(currentRateStore.getDialogFirstLaunchTime(),
+                currentRateStore.getInstallDate(),
+                currentRateStore.isAgreeShowDialog(),
+                toShort(currentRateStore.getLaunchTimes()),
+                currentRateStore.getRemindInterval(),
+                toShort(currentRateStore.getRemindLaunchesNumber()),
+                currentRateStore.getVersionCode(),
+                currentRateStore.getVersionName(),
+                Collections.unmodifiableMap(customEventCounts),
+                DialogLaunchHistory.fromByteArray(currentRateStore.getDialogLaunchHistory()),
+                Collections.unmodifiableMap(currentRateStore.getExtras()));
     }
 
-    static void increment365DayPeriodDialogLaunchTimes(@NonNull final Context context) {
-        short currentDay = (short) ((new Date().getTime() - getDialogFirstLaunchTime(context)) / Time.DAY);
-        final byte currentYear = (byte) (currentDay / YEAR_IN_DAYS);
-        final String currentDialogLaunchTimes = getPreferences(context)
-                .getString(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_TIMES, DEFAULT_DIALOG_LAUNCH_TIMES);
-
-        if (currentYear > 0) {
-            currentDay = (short) (currentDay % YEAR_IN_DAYS);
-        }
-
-        if ((currentDialogLaunchTimes != null) &&
-            currentDialogLaunchTimes.matches("(.*):" + currentDay + "y" + currentYear + CURRENT_DAY_LAUNCHES_MASK)) {
-            final short length = (short) currentDialogLaunchTimes.length();
-            String currentDayCount = EMPTY_STRING + currentDialogLaunchTimes.charAt(length - 2);
-            for (short s = (short) (length - 3); s > 0; s--) {
-                if (Character.isDigit(currentDialogLaunchTimes.charAt(s))) {
-                    currentDayCount = currentDialogLaunchTimes.charAt(s) + currentDayCount;
-                } else {
-                    break;
+    /**
+     * <p>Returns the process-wide state snapshot.</p>
+     * <p>The snapshot is loaded from the preference file on the first call and then is kept
+     * current by write-through updates, so all further calls are plain field reads.</p>
+     *
+     * @param context context
+     * @return the state snapshot
+     */
+    @NonNull
+    static RateState getState(final Context context) {
+        RateState currentState = state;
+        if (currentState == null) {
+            synchronized (STATE_LOCK) {
+                currentState = state;
+                if (currentState == null) {
+                    currentState = loadState(context);
+                    state = currentState;
                 }
             }
-            setCurrentDayDialogLaunchTimes(context, currentDialogLaunchTimes, currentYear,
-                                           currentDay, (short) (Short.valueOf(currentDayCount) + 1));
-        } else {
-            setCurrentDayDialogLaunchTimes(context, currentDialogLaunchTimes, currentYear,
-                                           currentDay, (short) 1);
         }
+        return currentState;
     }
 
-    static short get365DayPeriodDialogLaunchTimes(@NonNull final Context context) {
-        short currentDay = (short) ((new Date().getTime() - getDialogFirstLaunchTime(context)) / Time.DAY);
-        final byte currentYear = (byte) (currentDay / YEAR_IN_DAYS);
-        String dialogLaunchTimes = getPreferences(context)
-                .getString(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_TIMES, DEFAULT_DIALOG_LAUNCH_TIMES);
-
-        dialogLaunchTimes = dialogLaunchTimes != null ?
-                dialogLaunchTimes.replaceAll(":" + NUMERIC_MASK + "y" + currentYear + "-", ":") :
-                DEFAULT_DIALOG_LAUNCH_TIMES;
-        if (currentYear > 0) {
-            currentDay = (short) (currentDay % YEAR_IN_DAYS);
-            for (short s = currentDay; s < YEAR_IN_DAYS; s++) {
-                dialogLaunchTimes = dialogLaunchTimes.replaceAll(":" + s + "y" + String.valueOf(currentYear - 1) + "-",
-                                                                 ":");
-            }
-        }
-        dialogLaunchTimes = dialogLaunchTimes.replaceAll(":" + NUMERIC_MASK + "y" + NUMERIC_MASK + CURRENT_DAY_LAUNCHES_MASK,
-                                                         ":");
-        if (dialogLaunchTimes.length() > 2) {
-            dialogLaunchTimes = dialogLaunchTimes.substring(1, dialogLaunchTimes.length() - 1);
-        }
+    /**
+     * <p>Returns the version of Rate Dialog conditions inputs.</p>
+     * <p>The version is changed by every write of the launch times, the agree flag, the install
+     * date, the remind fields, custom events counts, the Rate Dialog launch history or extras, it
+     * isn't changed by other writes.</p>
+     *
+     * @return the version of Rate Dialog conditions inputs
+     */
+    static int getConditionsInputsVersion() {
+        return conditionsInputsVersion;
+    }
 
-        short dialogLaunchTimesCount = 0;
-        final String[] dialogLaunchTimesSplit = dialogLaunchTimes.split(":");
-        for (String aDialogLaunchTimesSplit : dialogLaunchTimesSplit) {
-            dialogLaunchTimesCount = (short) (dialogLaunchTimesCount + Short.valueOf(aDialogLaunchTimesSplit));
-        }
+    /**
+     * <p>Returns the number of state replacements by another persistent state storage or by the
+     * cleared data, i.e. of the changes not made by transactions.</p>
+     *
+     * @return the number of state resets
+     */
+    static int getStateResetsNumber() {
+        return stateResetsNumber;
+    }
 
-        return dialogLaunchTimesCount;
+    /**
+     * <p>Starts a transaction.</p>
+     * <p>All changes made through the transaction are written by a single editor commit and are
+     * published as a single new state snapshot.</p>
+     *
+     * @param context context
+     * @return the new transaction
+     */
+    @NonNull
+    static Transaction edit(final Context context) {
+        return new Transaction(context);
     }
 
-    static void setCustomEventCount(final Context context, final String eventName, final short eventCount) {
-        getPreferencesEditor(context)
-                .putInt(PREF_KEY_CUSTOM_EVENT_PREFIX + eventName, eventCount)
-                .apply();
+    /**
+     * <p>Clears data in the persistent state storage.</p>
+     *
+     * @param context context
+     */
+    static void clearSharedPreferences(final Context context) {
+        synchronized (STATE_LOCK) {
+            getRateStore(context)
+                    .edit()
+                    .clear()
+                    .apply();
+            state = RateState.empty();
+            conditionsInputsVersion++;
+            stateResetsNumber++;
+        }
     }
 
-    static short getCustomEventCount(final Context context, final String eventName) {
-        return (short) getPreferences(context).getInt(PREF_KEY_CUSTOM_EVENT_PREFIX + eventName, 0);
+    static boolean isFirstLaunch(final Context context) {
+        return getState(context).installDate == 0L;
     }
 
-    static void setDialogFirstLaunchTime(final Context context) {
-        getPreferencesEditor(context)
-                .putLong(PREF_KEY_DIALOG_FIRST_LAUNCH_TIME, new Date().getTime())
-                .apply();
+    static void setCustomEventCount(final Context context, final String eventName, final short eventCount) {
+        edit(context).setCustomEventCount(eventName, eventCount).commit();
     }
 
     static long getDialogFirstLaunchTime(final Context context) {
-        return getPreferences(context).getLong(PREF_KEY_DIALOG_FIRST_LAUNCH_TIME, 0L);
+        return getState(context).dialogFirstLaunchTime;
     }
 
     static long getInstallDate(final Context context) {
-        return getPreferences(context).getLong(PREF_KEY_INSTALL_DATE, 0L);
+        return getState(context).installDate;
     }
 
     /**
@@ -213,55 +219,37 @@ final class PreferenceHelper {
      * @param isAgree the Rate Dialog agree flag
      */
     static void setIsAgreeShowDialog(final Context context, final boolean isAgree) {
-        getPreferencesEditor(context)
-                .putBoolean(PREF_KEY_IS_AGREE_SHOW_DIALOG, isAgree)
-                .apply();
+        edit(context).setIsAgreeShowDialog(isAgree).commit();
     }
 
     static boolean getIsAgreeShowDialog(final Context context) {
-        return getPreferences(context).getBoolean(PREF_KEY_IS_AGREE_SHOW_DIALOG, true);
-    }
-
-    /**
-     * <p>Sets number of times the app has been launched.</p>
-     *
-     * @param context context
-     * @param launchTimes number of launch times to set
-     */
-    static void setLaunchTimes(final Context context, final short launchTimes) {
-        getPreferencesEditor(context)
-                .putInt(PREF_KEY_LAUNCH_TIMES, launchTimes)
-                .apply();
+        return getState(context).isAgreeShowDialog;
     }
 
     static short getLaunchTimes(final Context context) {
-        return (short) getPreferences(context).getInt(PREF_KEY_LAUNCH_TIMES, 0);
+        return getState(context).launchTimes;
     }
 
-    static void setRemindInterval(final Context context) {
-        getPreferencesEditor(context)
-                .putLong(PREF_KEY_REMIND_INTERVAL, new Date().getTime())
-                .apply();
+    static long getRemindInterval(final Context context) {
+        return getState(context).remindInterval;
     }
 
-    static long getRemindInterval(final Context context) {
-        return getPreferences(context).getLong(PREF_KEY_REMIND_INTERVAL, 0L);
+    static short getRemindLaunchesNumber(final Context context) {
+        return getState(context).remindLaunchesNumber;
     }
 
     /**
-     * <p>Sets to {@link #PREF_KEY_REMIND_LAUNCHES_NUMBER} the current number of app launches.</p>
+     * <p>Sets the remind interval to the current time and the remind launches number to the
+     * current number of app launches.</p>
      * <p>The Library calls this method when the neutral button is clicked.</p>
      *
      * @param context context
      */
-    static void setRemindLaunchesNumber(final Context context) {
-        getPreferencesEditor(context)
-                .putInt(PREF_KEY_REMIND_LAUNCHES_NUMBER, getLaunchTimes(context))
-                .apply();
-    }
-
-    static short getRemindLaunchesNumber(final Context context) {
-        return (short) getPreferences(context).getInt(PREF_KEY_REMIND_LAUNCHES_NUMBER, 0);
+    static void setRemindButtonClick(final Context context) {
+        edit(context)
+                .setRemindInterval(new Date().getTime())
+                .setRemindLaunchesNumber(getLaunchTimes(context))
+                .commit();
     }
 
     /**
@@ -270,29 +258,388 @@ final class PreferenceHelper {
      * @param context context
      */
     static void clearRemindButtonClick(final Context context) {
-        getPreferencesEditor(context)
-                .putLong(PREF_KEY_REMIND_INTERVAL, 0L)
-                .putInt(PREF_KEY_REMIND_LAUNCHES_NUMBER, 0)
-                .apply();
-    }
-
-    static void setVersionCode(final Context context) {
-        getPreferencesEditor(context)
-                .putLong(PREF_KEY_VERSION_CODE, AppInformation.getLongVersionCode(context))
-                .apply();
+        edit(context)
+                .setRemindInterval(0L)
+                .setRemindLaunchesNumber((short) 0)
+                .commit();
     }
 
     static long getVersionCode(final Context context) {
-        return getPreferences(context).getLong(PREF_KEY_VERSION_CODE, 0L);
+        return getState(context).versionCode;
     }
 
-    static void setVersionName(final Context context) {
-        getPreferencesEditor(context)
-                .putString(PREF_KEY_VERSION_NAME, AppInformation.getVersionName(context))
-                .apply();
+    static String getVersionName(final Context context) {
+        return getState(context).versionName;
     }
 
-    static String getVersionName(final Context context) {
-        return getPreferences(context).getString(PREF_KEY_VERSION_NAME, EMPTY_STRING);
+    /**
+     * <p>PreferenceHelper.Transaction Class - the batched write class of the AndroidRate
+     * library.</p>
+     * <p>Changes are collected in memory and {@link #commit()} applies them to the current state
+     * snapshot and to the preference file at once. Values equal to the current ones aren't written,
+     * and if nothing is changed, no editor is opened at all.</p>
+     *
+     * @since    1.2.5
+     * @version  1.2.5
+     * @author   Alexander Savin
+     */
+    static final class Transaction {
+        private static final int CHANGE_DIALOG_FIRST_LAUNCH_TIME = 1;
+        private static final int CHANGE_INSTALL_DATE = 1 << 1;
+        private static final int CHANGE_IS_AGREE_SHOW_DIALOG = 1 << 2;
+        private static final int CHANGE_LAUNCH_TIMES = 1 << 3;
+        private static final int CHANGE_REMIND_INTERVAL = 1 << 4;
+        private static final int CHANGE_REMIND_LAUNCHES_NUMBER = 1 << 5;
+        private static final int CHANGE_VERSION_CODE = 1 << 6;
+        private static final int CHANGE_VERSION_NAME = 1 << 7;
+        private static final int CHANGE_DIALOG_LAUNCH_HISTORY_RESET = 1 << 8;
+        private static final int CHANGE_DIALOG_LAUNCH_HISTORY_INCREMENT = 1 << 9;
+        private static final int CHANGE_ENGAGEMENT_SCORE = 1 << 10;
+        private static final int CHANGE_LAUNCH_TIMES_INCREMENT = 1 << 11;
+        private static final int CHANGE_ACTIVE_DAY = 1 << 12;
+        private final Context context;
+        private int changes = 0;
+        private long dialogFirstLaunchTime;
+        private long installDate;
+        private boolean isAgreeShowDialog;
+        private short launchTimes;
+        private long remindInterval;
+        private short remindLaunchesNumber;
+        private long versionCode;
+        private String versionName;
+        private Map<String, Short> customEventCounts = null;
+        private Map<String, byte[]> extras = null;
+        private double engagementScoreWeight = 0.0;
+        private long engagementScoreHalfLife;
+        private int activeDay;
+
+        private Transaction(final Context context) {
+            this.context = context;
+        }
+
+        /**
+         * <p>Sets the state of the first launch: the install date is the current time, the
+         * launch times is 1, the remind fields and the Rate Dialog launch history are cleared, the
+         * app version is the current one.</p>
+         *
+         * @return this transaction
+         */
+        @NonNull
+        Transaction setFirstLaunch() {
+            changes |= CHANGE_DIALOG_LAUNCH_HISTORY_RESET;
+            changes &= ~CHANGE_DIALOG_LAUNCH_HISTORY_INCREMENT;
+            return setDialogFirstLaunchTime(0L)
+                    .setInstallDate(new Date().getTime())
+                    .setLaunchTimes((short) 1)
+                    .setRemindInterval(0L)
+                    .setRemindLaunchesNumber((short) 0)
+                    .setVersionCode(AppInformation.getLongVersionCode(context))
+                    .setVersionName(AppInformation.getVersionName(context));
+        }
+
+        @NonNull
+        Transaction setDialogFirstLaunchTime(final long dialogFirstLaunchTime) {
+            this.dialogFirstLaunchTime = dialogFirstLaunchTime;
+            changes |= CHANGE_DIALOG_FIRST_LAUNCH_TIME;
+            return this;
+        }
+
+        @NonNull
+        Transaction setInstallDate(final long installDate) {
+            this.installDate = installDate;
+            changes |= CHANGE_INSTALL_DATE;
+            return this;
+        }
+
+        @NonNull
+        Transaction setIsAgreeShowDialog(final boolean isAgreeShowDialog) {
+            this.isAgreeShowDialog = isAgreeShowDialog;
+            changes |= CHANGE_IS_AGREE_SHOW_DIALOG;
+            return this;
+        }
+
+        @NonNull
+        Transaction setLaunchTimes(final short launchTimes) {
+            this.launchTimes = launchTimes;
+            changes |= CHANGE_LAUNCH_TIMES;
+            changes &= ~CHANGE_LAUNCH_TIMES_INCREMENT;
+            return this;
+        }
+
+        /**
+         * <p>Increments the launch times. The launch times are read and written by
+         * {@link #commit()} under the state lock, so concurrent increments aren't lost.</p>
+         *
+         * @return this transaction
+         */
+        @NonNull
+        Transaction incrementLaunchTimes() {
+            changes |= CHANGE_LAUNCH_TIMES_INCREMENT;
+            changes &= ~CHANGE_LAUNCH_TIMES;
+            return this;
+        }
+
+        @NonNull
+        Transaction setRemindInterval(final long remindInterval) {
+            this.remindInterval = remindInterval;
+            changes |= CHANGE_REMIND_INTERVAL;
+            return this;
+        }
+
+        @NonNull
+        Transaction setRemindLaunchesNumber(final short remindLaunchesNumber) {
+            this.remindLaunchesNumber = remindLaunchesNumber;
+            changes |= CHANGE_REMIND_LAUNCHES_NUMBER;
+            return this;
+        }
+
+        @NonNull
+        Transaction setVersionCode(final long versionCode) {
+            this.versionCode = versionCode;
+            changes |= CHANGE_VERSION_CODE;
+            return this;
+        }
+
+        @NonNull
+        Transaction setVersionName(@NonNull final String versionName) {
+            this.versionName = versionName;
+            changes |= CHANGE_VERSION_NAME;
+            return this;
+        }
+
+        @NonNull
+        Transaction setCustomEventCount(@NonNull final String eventName, final short eventCount) {
+            if (customEventCounts == null) {
+                customEventCounts = new HashMap<>();
+            }
+            customEventCounts.put(eventName, eventCount);
+            return this;
+        }
+
+        /**
+         * <p>Sets the extra, the serialized library record.</p>
+         *
+         * @param key the extra key
+         * @param value the serialized value, null to remove it
+         * @return this transaction
+         */
+        @NonNull
+        Transaction setExtra(@NonNull final String key, @Nullable final byte[] value) {
+            if (extras == null) {
+                extras = new HashMap<>();
+            }
+            extras.put(key, value);
+            return this;
+        }
+
+        /**
+         * <p>Increments the current day counter of the 365-day period Rate Dialog launch
+         * history.</p>
+         * <p>The current day is counted from the first Rate Dialog launch time, that is the result
+         * of this transaction.</p>
+         *
+         * @return this transaction
+         */
+        @NonNull
+        Transaction increment365DayPeriodDialogLaunchTimes() {
+            changes |= CHANGE_DIALOG_LAUNCH_HISTORY_INCREMENT;
+            return this;
+        }
+
+        /**
+         * <p>Adds the weight to the engagement score at the time of this transaction.</p>
+         *
+         * @param weight the weight
+         * @param halfLife the engagement score half-life in milliseconds
+         * @return this transaction
+         * @see EngagementScore
+         */
+        @NonNull
+        Transaction addEngagementScore(final double weight, final long halfLife) {
+            engagementScoreWeight += weight;
+            engagementScoreHalfLife = halfLife;
+            changes |= CHANGE_ENGAGEMENT_SCORE;
+            return this;
+        }
+
+        /**
+         * <p>Marks the day as active in the {@link ActivityBitmap} extra. The bitmap is read and
+         * written by {@link #commit()} under the state lock.</p>
+         *
+         * @param day the number of the day since the epoch
+         * @return this transaction
+         */
+        @NonNull
+        Transaction setActiveDay(final int day) {
+            activeDay = day;
+            changes |= CHANGE_ACTIVE_DAY;
+            return this;
+        }
+
+        private boolean isChanged(final int change) {
+            return (changes & change) != 0;
+        }
+
+        /**
+         * <p>Applies all changes to the state snapshot and writes changed values by a single
+         * editor commit.</p>
+         */
+        void commit() {
+            synchronized (STATE_LOCK) {
+                final RateState currentState = getState(context);
+                RateStore.Editor editor = null;
+
+                long newDialogFirstLaunchTime = currentState.dialogFirstLaunchTime;
+                if (isChanged(CHANGE_DIALOG_FIRST_LAUNCH_TIME) &&
+                    (dialogFirstLaunchTime != newDialogFirstLaunchTime)) {
+                    newDialogFirstLaunchTime = dialogFirstLaunchTime;
+                    editor = getRateStore(context).edit();
+                    editor.setDialogFirstLaunchTime(newDialogFirstLaunchTime);
+                }
+                long newInstallDate = currentState.installDate;
+                if (isChanged(CHANGE_INSTALL_DATE) && (installDate != newInstallDate)) {
+                    newInstallDate = installDate;
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setInstallDate(newInstallDate);
+                }
+                boolean newIsAgreeShowDialog = currentState.isAgreeShowDialog;
+                if (isChanged(CHANGE_IS_AGREE_SHOW_DIALOG) &&
+                    (isAgreeShowDialog != newIsAgreeShowDialog)) {
+                    newIsAgreeShowDialog = isAgreeShowDialog;
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setAgreeShowDialog(newIsAgreeShowDialog);
+                }
+                short newLaunchTimes = currentState.launchTimes;
+                if (isChanged(CHANGE_LAUNCH_TIMES_INCREMENT) &&
+                    (newLaunchTimes != Short.MAX_VALUE)) {
+                    newLaunchTimes++;
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setLaunchTimes(newLaunchTimes);
+                } else if (isChanged(CHANGE_LAUNCH_TIMES) && (launchTimes != newLaunchTimes)) {
+                    newLaunchTimes = launchTimes;
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setLaunchTimes(newLaunchTimes);
+                }
+                long newRemindInterval = currentState.remindInterval;
+                if (isChanged(CHANGE_REMIND_INTERVAL) && (remindInterval != newRemindInterval)) {
+                    newRemindInterval = remindInterval;
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setRemindInterval(newRemindInterval);
+                }
+                short newRemindLaunchesNumber = currentState.remindLaunchesNumber;
+                if (isChanged(CHANGE_REMIND_LAUNCHES_NUMBER) &&
+                    (remindLaunchesNumber != newRemindLaunchesNumber)) {
+                    newRemindLaunchesNumber = remindLaunchesNumber;
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setRemindLaunchesNumber(newRemindLaunchesNumber);
+                }
+                long newVersionCode = currentState.versionCode;
+                if (isChanged(CHANGE_VERSION_CODE) && (versionCode != newVersionCode)) {
+                    newVersionCode = versionCode;
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setVersionCode(newVersionCode);
+                }
+                String newVersionName = currentState.versionName;
+                if (isChanged(CHANGE_VERSION_NAME) && !newVersionName.equals(versionName)) {
+                    newVersionName = versionName;
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setVersionName(newVersionName);
+                }
+                Map<String, Short> newCustomEventCounts = currentState.customEventCounts;
+                if (customEventCounts != null) {
+                    for (Map.Entry<String, Short> entry : customEventCounts.entrySet()) {
+                        final Short eventCount = newCustomEventCounts.get(entry.getKey());
+                        if (!entry.getValue().equals(eventCount)) {
+                            if (newCustomEventCounts == currentState.customEventCounts) {
+                                newCustomEventCounts = new HashMap<>(newCustomEventCounts);
+                            }
+                            newCustomEventCounts.put(entry.getKey(), entry.getValue());
+                            editor = (editor == null) ? getRateStore(context).edit() : editor;
+                            editor.setCustomEventCount(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    if (newCustomEventCounts != currentState.customEventCounts) {
+                        newCustomEventCounts = Collections.unmodifiableMap(newCustomEventCounts);
+                    }
+                }
+                // the history is changed in place, it is guarded by the state lock
+                final DialogLaunchHistory dialogLaunchHistory = currentState.dialogLaunchHistory;
+                if (isChanged(CHANGE_DIALOG_LAUNCH_HISTORY_RESET)) {
+                    dialogLaunchHistory.clear();
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setDialogLaunchHistory(null);
+                }
+                if (isChanged(CHANGE_DIALOG_LAUNCH_HISTORY_INCREMENT)) {
+                    dialogLaunchHistory.increment(
+                            (int) ((new Date().getTime() - newDialogFirstLaunchTime) / Time.DAY));
+                    editor = (editor == null) ? getRateStore(context).edit() : editor;
+                    editor.setDialogLaunchHistory(dialogLaunchHistory.toByteArray());
+                }
+
+                // the precomputed eligibility depends on all changes except the launch times
+                final boolean isEligibilityInputChanged = (editor != null) &&
+                        ((newDialogFirstLaunchTime != currentState.dialogFirstLaunchTime) ||
+                         (newInstallDate != currentState.installDate) ||
+                         (newIsAgreeShowDialog != currentState.isAgreeShowDialog) ||
+                         (newRemindInterval != currentState.remindInterval) ||
+                         (newRemindLaunchesNumber != currentState.remindLaunchesNumber) ||
+                         (newCustomEventCounts != currentState.customEventCounts) ||
+                         isChanged(CHANGE_DIALOG_LAUNCH_HISTORY_RESET |
+                                   CHANGE_DIALOG_LAUNCH_HISTORY_INCREMENT));
+                if (isEligibilityInputChanged &&
+                    (currentState.getExtra(EligibilityRecord.EXTRA_KEY) != null) &&
+                    ((extras == null) || !extras.containsKey(EligibilityRecord.EXTRA_KEY))) {
+                    setExtra(EligibilityRecord.EXTRA_KEY, null);
+                }
+                if (isChanged(CHANGE_ACTIVE_DAY)) {
+                    final ActivityBitmap activityBitmap = ActivityBitmap
+                            .fromByteArray(currentState.getExtra(ActivityBitmap.EXTRA_KEY));
+                    final ActivityBitmap newActivityBitmap = activityBitmap.set(activeDay);
+                    if (newActivityBitmap != activityBitmap) {
+                        setExtra(ActivityBitmap.EXTRA_KEY, newActivityBitmap.toByteArray());
+                    }
+                }
+                if (isChanged(CHANGE_ENGAGEMENT_SCORE) && (engagementScoreWeight != 0.0)) {
+                    setExtra(EngagementScore.EXTRA_KEY, EngagementScore
+                            .fromByteArray(currentState.getExtra(EngagementScore.EXTRA_KEY))
+                            .add(new Date().getTime(), engagementScoreHalfLife,
+                                 engagementScoreWeight)
+                            .toByteArray());
+                }
+                Map<String, byte[]> newExtras = currentState.extras;
+                if (extras != null) {
+                    for (Map.Entry<String, byte[]> entry : extras.entrySet()) {
+                        if (!Arrays.equals(entry.getValue(), newExtras.get(entry.getKey()))) {
+                            if (newExtras == currentState.extras) {
+                                newExtras = new HashMap<>(newExtras);
+                            }
+                            if (entry.getValue() == null) {
+                                newExtras.remove(entry.getKey());
+                            } else {
+                                newExtras.put(entry.getKey(), entry.getValue());
+                            }
+                            editor = (editor == null) ? getRateStore(context).edit() : editor;
+                            editor.setExtra(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    if (newExtras != currentState.extras) {
+                        newExtras = Collections.unmodifiableMap(newExtras);
+                    }
+                }
+
+                if (editor != null) {
+                    editor.apply();
+                    state = new RateState(newDialogFirstLaunchTime, newInstallDate,
+                            newIsAgreeShowDialog, newLaunchTimes, newRemindInterval,
+                            newRemindLaunchesNumber, newVersionCode, newVersionName,
+                            newCustomEventCounts, dialogLaunchHistory, newExtras);
+                    // extras keep the active days bitmap and the precomputed eligibility
+                    if (isEligibilityInputChanged || (newLaunchTimes != currentState.launchTimes) ||
+                        (newExtras != currentState.extras)) {
+                        conditionsInputsVersion++;
+                    }
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+import androidx.annotation.IntDef
+
+/**
+ * RateDecision Class - the Rate Dialog decisions class of the AndroidRate library.
+ *
+ * Contains Rate Dialog decisions constants and [AnyRateDecision] annotation. A decision is either
+ * [SHOW] or the first Rate Dialog condition that isn't met.
+ *
+ * @constructor Don't create an instance of this class. Use its members directly.
+ * @since       1.2.5
+ * @version     1.2.5
+ * @author      Alexander Savin
+ * @see AppRate.getRateDecision
+ */
+open class RateDecision {
+    /**
+     * Denotes that the annotated element of the primitive type int represents a logical type and
+     * that its value should be one of the following constants: [SHOW], [NOT_AGREED],
+     * [LAUNCH_TIMES], [SELECTED_APP_LAUNCH], [INSTALL_DATE], [REMIND_DATE],
+     * [REMIND_LAUNCHES_NUMBER], [CUSTOM_EVENTS], [DIALOG_LAUNCH_TIMES], [PRECOMPUTED],
+     * [ACTIVE_DAYS], [ENGAGEMENT_SCORE].
+     *
+     * @since       1.2.5
+     * @version     1.2.5
+     * @author      Alexander Savin
+     */
+    @MustBeDocumented
+    @Retention(AnnotationRetention.SOURCE)
+    @IntDef(SHOW, NOT_AGREED, LAUNCH_TIMES, SELECTED_APP_LAUNCH, INSTALL_DATE, REMIND_DATE,
+            REMIND_LAUNCHES_NUMBER, CUSTOM_EVENTS, DIALOG_LAUNCH_TIMES, PRECOMPUTED, ACTIVE_DAYS,
+            ENGAGEMENT_SCORE)
+    annotation class AnyRateDecision
+
+    /** Contains constants for Rate Dialog decisions. */
+    companion object {
+        /** All conditions are met, the Rate Dialog should be shown. */
+        const val SHOW: Int = 0
+        /** The Rate Dialog was declined or the app was rated. */
+        const val NOT_AGREED: Int = 1
+        /** The app isn't launched enough times. */
+        const val LAUNCH_TIMES: Int = 2
+        /** The app launch isn't selected. */
+        const val SELECTED_APP_LAUNCH: Int = 3
+        /** Not enough time has passed since the installation. */
+        const val INSTALL_DATE: Int = 4
+        /** Not enough time has passed since the Neutral button click. */
+        const val REMIND_DATE: Int = 5
+        /** The app isn't launched enough times since the Neutral button click. */
+        const val REMIND_LAUNCHES_NUMBER: Int = 6
+        /** Custom events haven't reached their minimum counts. */
+        const val CUSTOM_EVENTS: Int = 7
+        /** The Rate Dialog has been shown the max number of times within a period. */
+        const val DIALOG_LAUNCH_TIMES: Int = 8
+        /** The precomputed eligibility says the conditions aren't met yet. */
+        const val PRECOMPUTED: Int = 9
+        /** The app hasn't been launched on enough days of the period. */
+        const val ACTIVE_DAYS: Int = 10
+        /** The decayed engagement score is below the minimum score. */
+        const val ENGAGEMENT_SCORE: Int = 11
+    }
+}
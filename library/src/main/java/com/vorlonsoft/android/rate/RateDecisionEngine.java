@@ -0,0 +1,689 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import androidx.annotation.NonNull;
+
+import static com.vorlonsoft.android.rate.RateDecision.ACTIVE_DAYS;
+import static com.vorlonsoft.android.rate.RateDecision.CUSTOM_EVENTS;
+import static com.vorlonsoft.android.rate.RateDecision.DIALOG_LAUNCH_TIMES;
+import static com.vorlonsoft.android.rate.RateDecision.ENGAGEMENT_SCORE;
+import static com.vorlonsoft.android.rate.RateDecision.INSTALL_DATE;
+import static com.vorlonsoft.android.rate.RateDecision.LAUNCH_TIMES;
+import static com.vorlonsoft.android.rate.RateDecision.NOT_AGREED;
+import static com.vorlonsoft.android.rate.RateDecision.PRECOMPUTED;
+import static com.vorlonsoft.android.rate.RateDecision.REMIND_DATE;
+import static com.vorlonsoft.android.rate.RateDecision.REMIND_LAUNCHES_NUMBER;
+import static com.vorlonsoft.android.rate.RateDecision.SELECTED_APP_LAUNCH;
+import static com.vorlonsoft.android.rate.RateDecision.SHOW;
+
+/**
+ * <p>RateDecisionEngine Class - the Rate Dialog conditions class of the AndroidRate library.</p>
+ * <p>Keeps the Rate Dialog conditions options and evaluates the conditions against one
+ * {@link RateState} snapshot and one time, every condition is a pure function of them and of the
+ * options. The decision is one of the {@link RateDecision} constants, so it's free to build and
+ * can be logged as is.</p>
+ * <p>Every condition has a cost class. The conditions are evaluated in the ascending order of the
+ * cost per rejection: the cost class divided by the condition rejection rate, that is counted at
+ * runtime. So cheap in-memory conditions go first and the condition, that rejects the most, goes
+ * as early as its cost allows. The order is updated every {@link #REORDER_INTERVAL}
+ * evaluations.</p>
+ * <p>The decision is memoized with the earliest time it can be changed by time passing, e.g. the
+ * install date or the remind interval expiry. It is invalidated only by the options setters, by
+ * custom events increments and writes, and by writes of other Rate Dialog conditions inputs, e.g.
+ * the launch times and the agree flag.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see RateDecision
+ */
+final class RateDecisionEngine {
+
+    /** <p>The cost class of the comparison of in-memory fields.</p> */
+    static final int COST_CLASS_FIELD = 1;
+    /** <p>The cost class of the time arithmetic.</p> */
+    static final int COST_CLASS_TIME = 2;
+    /** <p>The cost class of the Rate Dialog launch history queries.</p> */
+    static final int COST_CLASS_HISTORY = 16;
+    /** <p>The number of evaluations between the conditions reorders.</p> */
+    private static final int REORDER_INTERVAL = 64;
+    /** <p>The number of condition evaluations, that halves the statistics.</p> */
+    private static final int STATISTICS_HALVING_THRESHOLD = 4096;
+    /**
+     * <p>The last condition value. Conditions are numbered from {@link RateDecision#NOT_AGREED},
+     * new ones are appended, so {@link RateDecision#PRECOMPUTED} isn't a condition, but it is in
+     * the range.</p>
+     */
+    private static final int CONDITIONS_NUMBER = ENGAGEMENT_SCORE;
+    /** <p>The cost classes of conditions, indexed by a condition.</p> */
+    private static final int[] COST_CLASSES = new int[CONDITIONS_NUMBER + 1];
+
+    static {
+        COST_CLASSES[NOT_AGREED] = COST_CLASS_FIELD;
+        COST_CLASSES[LAUNCH_TIMES] = COST_CLASS_FIELD;
+        COST_CLASSES[SELECTED_APP_LAUNCH] = COST_CLASS_FIELD;
+        COST_CLASSES[REMIND_LAUNCHES_NUMBER] = COST_CLASS_FIELD;
+        COST_CLASSES[INSTALL_DATE] = COST_CLASS_TIME;
+        COST_CLASSES[REMIND_DATE] = COST_CLASS_TIME;
+        COST_CLASSES[CUSTOM_EVENTS] = COST_CLASS_FIELD;
+        COST_CLASSES[DIALOG_LAUNCH_TIMES] = COST_CLASS_HISTORY;
+        COST_CLASSES[ACTIVE_DAYS] = COST_CLASS_HISTORY;
+        COST_CLASSES[ENGAGEMENT_SCORE] = COST_CLASS_HISTORY;
+    }
+
+    private final CustomEventCounters customEventCounters;
+    /** <p>The number of evaluations of every condition, indexed by a condition.</p> */
+    private final AtomicIntegerArray evaluationsNumbers =
+            new AtomicIntegerArray(CONDITIONS_NUMBER + 1);
+    /** <p>The number of rejections by every condition, indexed by a condition.</p> */
+    private final AtomicIntegerArray rejectionsNumbers =
+            new AtomicIntegerArray(CONDITIONS_NUMBER + 1);
+    private final AtomicInteger evaluationsSinceReorder = new AtomicInteger(0);
+    /** <p>The current conditions evaluation order, it is replaced, not modified.</p> */
+    private volatile int[] conditionsOrder = {NOT_AGREED, LAUNCH_TIMES, SELECTED_APP_LAUNCH,
+            REMIND_LAUNCHES_NUMBER, CUSTOM_EVENTS, INSTALL_DATE, REMIND_DATE, DIALOG_LAUNCH_TIMES,
+            ACTIVE_DAYS, ENGAGEMENT_SCORE};
+    /** <p>The version of the options, it is changed by every options setter.</p> */
+    private final AtomicInteger optionsVersion = new AtomicInteger(0);
+    /** <p>The last decision, null if there is no decision yet.</p> */
+    private volatile MemoizedDecision memoizedDecision = null;
+    private volatile long installDate = Time.DAY * 10L;
+    private volatile byte appLaunchTimes = (byte) 10;
+    private volatile long remindInterval = Time.DAY;
+    private volatile byte remindLaunchesNumber = (byte) 0;
+    private volatile byte selectedAppLaunches = (byte) 1;
+    /**
+     * <p>The Rate Dialog launch caps, pairs of the period length in days and the max number of
+     * occurrences of the display of the dialog within the period, ordered by the period length.
+     * No pairs means unlimited occurrences. The array is replaced, not modified.</p>
+     */
+    private volatile short[] dialogLaunchCaps = new short[0];
+    /** <p>The min number of active days within {@link #activeDaysPeriod}, 0 means any.</p> */
+    private volatile short activeDays = (short) 0;
+    private volatile short activeDaysPeriod = (short) 0;
+    /** <p>The min engagement score, 0 means any.</p> */
+    private volatile float minimumEngagementScore = 0.0f;
+    /**
+     * <p>The last Rate Dialog conditions options hash, null if it isn't computed yet. The hash is
+     * replaced, not modified.</p>
+     */
+    private volatile ConditionsHash conditionsHash = null;
+
+    RateDecisionEngine(@NonNull final CustomEventCounters customEventCounters) {
+        this.customEventCounters = customEventCounters;
+    }
+
+    /**
+     * <p>Returns the decision name for logging.</p>
+     *
+     * @param decision one of the values defined by {@link RateDecision.AnyRateDecision}
+     * @return the decision name
+     */
+    @NonNull
+    static String getDecisionName(@RateDecision.AnyRateDecision final int decision) {
+        switch (decision) {
+            case SHOW:
+                return "SHOW";
+            case NOT_AGREED:
+                return "NOT_AGREED";
+            case LAUNCH_TIMES:
+                return "LAUNCH_TIMES";
+            case SELECTED_APP_LAUNCH:
+                return "SELECTED_APP_LAUNCH";
+            case INSTALL_DATE:
+                return "INSTALL_DATE";
+            case REMIND_DATE:
+                return "REMIND_DATE";
+            case REMIND_LAUNCHES_NUMBER:
+                return "REMIND_LAUNCHES_NUMBER";
+            case CUSTOM_EVENTS:
+                return "CUSTOM_EVENTS";
+            case DIALOG_LAUNCH_TIMES:
+                return "DIALOG_LAUNCH_TIMES";
+            case ACTIVE_DAYS:
+                return "ACTIVE_DAYS";
+            case ENGAGEMENT_SCORE:
+                return "ENGAGEMENT_SCORE";
+            case PRECOMPUTED:
+                return "PRECOMPUTED";
+            default:
+                return String.valueOf(decision);
+        }
+    }
+
+    void setInstallDate(final long installDate) {
+        this.installDate = installDate;
+        optionsVersion.incrementAndGet();
+    }
+
+    void setAppLaunchTimes(final byte appLaunchTimes) {
+        this.appLaunchTimes = appLaunchTimes;
+        optionsVersion.incrementAndGet();
+    }
+
+    void setRemindInterval(final long remindInterval) {
+        this.remindInterval = remindInterval;
+        optionsVersion.incrementAndGet();
+    }
+
+    void setRemindLaunchesNumber(final byte remindLaunchesNumber) {
+        this.remindLaunchesNumber = remindLaunchesNumber;
+        optionsVersion.incrementAndGet();
+    }
+
+    void setSelectedAppLaunches(final byte selectedAppLaunches) {
+        this.selectedAppLaunches = selectedAppLaunches;
+        optionsVersion.incrementAndGet();
+    }
+
+    /**
+     * <p>Sets the max number of occurrences of the display of the Rate Dialog within the period,
+     * caps of other periods are kept.</p>
+     *
+     * @param days the period length in days from 1 to {@link Constants.Date#YEAR_IN_DAYS}
+     * @param dialogLaunchTimes the max number of occurrences, {@code Short.MAX_VALUE} removes the
+     *                          cap of the period
+     */
+    synchronized void setDialogLaunchTimes(final short days, final short dialogLaunchTimes) {
+        final short[] caps = dialogLaunchCaps;
+        int index = 0;
+        while ((index < caps.length) && (caps[index] < days)) {
+            index += 2;
+        }
+        final boolean isFound = (index < caps.length) && (caps[index] == days);
+        final short[] newCaps;
+        if (dialogLaunchTimes == Short.MAX_VALUE) {
+            if (!isFound) {
+                return;
+            }
+            newCaps = new short[caps.length - 2];
+            System.arraycopy(caps, 0, newCaps, 0, index);
+            System.arraycopy(caps, index + 2, newCaps, index, caps.length - index - 2);
+        } else if (isFound) {
+            newCaps = caps.clone();
+            newCaps[index + 1] = dialogLaunchTimes;
+        } else {
+            newCaps = new short[caps.length + 2];
+            System.arraycopy(caps, 0, newCaps, 0, index);
+            newCaps[index] = days;
+            newCaps[index + 1] = dialogLaunchTimes;
+            System.arraycopy(caps, index, newCaps, index + 2, caps.length - index);
+        }
+        dialogLaunchCaps = newCaps;
+        optionsVersion.incrementAndGet();
+    }
+
+    /**
+     * <p>Sets the min number of days the app is launched at within the period.</p>
+     *
+     * @param activeDays the min number of active days, 0 means any
+     * @param days the period length in days from 1 to {@link Constants.Date#YEAR_IN_DAYS}
+     */
+    void setActiveDays(final short activeDays, final short days) {
+        this.activeDays = activeDays;
+        this.activeDaysPeriod = days;
+        optionsVersion.incrementAndGet();
+    }
+
+    void setMinimumEngagementScore(final float minimumEngagementScore) {
+        this.minimumEngagementScore = minimumEngagementScore;
+        optionsVersion.incrementAndGet();
+    }
+
+    void setEngagementHalfLife(final long engagementHalfLife) {
+        customEventCounters.setEngagementHalfLife(engagementHalfLife);
+        optionsVersion.incrementAndGet();
+    }
+
+    /**
+     * <p>Returns true if a met condition can become unmet as time passes, so the decision can't
+     * be precomputed.</p>
+     *
+     * @return true if there are active days, engagement score or windowed custom events
+     *         requirements
+     */
+    boolean hasExpiringConditions() {
+        return (activeDays != 0) || (minimumEngagementScore != 0.0f) ||
+               customEventCounters.hasWindowedMinimumCounts();
+    }
+
+    void setMinimumEventCount(@NonNull final String eventName, final short minimumCount,
+                              final int days) {
+        customEventCounters.setMinimumCount(eventName, minimumCount, days);
+        optionsVersion.incrementAndGet();
+    }
+
+    /**
+     * <p>Returns the hash of the Rate Dialog conditions options, it is cached until an option is
+     * changed. The hash is stamped with the options version taken before the options are read,
+     * so a hash computed concurrently with an option change is never taken for the current
+     * one.</p>
+     *
+     * @return the hash of the Rate Dialog conditions options
+     */
+    long getConditionsHash() {
+        final int currentOptionsVersion = optionsVersion.get();
+        final ConditionsHash currentConditionsHash = conditionsHash;
+        if ((currentConditionsHash != null) &&
+            (currentConditionsHash.optionsVersion == currentOptionsVersion)) {
+            return currentConditionsHash.hash;
+        }
+        long hash = installDate;
+        hash = (hash * 0x9E3779B97F4A7C15L) + appLaunchTimes;
+        hash = (hash * 0x9E3779B97F4A7C15L) + remindInterval;
+        hash = (hash * 0x9E3779B97F4A7C15L) + remindLaunchesNumber;
+        hash = (hash * 0x9E3779B97F4A7C15L) + selectedAppLaunches;
+        for (short value : dialogLaunchCaps) {
+            hash = (hash * 0x9E3779B97F4A7C15L) + value;
+        }
+        hash = (hash * 0x9E3779B97F4A7C15L) + activeDays;
+        hash = (hash * 0x9E3779B97F4A7C15L) + activeDaysPeriod;
+        hash = (hash * 0x9E3779B97F4A7C15L) + Float.floatToIntBits(minimumEngagementScore);
+        hash = (hash * 0x9E3779B97F4A7C15L) + customEventCounters.getEngagementHalfLife();
+        hash = (hash * 0x9E3779B97F4A7C15L) + customEventCounters.getMinimumCountsHash();
+        conditionsHash = new ConditionsHash(currentOptionsVersion, hash);
+        return hash;
+    }
+
+    /**
+     * <p>Returns the memoized decision if it is valid at the time, otherwise evaluates the Rate
+     * Dialog conditions against the state returned by {@link CustomEventCounters#getSnapshot()} and
+     * memoizes the decision. Increments don't change the custom events counts version, so the
+     * memoized decision isn't used while there are unflushed increments.</p>
+     *
+     * @param time the current time
+     * @return {@link RateDecision#SHOW} if the conditions are met, the first condition in the
+     *         current evaluation order that isn't met otherwise
+     * @see #evaluate(RateState, boolean, long)
+     */
+    @RateDecision.AnyRateDecision
+    int getDecision(final long time) {
+        // versions are read before the state, so a concurrent write invalidates the new decision
+        final int currentOptionsVersion = optionsVersion.get();
+        final int inputsVersion = PreferenceHelper.getConditionsInputsVersion();
+        final int countsVersion = customEventCounters.getCountsVersion();
+        final MemoizedDecision currentMemoizedDecision = memoizedDecision;
+        if ((currentMemoizedDecision != null) &&
+            (currentMemoizedDecision.optionsVersion == currentOptionsVersion) &&
+            (currentMemoizedDecision.inputsVersion == inputsVersion) &&
+            (currentMemoizedDecision.countsVersion == countsVersion) &&
+            !customEventCounters.hasPendingIncrements() &&
+            (time >= currentMemoizedDecision.validFrom) &&
+            (time < currentMemoizedDecision.validUntil)) {
+            return currentMemoizedDecision.decision;
+        }
+        final CustomEventCounters.Snapshot snapshot = customEventCounters.getSnapshot();
+        final RateState state = snapshot.state;
+        final int decision = evaluate(state, snapshot.isOverMinimumCounts, time);
+        long validUntil = getFlipTime(decision, state, time);
+        if ((activeDays != 0) || customEventCounters.hasWindowedMinimumCounts()) {
+            // windowed counts and active days can decrease at the next day
+            validUntil = Math.min(validUntil, ((time / Time.DAY) + 1) * Time.DAY);
+        }
+        if (minimumEngagementScore != 0.0f) {
+            validUntil = Math.min(validUntil, getEngagementScoreExpiry(state, time));
+        }
+        memoizedDecision = new MemoizedDecision(currentOptionsVersion, inputsVersion,
+                countsVersion, decision, time, validUntil);
+        return decision;
+    }
+
+    /**
+     * <p>Returns the earliest time the decision can be changed by time passing.</p>
+     * <p>Met conditions stay met as time passes, except active days, engagement score and
+     * windowed custom events requirements, so only the time condition, that isn't met, can change
+     * the decision.</p>
+     *
+     * @param decision the decision returned by {@link #evaluate(RateState, boolean, long)}
+     * @param state the state the decision is made for
+     * @param time the time the decision is made at
+     * @return the earliest time the decision can be changed, {@code Long.MAX_VALUE} if it can't be
+     *         changed by time passing
+     */
+    private long getFlipTime(@RateDecision.AnyRateDecision final int decision,
+                             @NonNull final RateState state, final long time) {
+        switch (decision) {
+            case INSTALL_DATE:
+                return state.installDate + installDate;
+            case REMIND_DATE:
+                return state.remindInterval + remindInterval;
+            case DIALOG_LAUNCH_TIMES:
+                final int day = getFirstDayBelowDialogLaunchCaps(state, time);
+                return (day < 0) ? Long.MAX_VALUE : state.dialogFirstLaunchTime + (day * Time.DAY);
+            case PRECOMPUTED:
+                final EligibilityRecord eligibilityRecord = EligibilityRecord.fromByteArray(
+                        state.getExtra(EligibilityRecord.EXTRA_KEY));
+                return (eligibilityRecord == null) ? time : eligibilityRecord.eligibleAt;
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * <p>Evaluates the Rate Dialog conditions.</p>
+     * <p>The precomputed {@link EligibilityRecord} of the state is used if it is computed for the
+     * state number of app launches and for the current options, otherwise every condition is
+     * evaluated.</p>
+     *
+     * @param state the state of the snapshot returned by {@link CustomEventCounters#getSnapshot()}
+     * @param isOverMinimumCounts the custom events requirements status of the snapshot
+     * @param time the current time
+     * @return {@link RateDecision#SHOW} if the conditions are met, the first condition in the
+     *         current evaluation order that isn't met otherwise
+     */
+    @RateDecision.AnyRateDecision
+    int evaluate(@NonNull final RateState state, final boolean isOverMinimumCounts,
+                 final long time) {
+        final EligibilityRecord eligibilityRecord =
+                EligibilityRecord.fromByteArray(state.getExtra(EligibilityRecord.EXTRA_KEY));
+        if ((eligibilityRecord != null) && !hasExpiringConditions() &&
+            (eligibilityRecord.launchTimes == state.launchTimes) &&
+            (eligibilityRecord.conditionsHash == getConditionsHash())) {
+            return (time >= eligibilityRecord.eligibleAt) ? SHOW : PRECOMPUTED;
+        }
+        @RateDecision.AnyRateDecision int decision = SHOW;
+        for (int condition : conditionsOrder) {
+            evaluationsNumbers.incrementAndGet(condition);
+            if (!isConditionMet(condition, state, isOverMinimumCounts, time)) {
+                rejectionsNumbers.incrementAndGet(condition);
+                decision = condition;
+                break;
+            }
+        }
+        if (evaluationsSinceReorder.incrementAndGet() >= REORDER_INTERVAL) {
+            reorderConditions();
+        }
+        return decision;
+    }
+
+    /**
+     * <p>Returns the current conditions evaluation order.</p>
+     *
+     * @return the copy of the conditions order, the {@link RateDecision} constants
+     */
+    @NonNull
+    int[] getConditionsOrder() {
+        return conditionsOrder.clone();
+    }
+
+    /**
+     * <p>Returns the number of evaluations of the condition since the statistics was last
+     * halved.</p>
+     *
+     * @param condition one of the values defined by {@link RateDecision.AnyRateDecision}
+     * @return the number of evaluations, 0 if the value isn't a condition
+     */
+    int getEvaluationsNumber(@RateDecision.AnyRateDecision final int condition) {
+        return isCondition(condition) ? evaluationsNumbers.get(condition) : 0;
+    }
+
+    /**
+     * <p>Returns the number of rejections by the condition since the statistics was last
+     * halved.</p>
+     *
+     * @param condition one of the values defined by {@link RateDecision.AnyRateDecision}
+     * @return the number of rejections, 0 if the value isn't a condition
+     */
+    int getRejectionsNumber(@RateDecision.AnyRateDecision final int condition) {
+        return isCondition(condition) ? rejectionsNumbers.get(condition) : 0;
+    }
+
+    private static boolean isCondition(final int value) {
+        return (value > SHOW) && (value <= CONDITIONS_NUMBER) && (value != PRECOMPUTED);
+    }
+
+    /**
+     * <p>Sorts conditions by the cost per rejection, the Laplace-smoothed rejection rate is used
+     * so conditions, that have never rejected, keep their cost class order.</p>
+     */
+    private synchronized void reorderConditions() {
+        if (evaluationsSinceReorder.get() < REORDER_INTERVAL) {
+            return;
+        }
+        evaluationsSinceReorder.set(0);
+        final int[] order = conditionsOrder.clone();
+        final double[] costsPerRejection = new double[CONDITIONS_NUMBER + 1];
+        boolean isHalvingNeeded = false;
+        for (int condition = NOT_AGREED; condition <= CONDITIONS_NUMBER; condition++) {
+            final int evaluationsNumber = evaluationsNumbers.get(condition);
+            costsPerRejection[condition] = COST_CLASSES[condition] * (evaluationsNumber + 2.0) /
+                                           (rejectionsNumbers.get(condition) + 1.0);
+            isHalvingNeeded |= (evaluationsNumber >= STATISTICS_HALVING_THRESHOLD);
+        }
+        // insertion sort is stable and the order is almost sorted
+        for (int i = 1; i < order.length; i++) {
+            final int condition = order[i];
+            int j = i - 1;
+            while ((j >= 0) && (costsPerRejection[order[j]] > costsPerRejection[condition])) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = condition;
+        }
+        conditionsOrder = order;
+        if (isHalvingNeeded) {
+            for (int condition = NOT_AGREED; condition <= CONDITIONS_NUMBER; condition++) {
+                evaluationsNumbers.addAndGet(condition, -(evaluationsNumbers.get(condition) / 2));
+                rejectionsNumbers.addAndGet(condition, -(rejectionsNumbers.get(condition) / 2));
+            }
+        }
+    }
+
+    private boolean isConditionMet(@RateDecision.AnyRateDecision final int condition,
+                                   @NonNull final RateState state,
+                                   final boolean isOverMinimumCounts, final long time) {
+        switch (condition) {
+            case NOT_AGREED:
+                return state.isAgreeShowDialog;
+            case LAUNCH_TIMES:
+                return isOverLaunchTimes(state.launchTimes);
+            case SELECTED_APP_LAUNCH:
+                return isSelectedAppLaunch(state.launchTimes);
+            case INSTALL_DATE:
+                return isOverInstallDate(state, time);
+            case REMIND_DATE:
+                return isOverRemindDate(state, time);
+            case REMIND_LAUNCHES_NUMBER:
+                return isOverRemindLaunchesNumber(state, state.launchTimes);
+            case CUSTOM_EVENTS:
+                return isOverMinimumCounts;
+            case DIALOG_LAUNCH_TIMES:
+                return isBelowDialogLaunchCaps(state, time);
+            case ACTIVE_DAYS:
+                return isOverActiveDays(state, time);
+            case ENGAGEMENT_SCORE:
+                return (minimumEngagementScore == 0.0f) ||
+                       (getEngagementScore(state, time) >= minimumEngagementScore);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * <p>Computes the time the Rate Dialog conditions are met at the next app launch.</p>
+     * <p>The launch-count conditions, the agree flag and custom events requirements are evaluated
+     * for the next number of app launches, time conditions are reduced to the earliest time they
+     * are all met.</p>
+     *
+     * @param state the state of the snapshot without unflushed increments
+     * @param isOverMinimumCounts the custom events requirements status of the snapshot
+     * @param time the current time
+     * @return the eligibility record for the next app launch
+     */
+    @NonNull
+    EligibilityRecord computeEligibilityRecord(@NonNull final RateState state,
+                                               final boolean isOverMinimumCounts,
+                                               final long time) {
+        final short launchTimes = (short) (state.launchTimes + 1);
+        long eligibleAt = 0L;
+        if (!state.isAgreeShowDialog ||
+            !isOverLaunchTimes(launchTimes) ||
+            !isSelectedAppLaunch(launchTimes) ||
+            !isOverRemindLaunchesNumber(state, launchTimes) ||
+            !isOverMinimumCounts) {
+            eligibleAt = EligibilityRecord.NEVER;
+        } else {
+            if (installDate != 0L) {
+                eligibleAt = Math.max(eligibleAt, state.installDate + installDate);
+            }
+            if ((remindInterval != 0L) && (state.remindInterval != 0L)) {
+                eligibleAt = Math.max(eligibleAt, state.remindInterval + remindInterval);
+            }
+            if (dialogLaunchCaps.length != 0) {
+                final int day = getFirstDayBelowDialogLaunchCaps(state, time);
+                eligibleAt = (day < 0) ? EligibilityRecord.NEVER :
+                        Math.max(eligibleAt, state.dialogFirstLaunchTime + (day * Time.DAY));
+            }
+        }
+        return new EligibilityRecord(getConditionsHash(), launchTimes, eligibleAt);
+    }
+
+    private boolean isOverLaunchTimes(final short launchTimes) {
+        return ((appLaunchTimes == 0) || (launchTimes >= appLaunchTimes));
+    }
+
+    private boolean isSelectedAppLaunch(final short launchTimes) {
+        return ((selectedAppLaunches == 1) ||
+                ((selectedAppLaunches != 0) && ((launchTimes % selectedAppLaunches) == 0)));
+    }
+
+    private boolean isOverInstallDate(@NonNull final RateState state, final long time) {
+        return ((installDate == 0L) || isOverDate(state.installDate, installDate, time));
+    }
+
+    private boolean isOverRemindDate(@NonNull final RateState state, final long time) {
+        return ((remindInterval == 0L) ||
+                (state.remindInterval == 0L) ||
+                isOverDate(state.remindInterval, remindInterval, time));
+    }
+
+    private boolean isOverRemindLaunchesNumber(@NonNull final RateState state,
+                                               final short launchTimes) {
+        return ((remindLaunchesNumber == 0) ||
+                (state.remindLaunchesNumber == 0) ||
+                (launchTimes - state.remindLaunchesNumber >= remindLaunchesNumber));
+    }
+
+    private boolean isBelowDialogLaunchCaps(@NonNull final RateState state, final long time) {
+        final short[] caps = dialogLaunchCaps;
+        if (caps.length == 0) {
+            return true;
+        }
+        final int day = state.getDialogLaunchDay(time);
+        for (int i = 0; i < caps.length; i += 2) {
+            if (state.dialogLaunchHistory.getCount(day, caps[i]) >= caps[i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>Returns the first day, when the Rate Dialog launches are below all caps, if there are no
+     * new launches. The launch counts don't increase as time passes, so it is the latest of the
+     * days of every cap.</p>
+     *
+     * @param state the state snapshot
+     * @param time the current time
+     * @return the number of the day since the first Rate Dialog launch time, -1 if a cap isn't
+     *         positive
+     */
+    private int getFirstDayBelowDialogLaunchCaps(@NonNull final RateState state, final long time) {
+        final short[] caps = dialogLaunchCaps;
+        final int day = state.getDialogLaunchDay(time);
+        int belowDay = day;
+        for (int i = 0; i < caps.length; i += 2) {
+            final int capBelowDay =
+                    state.dialogLaunchHistory.getFirstDayBelow(day, caps[i + 1], caps[i]);
+            if (capBelowDay < 0) {
+                return -1;
+            }
+            belowDay = Math.max(belowDay, capBelowDay);
+        }
+        return belowDay;
+    }
+
+    private boolean isOverActiveDays(@NonNull final RateState state, final long time) {
+        return ((activeDays == 0) ||
+                (ActivityBitmap.fromByteArray(state.getExtra(ActivityBitmap.EXTRA_KEY))
+                        .getCount(EventWindow.getDay(time), activeDaysPeriod) >= activeDays));
+    }
+
+    /**
+     * <p>Returns the engagement score at the time including unflushed custom events
+     * increments.</p>
+     *
+     * @param state the state snapshot
+     * @param time the current time
+     * @return the engagement score
+     */
+    private double getEngagementScore(@NonNull final RateState state, final long time) {
+        return EngagementScore.fromByteArray(state.getExtra(EngagementScore.EXTRA_KEY))
+                       .getValue(time, customEventCounters.getEngagementHalfLife()) +
+               customEventCounters.getPendingEngagementScore();
+    }
+
+    /**
+     * <p>Returns the time the engagement score decays below the min engagement score at.</p>
+     *
+     * @param state the state snapshot
+     * @param time the current time
+     * @return the time, {@code Long.MAX_VALUE} if the score is already below the min score, so
+     *         time passing doesn't change the condition
+     */
+    private long getEngagementScoreExpiry(@NonNull final RateState state, final long time) {
+        final long halfLife = customEventCounters.getEngagementHalfLife();
+        final EngagementScore engagementScore = EngagementScore
+                .fromByteArray(state.getExtra(EngagementScore.EXTRA_KEY))
+                .add(time, halfLife, customEventCounters.getPendingEngagementScore());
+        return (engagementScore.getValue(time, halfLife) < minimumEngagementScore) ?
+                Long.MAX_VALUE : engagementScore.getTimeBelow(minimumEngagementScore, halfLife);
+    }
+
+    private static boolean isOverDate(final long targetDate, final long threshold,
+                                      final long time) {
+        return time - targetDate >= threshold;
+    }
+
+    /** <p>The conditions options hash with the options version it is computed for.</p> */
+    private static final class ConditionsHash {
+        private final int optionsVersion;
+        private final long hash;
+
+        private ConditionsHash(final int optionsVersion, final long hash) {
+            this.optionsVersion = optionsVersion;
+            this.hash = hash;
+        }
+    }
+
+    /** <p>The decision with the inputs versions and the time range it is valid for.</p> */
+    private static final class MemoizedDecision {
+        private final int optionsVersion;
+        private final int inputsVersion;
+        private final int countsVersion;
+        @RateDecision.AnyRateDecision
+        private final int decision;
+        private final long validFrom;
+        private final long validUntil;
+
+        private MemoizedDecision(final int optionsVersion, final int inputsVersion,
+                                 final int countsVersion,
+                                 @RateDecision.AnyRateDecision final int decision,
+                                 final long validFrom, final long validUntil) {
+            this.optionsVersion = optionsVersion;
+            this.inputsVersion = inputsVersion;
+            this.countsVersion = countsVersion;
+            this.decision = decision;
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+        }
+    }
+}
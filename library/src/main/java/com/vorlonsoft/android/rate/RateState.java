@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING;
+
+/**
+ * <p>RateState Class - the immutable persistent state snapshot class of the AndroidRate
+ * library.</p>
+ * <p>The snapshot is loaded once by {@link PreferenceHelper} and is replaced on every write, so
+ * readers get a consistent state without any disk access.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see PreferenceHelper
+ */
+final class RateState {
+    /** <p>The first Rate Dialog launch time, 0 if the Rate Dialog has never been shown.</p> */
+    final long dialogFirstLaunchTime;
+    /** <p>The install date, 0 if the library has never been launched.</p> */
+    final long installDate;
+    /** <p>The Rate Dialog agree flag.</p> */
+    final boolean isAgreeShowDialog;
+    /** <p>The number of times the app has been launched.</p> */
+    final short launchTimes;
+    /** <p>The time the Neutral button was clicked, 0 if it wasn't clicked.</p> */
+    final long remindInterval;
+    /** <p>The number of app launches at the time the Neutral button was clicked.</p> */
+    final short remindLaunchesNumber;
+    /** <p>The stored version code of the app.</p> */
+    final long versionCode;
+    /** <p>The stored version name of the app.</p> */
+    @NonNull
+    final String versionName;
+    /** <p>The unmodifiable map of custom events counts.</p> */
+    @NonNull
+    final Map<String, Short> customEventCounts;
+    /**
+     * <p>The 365-day period Rate Dialog launch history, the only mutable part of the state, it is
+     * shared by all snapshots of the loaded state.</p>
+     */
+    @NonNull
+    final DialogLaunchHistory dialogLaunchHistory;
+    /** <p>The unmodifiable map of extras, the serialized library records.</p> */
+    @NonNull
+    final Map<String, byte[]> extras;
+
+    RateState(final long dialogFirstLaunchTime,
+              final long installDate,
+              final boolean isAgreeShowDialog,
+              final short launchTimes,
+              final long remindInterval,
+              final short remindLaunchesNumber,
+              final long versionCode,
+              @NonNull final String versionName,
+              @NonNull final Map<String, Short> customEventCounts,
+              @NonNull final DialogLaunchHistory dialogLaunchHistory,
+              @NonNull final Map<String, byte[]> extras) {
+        this.dialogFirstLaunchTime = dialogFirstLaunchTime;
+        this.installDate = installDate;
+        this.isAgreeShowDialog = isAgreeShowDialog;
+        this.launchTimes = launchTimes;
+        this.remindInterval = remindInterval;
+        this.remindLaunchesNumber = remindLaunchesNumber;
+        this.versionCode = versionCode;
+        this.versionName = versionName;
+        this.customEventCounts = customEventCounts;
+        this.dialogLaunchHistory = dialogLaunchHistory;
+        this.extras = extras;
+    }
+
+    /**
+     * <p>Returns the state of the freshly installed app or of the cleared data.</p>
+     *
+     * @return the new state with the new empty Rate Dialog launch history
+     */
+    @NonNull
+    static RateState empty() {
+        return new RateState(0L, 0L, true, (short) 0, 0L, (short) 0, 0L, EMPTY_STRING,
+                Collections.<String, Short>emptyMap(), new DialogLaunchHistory(),
+                Collections.<String, byte[]>emptyMap());
+    }
+
+    /**
+     * <p>Returns the custom event count.</p>
+     *
+     * @param eventName the custom event name
+     * @return the custom event count, 0 if the custom event has never been counted
+     */
+    short getCustomEventCount(@NonNull final String eventName) {
+        final Short eventCount = customEventCounts.get(eventName);
+        return (eventCount == null) ? 0 : eventCount;
+    }
+
+    /**
+     * <p>Returns the extra.</p>
+     * <p>The returned array must not be modified.</p>
+     *
+     * @param key the extra key
+     * @return the serialized extra value, null if it isn't stored
+     */
+    @Nullable
+    byte[] getExtra(@NonNull final String key) {
+        return extras.get(key);
+    }
+
+    /**
+     * <p>Returns the number of the current day since the first Rate Dialog launch time.</p>
+     *
+     * @param time the current time
+     * @return the number of the current day
+     */
+    int getDialogLaunchDay(final long time) {
+        return (int) ((time - dialogFirstLaunchTime) / Time.DAY);
+    }
+
+    /**
+     * <p>Returns the state with the given custom events counts.</p>
+     * <p>The {@link EligibilityRecord} extra is dropped, because it isn't valid for other
+     * counts.</p>
+     *
+     * @param customEventCounts the unmodifiable map of custom events counts
+     * @return the state with the given custom events counts
+     */
+    @NonNull
+    RateState withCustomEventCounts(@NonNull final Map<String, Short> customEventCounts) {
+        Map<String, byte[]> newExtras = extras;
+        if (extras.containsKey(EligibilityRecord.EXTRA_KEY)) {
+            newExtras = new HashMap<>(extras);
+            newExtras.remove(EligibilityRecord.EXTRA_KEY);
+            newExtras = Collections.unmodifiableMap(newExtras);
+        }
+        return new RateState(dialogFirstLaunchTime, installDate, isAgreeShowDialog, launchTimes,
+                remindInterval, remindLaunchesNumber, versionCode, versionName, customEventCounts,
+                dialogLaunchHistory, newExtras);
+    }
+}
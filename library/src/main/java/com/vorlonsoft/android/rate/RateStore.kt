@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate
+
+/**
+ * RateStore Interface - the persistent state storage interface of the AndroidRate library.
+ *
+ * The library reads the whole state from the [RateStore] once per process and then writes only
+ * changes, each public library operation by a single [Editor.apply] call. You can implement the
+ * [RateStore Interface][RateStore] and use [AppRate.with] (Context, RateStore) if you want to
+ * keep the library state somewhere else than in the default [SharedPreferencesRateStore], for
+ * example in the [InMemoryRateStore] for benchmarks and simulations.
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see RateStore.Editor
+ * @see SharedPreferencesRateStore
+ * @see InMemoryRateStore
+ */
+interface RateStore {
+    /**
+     * Returns the first Rate Dialog launch time.
+     *
+     * @return the first Rate Dialog launch time, 0 if the Rate Dialog has never been shown
+     */
+    fun getDialogFirstLaunchTime(): Long
+
+    /**
+     * Returns the install date.
+     *
+     * @return the install date, 0 if the library has never been launched
+     */
+    fun getInstallDate(): Long
+
+    /**
+     * Returns the Rate Dialog agree flag.
+     *
+     * @return the Rate Dialog agree flag, true by default
+     */
+    fun isAgreeShowDialog(): Boolean
+
+    /**
+     * Returns the number of times the app has been launched.
+     *
+     * @return the number of times the app has been launched
+     */
+    fun getLaunchTimes(): Int
+
+    /**
+     * Returns the time the Neutral button was clicked.
+     *
+     * @return the time the Neutral button was clicked, 0 if it wasn't clicked
+     */
+    fun getRemindInterval(): Long
+
+    /**
+     * Returns the number of app launches at the time the Neutral button was clicked.
+     *
+     * @return the number of app launches at the time the Neutral button was clicked
+     */
+    fun getRemindLaunchesNumber(): Int
+
+    /**
+     * Returns the stored version code of the app.
+     *
+     * @return the stored version code of the app
+     */
+    fun getVersionCode(): Long
+
+    /**
+     * Returns the stored version name of the app.
+     *
+     * @return the stored version name of the app, the empty string by default
+     */
+    fun getVersionName(): String
+
+    /**
+     * Returns all custom events counts.
+     *
+     * @return the map of custom events names to their counts
+     */
+    fun getCustomEventCounts(): Map<String, Int>
+
+    /**
+     * Returns the serialized 365-day period Rate Dialog launch history.
+     *
+     * @return the serialized history, null if it isn't stored
+     */
+    fun getDialogLaunchHistory(): ByteArray?
+
+    /**
+     * Returns all extras, the serialized library records that aren't a part of the fixed state,
+     * e.g. the precomputed Rate Dialog eligibility.
+     *
+     * @return the map of extras keys to their serialized values
+     */
+    fun getExtras(): Map<String, ByteArray>
+
+    /**
+     * Creates a new [Editor] for this store, through which you can make modifications to the
+     * data in the store and atomically commit those changes back.
+     *
+     * @return a new [Editor] object
+     */
+    fun edit(): Editor
+
+    /**
+     * RateStore.Editor Interface - the persistent state storage editor interface of the
+     * AndroidRate library.
+     *
+     * All changes you make in an editor are batched, and not copied back to the [RateStore] until
+     * you call [apply]. As in [android.content.SharedPreferences.Editor], [clear] is applied
+     * before all other changes, regardless of the order of the calls.
+     *
+     * @since    1.2.5
+     * @version  1.2.5
+     * @author   Alexander Savin
+     * @see RateStore
+     */
+    interface Editor {
+        /**
+         * Sets the first Rate Dialog launch time.
+         *
+         * @param dialogFirstLaunchTime the first Rate Dialog launch time
+         * @return this editor
+         */
+        fun setDialogFirstLaunchTime(dialogFirstLaunchTime: Long): Editor
+
+        /**
+         * Sets the install date.
+         *
+         * @param installDate the install date
+         * @return this editor
+         */
+        fun setInstallDate(installDate: Long): Editor
+
+        /**
+         * Sets the Rate Dialog agree flag.
+         *
+         * @param isAgreeShowDialog the Rate Dialog agree flag
+         * @return this editor
+         */
+        fun setAgreeShowDialog(isAgreeShowDialog: Boolean): Editor
+
+        /**
+         * Sets the number of times the app has been launched.
+         *
+         * @param launchTimes the number of times the app has been launched
+         * @return this editor
+         */
+        fun setLaunchTimes(launchTimes: Int): Editor
+
+        /**
+         * Sets the time the Neutral button was clicked.
+         *
+         * @param remindInterval the time the Neutral button was clicked, 0 to clear
+         * @return this editor
+         */
+        fun setRemindInterval(remindInterval: Long): Editor
+
+        /**
+         * Sets the number of app launches at the time the Neutral button was clicked.
+         *
+         * @param remindLaunchesNumber the number of app launches, 0 to clear
+         * @return this editor
+         */
+        fun setRemindLaunchesNumber(remindLaunchesNumber: Int): Editor
+
+        /**
+         * Sets the version code of the app.
+         *
+         * @param versionCode the version code of the app
+         * @return this editor
+         */
+        fun setVersionCode(versionCode: Long): Editor
+
+        /**
+         * Sets the version name of the app.
+         *
+         * @param versionName the version name of the app
+         * @return this editor
+         */
+        fun setVersionName(versionName: String): Editor
+
+        /**
+         * Sets the custom event count.
+         *
+         * @param eventName the custom event name
+         * @param eventCount the custom event count
+         * @return this editor
+         */
+        fun setCustomEventCount(eventName: String, eventCount: Int): Editor
+
+        /**
+         * Sets the serialized 365-day period Rate Dialog launch history.
+         *
+         * @param dialogLaunchHistory the serialized history, null to remove it
+         * @return this editor
+         */
+        fun setDialogLaunchHistory(dialogLaunchHistory: ByteArray?): Editor
+
+        /**
+         * Sets the extra, the serialized library record.
+         *
+         * @param key the extra key
+         * @param value the serialized value, null to remove it
+         * @return this editor
+         */
+        fun setExtra(key: String, value: ByteArray?): Editor
+
+        /**
+         * Marks all values in the store to be removed.
+         *
+         * @return this editor
+         */
+        fun clear(): Editor
+
+        /** Commits changes from this editor back to the [RateStore] object it is editing. */
+        fun apply()
+    }
+}
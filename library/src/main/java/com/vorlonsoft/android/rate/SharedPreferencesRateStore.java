@@ -0,0 +1,338 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Base64;
+import android.util.Log;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING;
+import static com.vorlonsoft.android.rate.Constants.Utils.TAG;
+
+/**
+ * <p>SharedPreferencesRateStore Class - the default {@link RateStore} implementation of the
+ * AndroidRate library, it keeps the library state in the {@code "androidrate_pref_file"}
+ * {@link SharedPreferences} file.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ * @see RateStore
+ * @see InMemoryRateStore
+ */
+@SuppressWarnings("WeakerAccess")
+public final class SharedPreferencesRateStore implements RateStore {
+
+    private static final String PREF_FILE_NAME = "androidrate_pref_file";
+
+    private static final String PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_HISTORY = "androidrate_365_day_period_dialog_launch_history";
+    /** The legacy {@code ":day y year - count:"} history string key, migrated to {@link #PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_HISTORY} */
+    private static final String PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_TIMES = "androidrate_365_day_period_dialog_launch_times";
+    /** The key prefix for each custom event, so that there is no clash with existing keys (PREF_KEY_INSTALL_DATE etc.) */
+    private static final String PREF_KEY_CUSTOM_EVENT_PREFIX = "androidrate_custom_event_prefix_";
+
+    /** The key prefix for each extra, the value is the Base64 string */
+    private static final String PREF_KEY_EXTRA_PREFIX = "androidrate_extra_prefix_";
+
+    private static final String PREF_KEY_DIALOG_FIRST_LAUNCH_TIME = "androidrate_dialog_first_launch_time";
+
+    private static final String PREF_KEY_INSTALL_DATE = "androidrate_install_date";
+
+    private static final String PREF_KEY_IS_AGREE_SHOW_DIALOG = "androidrate_is_agree_show_dialog";
+
+    private static final String PREF_KEY_LAUNCH_TIMES = "androidrate_launch_times";
+
+    private static final String PREF_KEY_REMIND_INTERVAL = "androidrate_remind_interval";
+
+    private static final String PREF_KEY_REMIND_LAUNCHES_NUMBER = "androidrate_remind_launches_number";
+
+    private static final String PREF_KEY_VERSION_CODE = "androidrate_version_code";
+
+    private static final String PREF_KEY_VERSION_NAME = "androidrate_version_name";
+
+    /** <p>The context of the single, global Application object of the current process.</p> */
+    private final Context context;
+
+    /**
+     * <p>Creates {@link SharedPreferencesRateStore} object.</p>
+     *
+     * @param context context
+     */
+    public SharedPreferencesRateStore(@NonNull final Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    private SharedPreferences getPreferences() {
+        return context.getSharedPreferences(PREF_FILE_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public long getDialogFirstLaunchTime() {
+        return getPreferences().getLong(PREF_KEY_DIALOG_FIRST_LAUNCH_TIME, 0L);
+    }
+
+    @Override
+    public long getInstallDate() {
+        return getPreferences().getLong(PREF_KEY_INSTALL_DATE, 0L);
+    }
+
+    @Override
+    public boolean isAgreeShowDialog() {
+        return getPreferences().getBoolean(PREF_KEY_IS_AGREE_SHOW_DIALOG, true);
+    }
+
+    @Override
+    public int getLaunchTimes() {
+        return getPreferences().getInt(PREF_KEY_LAUNCH_TIMES, 0);
+    }
+
+    @Override
+    public long getRemindInterval() {
+        return getPreferences().getLong(PREF_KEY_REMIND_INTERVAL, 0L);
+    }
+
+    @Override
+    public int getRemindLaunchesNumber() {
+        return getPreferences().getInt(PREF_KEY_REMIND_LAUNCHES_NUMBER, 0);
+    }
+
+    @Override
+    public long getVersionCode() {
+        return getPreferences().getLong(PREF_KEY_VERSION_CODE, 0L);
+    }
+
+    @NonNull
+    @Override
+    public String getVersionName() {
+        final String versionName = getPreferences().getString(PREF_KEY_VERSION_NAME, EMPTY_STRING);
+        return (versionName == null) ? EMPTY_STRING : versionName;
+    }
+
+    @NonNull
+    @Override
+    public Map<String, Integer> getCustomEventCounts() {
+        final Map<String, Integer> customEventCounts = new HashMap<>();
+        final int prefixLength = PREF_KEY_CUSTOM_EVENT_PREFIX.length();
+        for (Map.Entry<String, ?> entry : getPreferences().getAll().entrySet()) {
+            if (entry.getKey().startsWith(PREF_KEY_CUSTOM_EVENT_PREFIX) &&
+                (entry.getValue() instanceof Integer)) {
+                customEventCounts.put(entry.getKey().substring(prefixLength),
+                                      (Integer) entry.getValue());
+            }
+        }
+        return customEventCounts;
+    }
+
+    /**
+     * <p>Returns the serialized 365-day period Rate Dialog launch history.</p>
+     * <p>If only the legacy history string is stored, it is converted to the new format, nothing
+     * is written. The converted history replaces the legacy key by the next
+     * {@link RateStore.Editor#apply()} (one-time migration).</p>
+     *
+     * @return the serialized history, null if it isn't stored
+     */
+    @Nullable
+    @Override
+    public byte[] getDialogLaunchHistory() {
+        final SharedPreferences preferences = getPreferences();
+        final String encodedHistory = preferences
+                .getString(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_HISTORY, null);
+        if (encodedHistory != null) {
+            try {
+                return Base64.decode(encodedHistory, Base64.NO_WRAP);
+            } catch (IllegalArgumentException e) {
+                Log.i(TAG, "The 365-day period Rate Dialog launch history is corrupted.", e);
+                return null;
+            }
+        }
+        return getLegacyDialogLaunchHistory(preferences);
+    }
+
+    /**
+     * <p>Converts the legacy {@code ":day y year - count:"} history string to the serialized
+     * 365-day period Rate Dialog launch history.</p>
+     *
+     * @param preferences the preferences
+     * @return the serialized history, null if the legacy history string isn't stored
+     */
+    @Nullable
+    private byte[] getLegacyDialogLaunchHistory(@NonNull final SharedPreferences preferences) {
+        final String legacyHistory = preferences
+                .getString(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_TIMES, null);
+        if (legacyHistory == null) {
+            return null;
+        }
+        return DialogLaunchHistory.fromLegacyString(legacyHistory,
+                (int) ((new Date().getTime() - getDialogFirstLaunchTime()) / Time.DAY))
+                .toByteArray();
+    }
+
+    @NonNull
+    @Override
+    public Map<String, byte[]> getExtras() {
+        final Map<String, byte[]> extras = new HashMap<>();
+        final int prefixLength = PREF_KEY_EXTRA_PREFIX.length();
+        for (Map.Entry<String, ?> entry : getPreferences().getAll().entrySet()) {
+            if (entry.getKey().startsWith(PREF_KEY_EXTRA_PREFIX) &&
+                (entry.getValue() instanceof String)) {
+                try {
+                    extras.put(entry.getKey().substring(prefixLength),
+                               Base64.decode((String) entry.getValue(), Base64.NO_WRAP));
+                } catch (IllegalArgumentException e) {
+                    Log.i(TAG, "The extra " + entry.getKey() + " is corrupted.", e);
+                }
+            }
+        }
+        return extras;
+    }
+
+    @NonNull
+    @Override
+    public RateStore.Editor edit() {
+        return new Editor(getPreferences().edit());
+    }
+
+    /**
+     * <p>SharedPreferencesRateStore.Editor Class - the {@link RateStore.Editor} implementation
+     * over {@link SharedPreferences.Editor}.</p>
+     * <p>The editor migrates the legacy history string, if it is still stored and the history
+     * isn't written by the editor.</p>
+     *
+     * @since    1.2.5
+     * @version  1.2.5
+     * @author   Alexander Savin
+     */
+    private final class Editor implements RateStore.Editor {
+        private final SharedPreferences.Editor editor;
+
+        private boolean isDialogLaunchHistoryChanged = false;
+
+        private boolean isCleared = false;
+
+        private Editor(@NonNull final SharedPreferences.Editor editor) {
+            this.editor = editor;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setDialogFirstLaunchTime(final long dialogFirstLaunchTime) {
+            editor.putLong(PREF_KEY_DIALOG_FIRST_LAUNCH_TIME, dialogFirstLaunchTime);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setInstallDate(final long installDate) {
+            editor.putLong(PREF_KEY_INSTALL_DATE, installDate);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setAgreeShowDialog(final boolean isAgreeShowDialog) {
+            editor.putBoolean(PREF_KEY_IS_AGREE_SHOW_DIALOG, isAgreeShowDialog);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setLaunchTimes(final int launchTimes) {
+            editor.putInt(PREF_KEY_LAUNCH_TIMES, launchTimes);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setRemindInterval(final long remindInterval) {
+            editor.putLong(PREF_KEY_REMIND_INTERVAL, remindInterval);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setRemindLaunchesNumber(final int remindLaunchesNumber) {
+            editor.putInt(PREF_KEY_REMIND_LAUNCHES_NUMBER, remindLaunchesNumber);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setVersionCode(final long versionCode) {
+            editor.putLong(PREF_KEY_VERSION_CODE, versionCode);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setVersionName(@NonNull final String versionName) {
+            editor.putString(PREF_KEY_VERSION_NAME, versionName);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setCustomEventCount(@NonNull final String eventName,
+                                                    final int eventCount) {
+            editor.putInt(PREF_KEY_CUSTOM_EVENT_PREFIX + eventName, eventCount);
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setDialogLaunchHistory(@Nullable final byte[] dialogLaunchHistory) {
+            editor.remove(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_TIMES);
+            isDialogLaunchHistoryChanged = true;
+            if (dialogLaunchHistory == null) {
+                editor.remove(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_HISTORY);
+            } else {
+                editor.putString(PREF_KEY_365_DAY_PERIOD_DIALOG_LAUNCH_HISTORY,
+                                 Base64.encodeToString(dialogLaunchHistory, Base64.NO_WRAP));
+            }
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor setExtra(@NonNull final String key, @Nullable final byte[] value) {
+            if (value == null) {
+                editor.remove(PREF_KEY_EXTRA_PREFIX + key);
+            } else {
+                editor.putString(PREF_KEY_EXTRA_PREFIX + key,
+                                 Base64.encodeToString(value, Base64.NO_WRAP));
+            }
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public RateStore.Editor clear() {
+            editor.clear();
+            isCleared = true;
+            return this;
+        }
+
+        @Override
+        public void apply() {
+            if (!isDialogLaunchHistoryChanged && !isCleared) {
+                final byte[] legacyDialogLaunchHistory =
+                        getLegacyDialogLaunchHistory(getPreferences());
+                if (legacyDialogLaunchHistory != null) {
+                    setDialogLaunchHistory(legacyDialogLaunchHistory);
+                }
+            }
+            editor.apply();
+        }
+    }
+}
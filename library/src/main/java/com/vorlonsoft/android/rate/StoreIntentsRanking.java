@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import androidx.annotation.NonNull;
+
+/**
+ * <p>StoreIntentsRanking Class - the store intents ranking class of the AndroidRate library.</p>
+ * <p>The ranking keeps the index of the intent, that was started on the user device last time, and
+ * the indices of the intents, that weren't found, for one store intents chain. The launched intent
+ * is tried first, the not found intents are tried last, others keep the chain order. The ranking
+ * is packed into one long, see {@link #toLong()}, and is valid for the chain with the same
+ * {@link #getFingerprint() fingerprint} only. Objects of this class are immutable,
+ * {@link #setLaunched(int)} and {@link #setNotFound(int)} return a new ranking.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class StoreIntentsRanking {
+    /** <p>The number of ranked chain indices, intents with greater indices keep their order.</p> */
+    static final int MAX_INDICES_NUMBER = 56;
+    /** <p>The not found indices mask of {@link #toLong()}.</p> */
+    private static final long NOT_FOUND_MASK = (1L << MAX_INDICES_NUMBER) - 1L;
+    /** <p>The fingerprint of the chain.</p> */
+    private final int fingerprint;
+    /** <p>The index of the last launched intent, -1 if it is unknown.</p> */
+    private final int launchedIndex;
+    /** <p>The bit N is set if the intent with the index N wasn't found.</p> */
+    private final long notFoundIndices;
+
+    private StoreIntentsRanking(final int fingerprint, final int launchedIndex,
+                                final long notFoundIndices) {
+        this.fingerprint = fingerprint;
+        this.launchedIndex = launchedIndex;
+        this.notFoundIndices = notFoundIndices;
+    }
+
+    /**
+     * <p>Returns the empty ranking for the chain.</p>
+     *
+     * @param fingerprint the fingerprint of the chain
+     * @return the empty ranking, the chain order is kept
+     */
+    @NonNull
+    static StoreIntentsRanking empty(final int fingerprint) {
+        return new StoreIntentsRanking(fingerprint, -1, 0L);
+    }
+
+    /**
+     * <p>Returns the fingerprint of the chain, the ranking is valid for.</p>
+     *
+     * @return the fingerprint of the chain
+     */
+    int getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * <p>Returns the ranking with the intent marked as launched.</p>
+     *
+     * @param index the index of the intent in the chain
+     * @return the new ranking or this ranking if nothing is changed
+     */
+    @NonNull
+    StoreIntentsRanking setLaunched(final int index) {
+        if ((index >= MAX_INDICES_NUMBER) ||
+            ((index == launchedIndex) && ((notFoundIndices & (1L << index)) == 0L))) {
+            return this;
+        }
+        return new StoreIntentsRanking(fingerprint, index, notFoundIndices & ~(1L << index));
+    }
+
+    /**
+     * <p>Returns the ranking with the intent marked as not found.</p>
+     *
+     * @param index the index of the intent in the chain
+     * @return the new ranking or this ranking if nothing is changed
+     */
+    @NonNull
+    StoreIntentsRanking setNotFound(final int index) {
+        if ((index >= MAX_INDICES_NUMBER) ||
+            ((index != launchedIndex) && ((notFoundIndices & (1L << index)) != 0L))) {
+            return this;
+        }
+        return new StoreIntentsRanking(fingerprint, (index == launchedIndex) ? -1 : launchedIndex,
+                                       notFoundIndices | (1L << index));
+    }
+
+    /**
+     * <p>Returns the chain indices in the order the intents are tried.</p>
+     *
+     * @param length the chain length
+     * @return the chain indices
+     */
+    @NonNull
+    int[] getOrder(final int length) {
+        final int[] order = new int[length];
+        int position = 0;
+        if ((launchedIndex >= 0) && (launchedIndex < length)) {
+            order[position++] = launchedIndex;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((i != launchedIndex) && !isNotFound(i)) {
+                order[position++] = i;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if ((i != launchedIndex) && isNotFound(i)) {
+                order[position++] = i;
+            }
+        }
+        return order;
+    }
+
+    private boolean isNotFound(final int index) {
+        return (index < MAX_INDICES_NUMBER) && ((notFoundIndices & (1L << index)) != 0L);
+    }
+
+    /**
+     * <p>Packs the ranking without the fingerprint: the launched index plus one in the upper 8 bits
+     * and the not found indices in the lower 56 bits.</p>
+     *
+     * @return the packed ranking
+     */
+    long toLong() {
+        return ((long) (launchedIndex + 1) << MAX_INDICES_NUMBER) | notFoundIndices;
+    }
+
+    /**
+     * <p>Unpacks the ranking packed by {@link #toLong()}.</p>
+     *
+     * @param fingerprint the fingerprint of the chain
+     * @param ranking the packed ranking
+     * @return the ranking
+     */
+    @NonNull
+    static StoreIntentsRanking fromLong(final int fingerprint, final long ranking) {
+        return new StoreIntentsRanking(fingerprint, (int) (ranking >>> MAX_INDICES_NUMBER) - 1,
+                                       ranking & NOT_FOUND_MASK);
+    }
+}
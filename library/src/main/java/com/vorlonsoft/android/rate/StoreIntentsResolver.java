@@ -0,0 +1,419 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static android.content.pm.PackageManager.MATCH_DEFAULT_ONLY;
+import static com.vorlonsoft.android.rate.IntentHelper.createIntentsForStore;
+import static com.vorlonsoft.android.rate.IntentHelper.createIntentsForStores;
+import static com.vorlonsoft.android.rate.StoreType.AMAZON;
+import static com.vorlonsoft.android.rate.StoreType.APPLE;
+import static com.vorlonsoft.android.rate.StoreType.BAZAAR;
+import static com.vorlonsoft.android.rate.StoreType.BLACKBERRY;
+import static com.vorlonsoft.android.rate.StoreType.CHINESESTORES;
+import static com.vorlonsoft.android.rate.StoreType.GOOGLEPLAY;
+import static com.vorlonsoft.android.rate.StoreType.INTENT;
+import static com.vorlonsoft.android.rate.StoreType.MI;
+import static com.vorlonsoft.android.rate.StoreType.OTHER;
+import static com.vorlonsoft.android.rate.StoreType.SAMSUNG;
+import static com.vorlonsoft.android.rate.StoreType.SLIDEME;
+import static com.vorlonsoft.android.rate.StoreType.TENCENT;
+import static com.vorlonsoft.android.rate.StoreType.YANDEX;
+
+/**
+ * <p>StoreIntentsResolver Class - the store intents resolver class of the AndroidRate
+ * library.</p>
+ * <p>Builds the intents for {@link StoreOptions} and drops the intents, that no activity can
+ * handle, by {@link PackageManager#resolveActivity(Intent, int)}. The library resolves the intents
+ * by {@link #preresolve(StoreOptions)} in the background thread when the Rate Dialog conditions
+ * are met or the Rate Dialog is shown, so the Rate button click only starts the first intent. The
+ * resolved intents are valid until {@link StoreOptions} or the installed app stores and browsers
+ * are changed. If they aren't resolved yet or are stale, the click tries the unresolved intents,
+ * the click thread doesn't query the {@link PackageManager}.</p>
+ * <p>Intents of {@link StoreType#CHINESESTORES}, {@link StoreType#INTENT},
+ * {@link StoreType#OTHER} and several app stores chains are ordered by
+ * {@link StoreIntentsRanking}, that is learned from the launch outcomes reported by
+ * {@link #setLaunchResult(Intent, boolean)}. The ranking is kept in the separate preferences file
+ * and is reset when the chain or the installed app stores and browsers are changed.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class StoreIntentsResolver {
+
+    private static final String PREF_FILE_NAME = "androidrate_store_intents_ranking";
+
+    private static final String PREF_KEY_FINGERPRINT = "androidrate_fingerprint";
+
+    private static final String PREF_KEY_RANKING = "androidrate_ranking";
+
+    private static volatile StoreIntentsResolver singleton = null;
+
+    /** <p>The context of the single, global Application object of the current process.</p> */
+    private final Context context;
+
+    /**
+     * <p>The last resolution, null until the intents are resolved. The resolution is replaced, not
+     * modified.</p>
+     */
+    private volatile Resolution resolution = null;
+
+    /** <p>The last ranking, null until it is loaded. The ranking is replaced, not modified.</p> */
+    private volatile StoreIntentsRanking ranking = null;
+
+    private StoreIntentsResolver(@NonNull final Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * <p>Returns the {@link StoreIntentsResolver} singleton object.</p>
+     *
+     * @param context context
+     * @return the {@link StoreIntentsResolver} singleton object
+     */
+    @NonNull
+    static StoreIntentsResolver getInstance(@NonNull final Context context) {
+        if (singleton == null) {
+            synchronized (StoreIntentsResolver.class) {
+                if (singleton == null) {
+                    singleton = new StoreIntentsResolver(context);
+                }
+            }
+        }
+        return singleton;
+    }
+
+    /**
+     * <p>Resolves the intents in the library background thread if they aren't resolved yet.</p>
+     *
+     * @param storeOptions store options
+     */
+    void preresolve(@NonNull final StoreOptions storeOptions) {
+        BackgroundExecutor.getInstance().execute(new Runnable() {
+            @Override
+            public void run() {
+                getResolution(storeOptions);
+            }
+        });
+    }
+
+    /**
+     * <p>Returns the launchable intents for store options. If {@link #preresolve(StoreOptions)}
+     * hasn't finished yet or the intents are stale, all the intents are returned unresolved and
+     * the intents are resolved in the library background thread for the next call.</p>
+     *
+     * @param storeOptions store options
+     * @return the copies of the launchable intents in the fallback order, all the intents if none
+     *         of them can be resolved, e.g. if the package visibility is restricted
+     */
+    @NonNull
+    Intent[] getIntents(@NonNull final StoreOptions storeOptions) {
+        final int optionsVersion = storeOptions.getVersion();
+        final int packagesVersion = StorePackagesCache.getInstance(context).getPackagesVersion();
+        Resolution current = resolution;
+        if (!isValid(current, optionsVersion, packagesVersion)) {
+            preresolve(storeOptions);
+            // isn't published, the unresolved intents mustn't be taken for the resolved ones
+            current = createResolution(storeOptions, optionsVersion, packagesVersion, false);
+        }
+        final Intent[] intents = new Intent[current.order.length];
+        for (int i = 0; i < intents.length; i++) {
+            final Intent intent = current.chain[current.order[i]];
+            intents[i] = (intent == null) ? null : new Intent(intent);
+        }
+        return intents;
+    }
+
+    /**
+     * <p>Returns the chain indices of the intents returned by {@link #getIntents(StoreOptions)}.
+     * <b>For development only!</b></p>
+     *
+     * @param storeOptions store options
+     * @return the chain indices in the order the intents are tried
+     */
+    @NonNull
+    int[] getIntentsOrder(@NonNull final StoreOptions storeOptions) {
+        return getResolution(storeOptions).order.clone();
+    }
+
+    /**
+     * <p>Records the launch outcome of the intent returned by {@link #getIntents(StoreOptions)},
+     * the outcome is learned for ranked chains only. The launchable intents of the last
+     * resolution are reordered by the new ranking, so they aren't resolved again.</p>
+     *
+     * @param intent the intent
+     * @param isLaunched true if the activity is started, false if it isn't found
+     */
+    void setLaunchResult(@NonNull final Intent intent, final boolean isLaunched) {
+        final Resolution current = resolution;
+        if ((current == null) || !current.isRanked) {
+            return;
+        }
+        int index = -1;
+        for (int i = 0; i < current.chain.length; i++) {
+            if ((current.chain[i] != null) && current.chain[i].filterEquals(intent)) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return;
+        }
+        synchronized (this) {
+            final StoreIntentsRanking oldRanking = getRanking(current.fingerprint);
+            final StoreIntentsRanking newRanking = isLaunched ? oldRanking.setLaunched(index) :
+                                                                oldRanking.setNotFound(index);
+            if (newRanking == oldRanking) {
+                return;
+            }
+            ranking = newRanking;
+            getPreferences().edit()
+                            .putInt(PREF_KEY_FINGERPRINT, newRanking.getFingerprint())
+                            .putLong(PREF_KEY_RANKING, newRanking.toLong())
+                            .apply();
+            if (resolution == current) {
+                resolution = new Resolution(current.optionsVersion, current.packagesVersion,
+                        current.chain, reorder(current.order,
+                                               newRanking.getOrder(current.chain.length)),
+                        true, current.fingerprint);
+            }
+        }
+    }
+
+    /**
+     * <p>Reorders the chain indices by the ranking order.</p>
+     *
+     * @param order the chain indices of the launchable intents
+     * @param rankedOrder all chain indices in the ranking order
+     * @return the chain indices of the launchable intents in the ranking order
+     */
+    @NonNull
+    private static int[] reorder(@NonNull final int[] order, @NonNull final int[] rankedOrder) {
+        final boolean[] isLaunchable = new boolean[rankedOrder.length];
+        for (int index : order) {
+            isLaunchable[index] = true;
+        }
+        final int[] newOrder = new int[order.length];
+        int position = 0;
+        for (int index : rankedOrder) {
+            if (isLaunchable[index]) {
+                newOrder[position++] = index;
+            }
+        }
+        return newOrder;
+    }
+
+    /**
+     * <p>Returns the resolution for store options, the intents are resolved by the calling
+     * thread if they aren't resolved yet or are stale. The {@link PackageManager} can be queried,
+     * so it isn't called by the UI thread.</p>
+     *
+     * @param storeOptions store options
+     * @return the resolution for store options
+     */
+    @NonNull
+    private Resolution getResolution(@NonNull final StoreOptions storeOptions) {
+        final StorePackagesCache storePackagesCache = StorePackagesCache.getInstance(context);
+        storePackagesCache.load();
+        // versions are taken first, so changes during the resolution make it stale
+        final int optionsVersion = storeOptions.getVersion();
+        final int packagesVersion = storePackagesCache.getPackagesVersion();
+        Resolution current = resolution;
+        if (!isValid(current, optionsVersion, packagesVersion)) {
+            current = createResolution(storeOptions, optionsVersion, packagesVersion, true);
+            resolution = current;
+        }
+        return current;
+    }
+
+    private static boolean isValid(@Nullable final Resolution resolution,
+                                   final int optionsVersion, final int packagesVersion) {
+        return (resolution != null) && (resolution.optionsVersion == optionsVersion) &&
+               (resolution.packagesVersion == packagesVersion);
+    }
+
+    /**
+     * <p>Creates the resolution for store options.</p>
+     *
+     * @param storeOptions store options
+     * @param optionsVersion the store options version taken before the intents are created
+     * @param packagesVersion the installed packages version taken before the intents are created
+     * @param isPruned true to drop the intents, that no activity can handle, false to keep all the
+     *                 intents without {@link PackageManager} queries
+     * @return the resolution for store options
+     */
+    @NonNull
+    private Resolution createResolution(@NonNull final StoreOptions storeOptions,
+                                        final int optionsVersion, final int packagesVersion,
+                                        final boolean isPruned) {
+        final Intent[] chain = createIntents(storeOptions);
+        final boolean isRanked = (storeOptions.getStoreTypes() != null) ||
+                                 isRankedStoreType(storeOptions.getStoreType());
+        final int fingerprint = isRanked ? getFingerprint(chain,
+                StorePackagesCache.getInstance(context).getPackagesHashCode()) : 0;
+        final int[] order = isRanked ? getRanking(fingerprint).getOrder(chain.length) :
+                                       StoreIntentsRanking.empty(0).getOrder(chain.length);
+        return new Resolution(optionsVersion, packagesVersion, chain,
+                              isPruned ? prune(chain, order) : order, isRanked, fingerprint);
+    }
+
+    private static boolean isRankedStoreType(final int storeType) {
+        switch (storeType) {
+            case CHINESESTORES:
+            case INTENT:
+            case OTHER:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * <p>Returns the fingerprint of the chain and the installed app stores and browsers.</p>
+     *
+     * @param chain intents in the fallback order
+     * @param packagesHashCode the hash code of the installed app stores and browsers
+     * @return the fingerprint, that is the same across launches
+     */
+    private static int getFingerprint(@NonNull final Intent[] chain, final int packagesHashCode) {
+        int fingerprint = packagesHashCode;
+        for (Intent intent : chain) {
+            fingerprint = (31 * fingerprint) + ((intent == null) ? 0 : intent.toUri(0).hashCode());
+        }
+        return fingerprint;
+    }
+
+    /**
+     * <p>Returns the ranking of the chain, it is loaded from the preferences file once.</p>
+     *
+     * @param fingerprint the fingerprint of the chain
+     * @return the ranking of the chain or the empty ranking if the stored ranking is for another
+     *         chain
+     */
+    @NonNull
+    private synchronized StoreIntentsRanking getRanking(final int fingerprint) {
+        StoreIntentsRanking currentRanking = ranking;
+        if (currentRanking == null) {
+            final SharedPreferences preferences = getPreferences();
+            currentRanking = preferences.contains(PREF_KEY_RANKING) ?
+                    StoreIntentsRanking.fromLong(preferences.getInt(PREF_KEY_FINGERPRINT, 0),
+                                                 preferences.getLong(PREF_KEY_RANKING, 0L)) :
+                    null;
+        }
+        if ((currentRanking == null) || (currentRanking.getFingerprint() != fingerprint)) {
+            currentRanking = StoreIntentsRanking.empty(fingerprint);
+        }
+        ranking = currentRanking;
+        return currentRanking;
+    }
+
+    /**
+     * <p>Creates intents for store options.</p>
+     *
+     * @param storeOptions store options
+     * @return intents for store options
+     */
+    @NonNull
+    private Intent[] createIntents(@NonNull final StoreOptions storeOptions) {
+        final String packageName = AppInformation.getPackageName(context);
+        final int[] storeTypes = storeOptions.getStoreTypes();
+        if (storeTypes != null) {
+            return createIntentsForStores(context, storeTypes, packageName);
+        }
+        switch (storeOptions.getStoreType()) {
+            case AMAZON:
+                return createIntentsForStore(context, AMAZON, packageName);
+            case APPLE:
+                return createIntentsForStore(context, APPLE, storeOptions.getApplicationId());
+            case BAZAAR:
+                return createIntentsForStore(context, BAZAAR, packageName);
+            case BLACKBERRY:
+                return createIntentsForStore(context, BLACKBERRY, storeOptions.getApplicationId());
+            case CHINESESTORES:
+                return createIntentsForStore(context, CHINESESTORES, packageName);
+            case MI:
+                return createIntentsForStore(context, MI, packageName);
+            case SAMSUNG:
+                return createIntentsForStore(context, SAMSUNG, packageName);
+            case SLIDEME:
+                return createIntentsForStore(context, SLIDEME, packageName);
+            case TENCENT:
+                return createIntentsForStore(context, TENCENT, packageName);
+            case YANDEX:
+                return createIntentsForStore(context, YANDEX, packageName);
+            case INTENT:
+            case OTHER:
+                final Intent[] intents = storeOptions.getIntents();
+                return (intents == null) ? new Intent[0] : intents;
+            default:
+                return createIntentsForStore(context, GOOGLEPLAY, packageName);
+        }
+    }
+
+    /**
+     * <p>Drops the intents, that no activity can handle.</p>
+     *
+     * @param chain intents in the fallback order
+     * @param order the chain indices in the order the intents are tried
+     * @return the chain indices of the launchable intents or {@code order} if none of them can be
+     *         resolved
+     */
+    @NonNull
+    private int[] prune(@NonNull final Intent[] chain, @NonNull final int[] order) {
+        final PackageManager packageManager = context.getPackageManager();
+        final int[] launchableOrder = new int[order.length];
+        int launchableNumber = 0;
+        for (int index : order) {
+            if ((chain[index] != null) &&
+                (packageManager.resolveActivity(chain[index], MATCH_DEFAULT_ONLY) != null)) {
+                launchableOrder[launchableNumber++] = index;
+            }
+        }
+        if (launchableNumber == 0) {
+            return order;
+        }
+        final int[] prunedOrder = new int[launchableNumber];
+        System.arraycopy(launchableOrder, 0, prunedOrder, 0, launchableNumber);
+        return prunedOrder;
+    }
+
+    private SharedPreferences getPreferences() {
+        return context.getSharedPreferences(PREF_FILE_NAME, Context.MODE_PRIVATE);
+    }
+
+    /** <p>The intents resolved for the store options and installed packages versions.</p> */
+    private static final class Resolution {
+        private final int optionsVersion;
+        private final int packagesVersion;
+        /** <p>Intents in the fallback order, as they are created.</p> */
+        private final Intent[] chain;
+        /** <p>The chain indices of the launchable intents in the order they are tried.</p> */
+        private final int[] order;
+        private final boolean isRanked;
+        /** <p>The fingerprint of the ranked chain.</p> */
+        private final int fingerprint;
+
+        private Resolution(final int optionsVersion, final int packagesVersion,
+                           @NonNull final Intent[] chain, @NonNull final int[] order,
+                           final boolean isRanked, final int fingerprint) {
+            this.optionsVersion = optionsVersion;
+            this.packagesVersion = packagesVersion;
+            this.chain = chain;
+            this.order = order;
+            this.isRanked = isRanked;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
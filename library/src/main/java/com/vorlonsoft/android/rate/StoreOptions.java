@@ -18,9 +18,13 @@ import static com.vorlonsoft.android.rate.StoreType.OTHER;
 
 /**
  * <p>StoreOptions Class - store options class of the AndroidRate library.</p>
+ * <p>Options are set by the app threads and are read by {@link StoreIntentsResolver} in the
+ * library background thread, so the fields are volatile and the setters are synchronized. A
+ * setter changes the version after the options, so the intents resolved while the options are
+ * changed are stale.</p>
  *
  * @since    1.1.7
- * @version  1.2.1
+ * @version  1.2.5
  * @author   Alexander Savin
  * @author   Shintaro Katafuchi
  */
@@ -28,11 +32,24 @@ import static com.vorlonsoft.android.rate.StoreType.OTHER;
 public final class StoreOptions {
     /** <p>One of the app stores defined by {@link StoreType.AnyStoreType}.</p> */
     @StoreType.AnyStoreType
-    private int storeType = GOOGLEPLAY;
+    private volatile int storeType = GOOGLEPLAY;
 
-    private String applicationId = null;
+    private volatile String applicationId = null;
 
-    private Intent[] intents = null;
+    private volatile Intent[] intents = null;
+
+    /**
+     * <p>The app stores defined by {@link StoreType.StoreWithoutApplicationId} in the priority
+     * order, null if one app store is set. The array is never modified after it is published, so
+     * readers in the library background thread see it whole.</p>
+     */
+    private volatile int[] storeTypes = null;
+
+    /**
+     * <p>The version of store options, it is changed by every {@link #setStoreType} and
+     * {@link #setStoreTypes} call.</p>
+     */
+    private volatile int version = 0;
 
     StoreOptions() {
     }
@@ -53,6 +70,17 @@ public final class StoreOptions {
         this.intents = intents;
     }
 
+    /**
+     * <p>Returns the version of store options, the intents resolved for other version are
+     * stale.</p>
+     *
+     * @return the version of store options
+     * @see StoreIntentsResolver
+     */
+    int getVersion() {
+        return version;
+    }
+
     /**
      * <p>Gets the app store type from library options.</p>
      * <p>NOTE: this method doesn't get an app store type from user's device.</p>
@@ -64,6 +92,32 @@ public final class StoreOptions {
         return storeType;
     }
 
+    /**
+     * <p>Gets the app stores in the priority order from library options.</p>
+     *
+     * @return the values defined by {@link StoreType.StoreWithoutApplicationId} or null if one app
+     *         store is set
+     * @see #getStoreType()
+     */
+    int[] getStoreTypes() {
+        return storeTypes;
+    }
+
+    /**
+     * <p>Sets the app stores defined by {@link StoreType.StoreWithoutApplicationId} in the
+     * priority order to the Positive button, {@link #getStoreType()} returns the first of
+     * them.</p>
+     *
+     * @param storeTypes the values defined by {@link StoreType.StoreWithoutApplicationId}, not
+     *                   empty
+     * @see AppRate#setStoreTypes(int...)
+     */
+    synchronized void setStoreTypes(@StoreType.StoreWithoutApplicationId final int[] storeTypes) {
+        this.storeType = storeTypes[0];
+        this.storeTypes = storeTypes.clone();
+        version++;
+    }
+
     /**
      * <p>Sets one of the app stores defined by {@link StoreType.AnyStoreType} to the
      * Positive button.</p>
@@ -77,8 +131,9 @@ public final class StoreOptions {
      * @see AppRate#setStoreType(Intent...)
      */
     @SuppressLint("SwitchIntDef")
-    void setStoreType(@StoreType.AnyStoreType final int storeType, final String[] stringParam, final Intent[] intentParam) {
+    synchronized void setStoreType(@StoreType.AnyStoreType final int storeType, final String[] stringParam, final Intent[] intentParam) {
         this.storeType = storeType;
+        this.storeTypes = null;
         switch (storeType) {
             case APPLE:
             case BLACKBERRY:
@@ -103,5 +158,6 @@ public final class StoreOptions {
             default:
                 break;
         }
+        version++;
     }
 }
\ No newline at end of file
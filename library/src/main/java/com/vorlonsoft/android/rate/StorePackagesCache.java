@@ -0,0 +1,395 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.content.pm.ChangedPackages;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static android.os.Build.VERSION.SDK_INT;
+import static android.os.Build.VERSION_CODES.N;
+import static android.os.Build.VERSION_CODES.O;
+import static com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING_ARRAY;
+import static com.vorlonsoft.android.rate.Utils.isPackagesExists;
+
+/**
+ * <p>StorePackagesCache Class - the app stores and browsers availability cache class of the
+ * AndroidRate library.</p>
+ * <p>Keeps the set of installed packages out of the app stores and browsers packages known to
+ * {@link IntentHelper}, so building store intents on the Rate button click does no
+ * {@link android.content.pm.PackageManager} queries. The set is loaded in the background by
+ * {@link #preload()} or {@link #load()} when the store intents are resolved, not on every app
+ * launch. It is kept in the separate preferences file and is updated by
+ * {@link Intent#ACTION_PACKAGE_ADDED}, {@link Intent#ACTION_PACKAGE_REMOVED} and
+ * {@link Intent#ACTION_PACKAGE_REPLACED} broadcasts while the process is alive.</p>
+ * <p>The stored set is reused across launches until the device is rebooted. On API 26+ it is
+ * also checked against the packages changed since its
+ * {@link android.content.pm.PackageManager#getChangedPackages(int)} sequence number. On older
+ * devices there is no such fingerprint, so the app stores and browsers changed while the process
+ * isn't alive are missed until the reboot; the store intents of a removed app store fail to
+ * start and the next intent is tried.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class StorePackagesCache {
+
+    private static final String PREF_FILE_NAME = "androidrate_store_packages_cache";
+
+    private static final String PREF_KEY_PACKAGES = "androidrate_packages";
+
+    private static final String PREF_KEY_BOOT_COUNT = "androidrate_boot_count";
+
+    private static final String PREF_KEY_BOOT_TIME = "androidrate_boot_time";
+
+    private static final String PREF_KEY_SEQUENCE_NUMBER = "androidrate_sequence_number";
+
+    /** <p>The packages separator, it can't be a part of a package name.</p> */
+    private static final String PACKAGES_SEPARATOR = " ";
+
+    private static volatile StorePackagesCache singleton = null;
+
+    /** <p>The context of the single, global Application object of the current process.</p> */
+    private final Context context;
+
+    /**
+     * <p>The installed known packages, null until the cache is loaded. The set is replaced, not
+     * modified.</p>
+     */
+    private volatile Set<String> installedPackages = null;
+
+    /** <p>The version of the installed packages set, it is changed by every set change.</p> */
+    private volatile int packagesVersion = 0;
+
+    private final BroadcastReceiver packagesReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(final Context context, final Intent intent) {
+            onPackageChanged(intent);
+        }
+    };
+
+    private StorePackagesCache(@NonNull final Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * <p>Returns the {@link StorePackagesCache} singleton object.</p>
+     *
+     * @param context context
+     * @return the {@link StorePackagesCache} singleton object
+     */
+    @NonNull
+    static StorePackagesCache getInstance(@NonNull final Context context) {
+        if (singleton == null) {
+            synchronized (StorePackagesCache.class) {
+                if (singleton == null) {
+                    singleton = new StorePackagesCache(context);
+                }
+            }
+        }
+        return singleton;
+    }
+
+    /** <p>Loads the cache in the library background thread if it isn't loaded yet.</p> */
+    void preload() {
+        if (installedPackages != null) {
+            return;
+        }
+        BackgroundExecutor.getInstance().execute(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        });
+    }
+
+    /**
+     * <p>Returns the installed packages out of the given packages. The cache isn't loaded by
+     * this method, so there are no {@link android.content.pm.PackageManager} queries: the stored
+     * set is used as is until the cache is loaded, no packages are installed if it isn't
+     * stored.</p>
+     *
+     * @param packagesNames packages names known to {@link IntentHelper}
+     * @return an string array of installed packages in the order of {@code packagesNames} or an
+     *         empty string array if nothing was found
+     */
+    @NonNull
+    String[] getInstalledPackages(@NonNull final String[] packagesNames) {
+        final Set<String> packages = getPackages();
+        final List<String> installedPackagesNames = new ArrayList<>(packagesNames.length);
+        for (String packageName : packagesNames) {
+            if (packages.contains(packageName)) {
+                installedPackagesNames.add(packageName);
+            }
+        }
+        return installedPackagesNames.isEmpty() ? EMPTY_STRING_ARRAY :
+                installedPackagesNames.toArray(new String[installedPackagesNames.size()]);
+    }
+
+    /**
+     * <p>Returns the version of the installed packages set, it is changed when an app store or a
+     * browser is installed or removed.</p>
+     *
+     * @return the version of the installed packages set
+     */
+    int getPackagesVersion() {
+        return packagesVersion;
+    }
+
+    /**
+     * <p>Returns the hash code of the installed packages set, unlike {@link #getPackagesVersion()}
+     * it is the same across launches while the set isn't changed. The cache isn't loaded by this
+     * method.</p>
+     *
+     * @return the hash code of the installed packages set
+     */
+    int getPackagesHashCode() {
+        return getPackages().hashCode();
+    }
+
+    /**
+     * <p>Returns the installed packages set without {@link android.content.pm.PackageManager}
+     * queries.</p>
+     *
+     * @return the loaded set, the stored set if the cache isn't loaded yet or an empty set
+     */
+    @NonNull
+    private Set<String> getPackages() {
+        final Set<String> packages = installedPackages;
+        if (packages != null) {
+            return packages;
+        }
+        final String storedPackages = getPreferences().getString(PREF_KEY_PACKAGES, null);
+        return (storedPackages == null) ? Collections.<String>emptySet() : toSet(storedPackages);
+    }
+
+    /**
+     * <p>Loads the cache by the calling thread if it isn't loaded yet, the
+     * {@link android.content.pm.PackageManager} can be queried, so it isn't called by the UI
+     * thread.</p>
+     *
+     * @return the installed known packages
+     */
+    @NonNull
+    Set<String> load() {
+        final Set<String> packages = installedPackages;
+        if (packages != null) {
+            return packages;
+        }
+        synchronized (this) {
+            if (installedPackages == null) {
+                Set<String> loadedPackages = loadStoredPackages();
+                if (loadedPackages == null) {
+                    loadedPackages = refresh();
+                }
+                installedPackages = loadedPackages;
+                final IntentFilter filter = new IntentFilter();
+                filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+                filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+                filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+                filter.addDataScheme("package");
+                context.registerReceiver(packagesReceiver, filter);
+            }
+            return installedPackages;
+        }
+    }
+
+    /**
+     * <p>Returns the stored set if it was stored since the last reboot and, on API 26+, no known
+     * packages were changed since it was stored.</p>
+     *
+     * @return the stored set or null if it is absent or can be stale
+     */
+    @Nullable
+    private Set<String> loadStoredPackages() {
+        final SharedPreferences preferences = getPreferences();
+        final String storedPackages = preferences.getString(PREF_KEY_PACKAGES, null);
+        // sequence numbers are reset on reboot
+        if ((storedPackages == null) || !isSameBoot(preferences)) {
+            return null;
+        }
+        if (SDK_INT < O) {
+            return toSet(storedPackages);
+        }
+        final int sequenceNumber = preferences.getInt(PREF_KEY_SEQUENCE_NUMBER, 0);
+        final ChangedPackages changedPackages =
+                context.getPackageManager().getChangedPackages(sequenceNumber);
+        if (changedPackages != null) {
+            final Set<String> knownPackages = new HashSet<>();
+            Collections.addAll(knownPackages, IntentHelper.getKnownPackagesNames());
+            for (String packageName : changedPackages.getPackageNames()) {
+                if (knownPackages.contains(packageName)) {
+                    return null;
+                }
+            }
+            preferences.edit()
+                       .putInt(PREF_KEY_SEQUENCE_NUMBER, changedPackages.getSequenceNumber())
+                       .apply();
+        }
+        return toSet(storedPackages);
+    }
+
+    /**
+     * <p>Queries the installed known packages by one pass and stores them.</p>
+     *
+     * @return the installed known packages
+     */
+    @NonNull
+    private Set<String> refresh() {
+        // the sequence number is taken first, so changes during the query make the set stale
+        final int sequenceNumber = (SDK_INT >= O) ? getSequenceNumber() : 0;
+        final String[] packages = isPackagesExists(context, IntentHelper.getKnownPackagesNames());
+        final Set<String> packagesSet = new HashSet<>(packages.length * 2);
+        Collections.addAll(packagesSet, packages);
+        store(packagesSet, sequenceNumber);
+        return Collections.unmodifiableSet(packagesSet);
+    }
+
+    /**
+     * <p>Stores the set with the fingerprint of the packages state it is valid for.</p>
+     *
+     * @param packages the installed known packages
+     * @param sequenceNumber the {@link android.content.pm.PackageManager#getChangedPackages(int)}
+     *                       sequence number, ignored below API 26
+     */
+    private void store(@NonNull final Set<String> packages, final int sequenceNumber) {
+        final SharedPreferences.Editor editor = getPreferences().edit()
+                .putString(PREF_KEY_PACKAGES, TextUtils.join(PACKAGES_SEPARATOR, packages))
+                .putLong(PREF_KEY_BOOT_TIME, getBootTime());
+        if (SDK_INT >= N) {
+            editor.putInt(PREF_KEY_BOOT_COUNT, getBootCount());
+        }
+        if (SDK_INT >= O) {
+            editor.putInt(PREF_KEY_SEQUENCE_NUMBER, sequenceNumber);
+        }
+        editor.apply();
+    }
+
+    /**
+     * <p>Returns the current {@link android.content.pm.PackageManager#getChangedPackages(int)}
+     * sequence number, the changes are queried since the stored sequence number of this boot.</p>
+     *
+     * @return the current sequence number
+     */
+    @TargetApi(O)
+    private int getSequenceNumber() {
+        final SharedPreferences preferences = getPreferences();
+        final int storedSequenceNumber = isSameBoot(preferences) ?
+                preferences.getInt(PREF_KEY_SEQUENCE_NUMBER, 0) : 0;
+        final ChangedPackages changedPackages =
+                context.getPackageManager().getChangedPackages(storedSequenceNumber);
+        return (changedPackages == null) ? storedSequenceNumber :
+                changedPackages.getSequenceNumber();
+    }
+
+    /**
+     * <p>Updates the set by the package broadcast without {@link
+     * android.content.pm.PackageManager} queries.</p>
+     *
+     * @param intent the {@link Intent#ACTION_PACKAGE_ADDED}, {@link Intent#ACTION_PACKAGE_REMOVED}
+     *               or {@link Intent#ACTION_PACKAGE_REPLACED} broadcast intent
+     */
+    private void onPackageChanged(@NonNull final Intent intent) {
+        final Uri data = intent.getData();
+        final String packageName = (data == null) ? null : data.getSchemeSpecificPart();
+        if ((packageName == null) ||
+            // the replaced package is removed and added again
+            (Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction()) &&
+             intent.getBooleanExtra(Intent.EXTRA_REPLACING, false))) {
+            return;
+        }
+        boolean isKnown = false;
+        for (String knownPackageName : IntentHelper.getKnownPackagesNames()) {
+            if (knownPackageName.equals(packageName)) {
+                isKnown = true;
+                break;
+            }
+        }
+        if (!isKnown) {
+            return;
+        }
+        final boolean isInstalled = !Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction());
+        synchronized (this) {
+            final Set<String> packages = installedPackages;
+            if ((packages == null) || (packages.contains(packageName) == isInstalled)) {
+                return;
+            }
+            final Set<String> newPackages = new HashSet<>(packages);
+            if (isInstalled) {
+                newPackages.add(packageName);
+            } else {
+                newPackages.remove(packageName);
+            }
+            installedPackages = Collections.unmodifiableSet(newPackages);
+            packagesVersion++;
+        }
+        BackgroundExecutor.getInstance().execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (StorePackagesCache.this) {
+                    final int sequenceNumber = (SDK_INT >= O) ? getSequenceNumber() : 0;
+                    store(installedPackages, sequenceNumber);
+                }
+            }
+        });
+    }
+
+    @NonNull
+    private static Set<String> toSet(@NonNull final String packages) {
+        final Set<String> packagesSet = new HashSet<>();
+        if (packages.length() != 0) {
+            Collections.addAll(packagesSet, packages.split(PACKAGES_SEPARATOR));
+        }
+        return Collections.unmodifiableSet(packagesSet);
+    }
+
+    /**
+     * <p>Checks whether the preferences were stored since the last reboot. The boot count is used
+     * on API 24+, the boot time, that can be shifted by the clock change, is used on all
+     * devices.</p>
+     *
+     * @param preferences the preferences
+     * @return true if the preferences were stored since the last reboot, false otherwise
+     */
+    private boolean isSameBoot(@NonNull final SharedPreferences preferences) {
+        if ((SDK_INT >= N) && (preferences.getInt(PREF_KEY_BOOT_COUNT, -1) != getBootCount())) {
+            return false;
+        }
+        return Math.abs(preferences.getLong(PREF_KEY_BOOT_TIME, 0L) - getBootTime()) < Time.MINUTE;
+    }
+
+    @TargetApi(N)
+    private int getBootCount() {
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+    }
+
+    private static long getBootTime() {
+        return System.currentTimeMillis() - SystemClock.elapsedRealtime();
+    }
+
+    private SharedPreferences getPreferences() {
+        return context.getSharedPreferences(PREF_FILE_NAME, Context.MODE_PRIVATE);
+    }
+}
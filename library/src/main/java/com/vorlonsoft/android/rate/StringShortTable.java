@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>StringShortTable Class - the primitive {@code String} to {@code short} table class of the
+ * AndroidRate library.</p>
+ * <p>The open-addressed hash table with linear probing keeps keys and values in two parallel
+ * arrays, so values aren't boxed and the iteration over {@link #keyAt(int)} and
+ * {@link #valueAt(int)} doesn't allocate. The capacity is a power of two and the load factor is
+ * at most 1/2. Keys can't be removed. The class isn't thread-safe.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class StringShortTable {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+
+    private short[] values = new short[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    private static int getIndex(@NonNull final String key, final int mask) {
+        final int hash = key.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * <p>Returns the number of keys.</p>
+     *
+     * @return the number of keys
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * <p>Returns the capacity, the upper bound of the {@link #keyAt(int)} index.</p>
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * <p>Returns the key at the index.</p>
+     *
+     * @param index the index from 0 to {@link #capacity()} - 1
+     * @return the key, null if there is no key at the index
+     */
+    @Nullable
+    String keyAt(final int index) {
+        return keys[index];
+    }
+
+    /**
+     * <p>Returns the value at the index.</p>
+     *
+     * @param index the index of a key returned by {@link #keyAt(int)}
+     * @return the value
+     */
+    short valueAt(final int index) {
+        return values[index];
+    }
+
+    /**
+     * <p>Checks if the table contains the key.</p>
+     *
+     * @param key the key
+     * @return true if the table contains the key, false otherwise
+     */
+    boolean containsKey(@NonNull final String key) {
+        return keys[findIndex(key)] != null;
+    }
+
+    /**
+     * <p>Returns the value of the key.</p>
+     *
+     * @param key the key
+     * @param defaultValue the value returned if the table doesn't contain the key
+     * @return the value
+     */
+    short get(@NonNull final String key, final short defaultValue) {
+        final int index = findIndex(key);
+        return (keys[index] == null) ? defaultValue : values[index];
+    }
+
+    /**
+     * <p>Puts the key and the value.</p>
+     *
+     * @param key the key
+     * @param value the value
+     */
+    void put(@NonNull final String key, final short value) {
+        int index = findIndex(key);
+        if (keys[index] == null) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+                index = findIndex(key);
+            }
+            keys[index] = key;
+            size++;
+        }
+        values[index] = value;
+    }
+
+    /**
+     * <p>Returns the index of the key or the index of the free slot, where the key should be.</p>
+     *
+     * @param key the key
+     * @return the index
+     */
+    private int findIndex(@NonNull final String key) {
+        final int mask = keys.length - 1;
+        int index = getIndex(key, mask);
+        while ((keys[index] != null) && !keys[index].equals(key)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void resize(final int capacity) {
+        final String[] oldKeys = keys;
+        final short[] oldValues = values;
+        keys = new String[capacity];
+        values = new short[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = getIndex(oldKeys[i], mask);
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Vorlonsoft LLC
+ *
+ * Licensed under The MIT License (MIT)
+ */
+
+package com.vorlonsoft.android.rate;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>StripedCounter Class - the lock-free striped counter class of the AndroidRate library.</p>
+ * <p>{@code java.util.concurrent.atomic.LongAdder} analogue for API levels below 24: the value is
+ * spread over several atomic cells, each thread updates the cell chosen by its id, so concurrent
+ * increments don't contend on a single memory word. Cells are padded to separate cache lines.
+ * {@link #sum()} isn't an atomic snapshot if there are concurrent updates.</p>
+ *
+ * @since    1.2.5
+ * @version  1.2.5
+ * @author   Alexander Savin
+ */
+final class StripedCounter {
+
+    /** <p>The distance between cells in longs, 64 bytes is the common cache line size.</p> */
+    private static final int PADDING = 8;
+
+    /** <p>The number of cells, the power of two not less than the number of CPUs.</p> */
+    static final int STRIPES;
+
+    static {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    /**
+     * <p>Returns the cell index of the current thread.</p>
+     *
+     * @return the cell index
+     */
+    private static int getIndex() {
+        if (STRIPES == 1) {
+            return 0;
+        }
+        final long id = Thread.currentThread().getId();
+        final int hash = ((int) id ^ (int) (id >>> 32)) * 0x9E3779B9;
+        return ((hash >>> 16) & (STRIPES - 1)) * PADDING;
+    }
+
+    /**
+     * <p>Adds one.</p>
+     *
+     * @return the new value of the current thread cell, it can be used to sample {@link #sum()}
+     */
+    long increment() {
+        return cells.incrementAndGet(getIndex());
+    }
+
+    /**
+     * <p>Adds the given value.</p>
+     *
+     * @param value the value to add
+     */
+    void add(final long value) {
+        cells.getAndAdd(getIndex(), value);
+    }
+
+    /**
+     * <p>Returns the current sum.</p>
+     *
+     * @return the sum
+     */
+    long sum() {
+        long sum = 0L;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+}
@@ -8,7 +8,7 @@ package com.vorlonsoft.android.rate
 
 import android.app.AlertDialog
 import android.content.Context
-import android.content.pm.ApplicationInfo
+import android.content.pm.PackageManager
 import android.os.Build.VERSION.SDK_INT
 import android.os.Build.VERSION_CODES.HONEYCOMB
 import android.os.Build.VERSION_CODES.ICE_CREAM_SANDWICH
@@ -22,11 +22,17 @@ import com.vorlonsoft.android.rate.Constants.Utils.EMPTY_STRING_ARRAY
  * Contains [getDialogBuilder], [getAppCompatDialogBuilder], [isPackagesExists] functions.
  *
  * @since    0.5.0
- * @version  1.2.1
+ * @version  1.2.5
  * @author   Alexander Savin
  * @author   Shintaro Katafuchi
  */
 internal object Utils {
+    /**
+     * The max number of target packages, that are looked up one by one. More target packages are
+     * looked up by one pass over the installed applications.
+     */
+    private const val PACKAGE_LOOKUPS_MAX_NUMBER: Int = 4
+
     /**
      * Creates [android.app.AlertDialog.Builder].
      *
@@ -63,9 +69,16 @@ internal object Utils {
     /**
      * Checks whether target packages exist on the user device or not.
      *
+     * A few target packages are looked up one by one with [PackageManager.getPackageInfo], each
+     * lookup is a small Binder transaction. More target packages are looked up in the hash set of
+     * the installed applications packages, that is built by one
+     * [PackageManager.getInstalledApplications] call. [StorePackagesCache] looks up all known app
+     * stores and browsers packages at once, so it takes the one pass.
+     *
      * @param context activity context
      * @param targetPackages target packages
-     * @return an string array of existing packages or an empty string array if nothing was found
+     * @return an string array of existing packages in the order of target packages or an empty
+     * string array if nothing was found
      */
     @JvmStatic
     fun isPackagesExists(context: Context, targetPackages: Array<String?>): Array<String?> {
@@ -73,31 +86,44 @@ internal object Utils {
             return EMPTY_STRING_ARRAY
         }
 
-        val applicationInfo: List<ApplicationInfo> = context.packageManager
-                                                                    .getInstalledApplications(0)
+        val packageManager: PackageManager = context.packageManager
+        val packageNames: ArrayList<String> = ArrayList(targetPackages.size)
 
-        if (targetPackages.size == 1) {
-            if ((targetPackages[0] != null) && (targetPackages[0] != EMPTY_STRING)) {
-                for (anApplicationInfo in applicationInfo) {
-                    if (targetPackages[0] == anApplicationInfo.packageName) {
-                        return arrayOf(targetPackages[0])
-                    }
+        if (targetPackages.size <= PACKAGE_LOOKUPS_MAX_NUMBER) {
+            for (aTargetPackage in targetPackages) {
+                if ((aTargetPackage != null) && (aTargetPackage != EMPTY_STRING) &&
+                    isPackageExists(packageManager, aTargetPackage)) {
+                    packageNames.add(aTargetPackage)
                 }
             }
-            return EMPTY_STRING_ARRAY
         } else {
-            val packageNames: ArrayList<String> = ArrayList()
+            val installedPackages: HashSet<String> = HashSet()
+            for (anApplicationInfo in packageManager.getInstalledApplications(0)) {
+                installedPackages.add(anApplicationInfo.packageName)
+            }
             for (aTargetPackage in targetPackages) {
-                if ((aTargetPackage != null) && (aTargetPackage != EMPTY_STRING)) {
-                    for (anApplicationInfo in applicationInfo) {
-                        if (aTargetPackage == anApplicationInfo.packageName) {
-                            packageNames.add(aTargetPackage)
-                            break
-                        }
-                    }
+                if ((aTargetPackage != null) && installedPackages.contains(aTargetPackage)) {
+                    packageNames.add(aTargetPackage)
                 }
             }
-            return packageNames.toTypedArray()
+        }
+
+        return if (packageNames.isEmpty()) EMPTY_STRING_ARRAY else packageNames.toTypedArray()
+    }
+
+    /**
+     * Checks whether the package exists on the user device or not.
+     *
+     * @param packageManager package manager
+     * @param packageName package name
+     * @return true if the package exists, false otherwise
+     */
+    private fun isPackageExists(packageManager: PackageManager, packageName: String): Boolean {
+        return try {
+            packageManager.getPackageInfo(packageName, 0)
+            true
+        } catch (e: PackageManager.NameNotFoundException) {
+            false
         }
     }
 }
\ No newline at end of file